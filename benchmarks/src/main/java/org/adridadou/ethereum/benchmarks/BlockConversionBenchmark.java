@@ -0,0 +1,74 @@
+package org.adridadou.ethereum.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.adridadou.ethereum.propeller.values.ChainId;
+import org.adridadou.ethereum.rpc.EthereumRpc;
+import org.adridadou.ethereum.rpc.EthereumRpcConfig;
+import org.adridadou.ethereum.rpc.LogFilter;
+import org.adridadou.ethereum.rpc.Web3JFacade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.web3j.protocol.Web3j;
+
+/**
+ * This code is released under Apache 2 license
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockConversionBenchmark {
+    private static final long BLOCK_NUMBER = 5_000_000;
+
+    @Param({"20", "200"})
+    public int transactions;
+
+    @Param({"3"})
+    public int logsPerTransaction;
+
+    private EthereumRpc ethereumRpc;
+
+    @Setup
+    public void setup() {
+        InMemoryRpcService service = new InMemoryRpcService()
+                .result("eth_blockNumber", BlockFixtures.blockNumber(BLOCK_NUMBER))
+                .result("eth_getBlockByNumber", BlockFixtures.block(BLOCK_NUMBER, transactions))
+                .result("eth_getBlockReceipts", BlockFixtures.receipts(BLOCK_NUMBER, transactions, logsPerTransaction))
+                .result("eth_getLogs", BlockFixtures.logs(BLOCK_NUMBER, transactions, logsPerTransaction));
+        ethereumRpc = new EthereumRpc(new Web3JFacade(Web3j.build(service), service), ChainId.id(1), EthereumRpcConfig.builder()
+                .pollBlocks(true)
+                .pollingFrequence(1, TimeUnit.HOURS)
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        ethereumRpc.close();
+    }
+
+    @Benchmark
+    public Object getBlock() {
+        return ethereumRpc.getBlock(BLOCK_NUMBER);
+    }
+
+    /**
+     * the logs are fetched on the rpc executor, the hop to it is included
+     */
+    @Benchmark
+    public Object getLogs() {
+        return ethereumRpc.getLogs(LogFilter.anyAddress(), BLOCK_NUMBER, BLOCK_NUMBER);
+    }
+}
@@ -0,0 +1,171 @@
+package org.adridadou.ethereum.benchmarks;
+
+/**
+ * This code is released under Apache 2 license
+ */
+final class BlockFixtures {
+    static final String TRANSFER_TOPIC = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+    private static final String EMPTY_BLOOM = "0x" + repeat("0", 512);
+
+    private BlockFixtures() {}
+
+    static String blockNumber(long number) {
+        return quantity(number);
+    }
+
+    static String block(long number, int transactions) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"number\":").append(quantity(number))
+                .append(",\"hash\":").append(hash(blockSeed(number)))
+                .append(",\"parentHash\":").append(hash(blockSeed(number - 1)))
+                .append(",\"nonce\":\"0x0000000000000042\"")
+                .append(",\"sha3Uncles\":").append(hash(0))
+                .append(",\"logsBloom\":\"").append(EMPTY_BLOOM).append('"')
+                .append(",\"transactionsRoot\":").append(hash(number * 3 + 1))
+                .append(",\"stateRoot\":").append(hash(number * 3 + 2))
+                .append(",\"receiptsRoot\":").append(hash(number * 3 + 3))
+                .append(",\"miner\":").append(address(7))
+                .append(",\"difficulty\":\"0xb5b1e9b5b1e9\"")
+                .append(",\"totalDifficulty\":\"0x1d8e2fbd2b1e9b5b1e9\"")
+                .append(",\"extraData\":\"0x65746865726d696e652d6575726f7065\"")
+                .append(",\"size\":").append(quantity(600L + transactions * 180L))
+                .append(",\"gasLimit\":\"0x7a1200\"")
+                .append(",\"gasUsed\":").append(quantity(21_000L * transactions))
+                .append(",\"timestamp\":").append(quantity(1_500_000_000L + number * 14))
+                .append(",\"uncles\":[]")
+                .append(",\"transactions\":[");
+        for (int i = 0; i < transactions; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendTransaction(json, number, i);
+        }
+        return json.append("]}").toString();
+    }
+
+    static String receipts(long number, int transactions, int logsPerTransaction) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < transactions; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendReceipt(json, number, i, logsPerTransaction);
+        }
+        return json.append(']').toString();
+    }
+
+    static String receipt(long number, int index, int logsPerTransaction) {
+        StringBuilder json = new StringBuilder();
+        appendReceipt(json, number, index, logsPerTransaction);
+        return json.toString();
+    }
+
+    static String logs(long number, int transactions, int logsPerTransaction) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < transactions; i++) {
+            for (int j = 0; j < logsPerTransaction; j++) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                appendLog(json, number, i, j);
+            }
+        }
+        return json.append(']').toString();
+    }
+
+    static String transaction(long number, int index) {
+        StringBuilder json = new StringBuilder();
+        appendTransaction(json, number, index);
+        return json.toString();
+    }
+
+    static String transactionHash(long number, int index) {
+        return hash(transactionSeed(number, index));
+    }
+
+    private static void appendTransaction(StringBuilder json, long number, int index) {
+        json.append("{\"hash\":").append(transactionHash(number, index))
+                .append(",\"nonce\":").append(quantity(index))
+                .append(",\"blockHash\":").append(hash(blockSeed(number)))
+                .append(",\"blockNumber\":").append(quantity(number))
+                .append(",\"transactionIndex\":").append(quantity(index))
+                .append(",\"from\":").append(address(index + 100))
+                .append(",\"to\":").append(address(index % 20 + 1))
+                .append(",\"value\":\"0xde0b6b3a7640000\"")
+                .append(",\"gasPrice\":\"0x4a817c800\"")
+                .append(",\"gas\":\"0x15f90\"")
+                .append(",\"input\":\"0xa9059cbb").append(word(index + 1)).append(word(1_000_000L * (index + 1))).append('"')
+                .append(",\"v\":\"0x25\"")
+                .append(",\"r\":").append(hash(transactionSeed(number, index) + 1))
+                .append(",\"s\":").append(hash(transactionSeed(number, index) + 2))
+                .append('}');
+    }
+
+    private static void appendReceipt(StringBuilder json, long number, int index, int logsPerTransaction) {
+        json.append("{\"transactionHash\":").append(transactionHash(number, index))
+                .append(",\"transactionIndex\":").append(quantity(index))
+                .append(",\"blockHash\":").append(hash(blockSeed(number)))
+                .append(",\"blockNumber\":").append(quantity(number))
+                .append(",\"cumulativeGasUsed\":").append(quantity(52_000L * (index + 1)))
+                .append(",\"gasUsed\":\"0xcb20\"")
+                .append(",\"contractAddress\":null")
+                .append(",\"status\":\"0x1\"")
+                .append(",\"from\":").append(address(index + 100))
+                .append(",\"to\":").append(address(index % 20 + 1))
+                .append(",\"logsBloom\":\"").append(EMPTY_BLOOM).append('"')
+                .append(",\"logs\":[");
+        for (int j = 0; j < logsPerTransaction; j++) {
+            if (j > 0) {
+                json.append(',');
+            }
+            appendLog(json, number, index, j);
+        }
+        json.append("]}");
+    }
+
+    private static void appendLog(StringBuilder json, long number, int index, int logIndex) {
+        json.append("{\"removed\":false")
+                .append(",\"logIndex\":").append(quantity(index * 8L + logIndex))
+                .append(",\"transactionIndex\":").append(quantity(index))
+                .append(",\"transactionHash\":").append(transactionHash(number, index))
+                .append(",\"blockHash\":").append(hash(blockSeed(number)))
+                .append(",\"blockNumber\":").append(quantity(number))
+                .append(",\"address\":").append(address(index % 20 + 1))
+                .append(",\"data\":\"0x").append(word(1_000_000L * (index + 1))).append('"')
+                .append(",\"type\":\"mined\"")
+                .append(",\"topics\":[\"").append(TRANSFER_TOPIC).append("\",\"0x").append(word(index + 100)).append("\",\"0x").append(word(index % 20 + 1)).append("\"]")
+                .append('}');
+    }
+
+    private static long blockSeed(long number) {
+        return number << 20;
+    }
+
+    private static long transactionSeed(long number, int index) {
+        return (number << 20) + (index + 1) * 4L;
+    }
+
+    private static String quantity(long value) {
+        return "\"0x" + Long.toHexString(value) + '"';
+    }
+
+    private static String hash(long seed) {
+        return "\"0x" + word(seed) + '"';
+    }
+
+    private static String address(long seed) {
+        return "\"0x" + String.format("%040x", seed) + '"';
+    }
+
+    private static String word(long value) {
+        return String.format("%064x", value);
+    }
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder(value.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
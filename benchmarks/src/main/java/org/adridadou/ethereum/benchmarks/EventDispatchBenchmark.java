@@ -0,0 +1,96 @@
+package org.adridadou.ethereum.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.event.EthereumEventHandler;
+import org.adridadou.ethereum.propeller.values.ChainId;
+import org.adridadou.ethereum.propeller.values.TransactionInfo;
+import org.adridadou.ethereum.rpc.EthereumRpc;
+import org.adridadou.ethereum.rpc.EthereumRpcConfig;
+import org.adridadou.ethereum.rpc.EventDispatcher;
+import org.adridadou.ethereum.rpc.OverflowPolicy;
+import org.adridadou.ethereum.rpc.Web3JFacade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.web3j.protocol.Web3j;
+
+/**
+ * This code is released under Apache 2 license
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatchBenchmark {
+    private static final long BLOCK_NUMBER = 5_000_000;
+
+    @Param({"1", "4", "16"})
+    public int handlers;
+
+    @Param({"200"})
+    public int transactions;
+
+    private final AtomicLong processed = new AtomicLong();
+    private EventDispatcher eventDispatcher;
+    private BlockInfo blockInfo;
+    private long expected;
+
+    @Setup
+    public void setup() {
+        InMemoryRpcService service = new InMemoryRpcService()
+                .result("eth_blockNumber", BlockFixtures.blockNumber(BLOCK_NUMBER))
+                .result("eth_getBlockByNumber", BlockFixtures.block(BLOCK_NUMBER, transactions))
+                .result("eth_getBlockReceipts", BlockFixtures.receipts(BLOCK_NUMBER, transactions, 3));
+        Web3JFacade web3JFacade = new Web3JFacade(Web3j.build(service), service);
+        EthereumRpc ethereumRpc = new EthereumRpc(web3JFacade, ChainId.id(1), EthereumRpcConfig.builder()
+                .pollBlocks(true)
+                .pollingFrequence(1, TimeUnit.HOURS)
+                .build());
+        blockInfo = ethereumRpc.getBlock(BLOCK_NUMBER).orElseThrow(() -> new IllegalStateException("no block"));
+        web3JFacade.close();
+
+        eventDispatcher = new EventDispatcher(1_024, OverflowPolicy.BLOCK);
+        for (int i = 0; i < handlers; i++) {
+            eventDispatcher.addHandler(new EthereumEventHandler() {
+                @Override
+                public void onBlock(BlockInfo blockInfo) {
+                    processed.incrementAndGet();
+                }
+
+                @Override
+                public void onTransactionExecuted(TransactionInfo transactionInfo) {
+                    processed.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventDispatcher.close();
+    }
+
+    @Benchmark
+    public long dispatch() {
+        expected += (long) handlers * (blockInfo.receipts.size() + 1);
+        eventDispatcher.dispatch(blockInfo);
+        while (processed.get() < expected) {
+            Thread.yield();
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,92 @@
+package org.adridadou.ethereum.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.adridadou.ethereum.propeller.values.ChainId;
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.rpc.BatchHttpService;
+import org.adridadou.ethereum.rpc.EthereumRpc;
+import org.adridadou.ethereum.rpc.EthereumRpcConfig;
+import org.adridadou.ethereum.rpc.Web3JFacade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.web3j.protocol.Web3j;
+
+/**
+ * This code is released under Apache 2 license
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FacadeBenchmark {
+    private static final long BLOCK_NUMBER = 5_000_000;
+    private static final EthAddress ADDRESS = EthAddress.of("0x3535353535353535353535353535353535353535");
+
+    @Param({"0", "2000"})
+    public long latencyMicros;
+
+    @Param({"200"})
+    public int transactions;
+
+    @Param({"true", "false"})
+    public boolean blockReceipts;
+
+    private StubRpcServer server;
+    private EthereumRpc ethereumRpc;
+    private EthHash transactionHash;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new StubRpcServer()
+                .result("eth_blockNumber", BlockFixtures.blockNumber(BLOCK_NUMBER))
+                .result("eth_getBalance", "\"0xde0b6b3a7640000\"")
+                .result("eth_getBlockByNumber", BlockFixtures.block(BLOCK_NUMBER, transactions))
+                .result("eth_getTransactionByHash", BlockFixtures.transaction(BLOCK_NUMBER, 0))
+                .result("eth_getBlockReceipts", BlockFixtures.receipts(BLOCK_NUMBER, transactions, 3))
+                .result("eth_getTransactionReceipt", BlockFixtures.receipt(BLOCK_NUMBER, 0, 3))
+                .latency(latencyMicros, TimeUnit.MICROSECONDS);
+        BatchHttpService service = new BatchHttpService(server.getUrl());
+        ethereumRpc = new EthereumRpc(new Web3JFacade(Web3j.build(service), service), ChainId.id(1), EthereumRpcConfig.builder()
+                .pollBlocks(true)
+                .pollingFrequence(1, TimeUnit.HOURS)
+                .useBlockReceipts(blockReceipts)
+                .build());
+        transactionHash = EthHash.of(BlockFixtures.transactionHash(BLOCK_NUMBER, 0).replace("\"", ""));
+    }
+
+    @TearDown
+    public void tearDown() {
+        ethereumRpc.close();
+        server.close();
+    }
+
+    @Benchmark
+    public Object getBalance() {
+        return ethereumRpc.getBalance(ADDRESS);
+    }
+
+    @Benchmark
+    public Object getBlock() {
+        return ethereumRpc.getBlock(BLOCK_NUMBER);
+    }
+
+    @Benchmark
+    public Object getTransactionInfo() {
+        return ethereumRpc.getTransactionInfo(transactionHash);
+    }
+}
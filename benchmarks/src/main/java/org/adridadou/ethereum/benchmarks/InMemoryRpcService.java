@@ -0,0 +1,62 @@
+package org.adridadou.ethereum.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+/**
+ * This code is released under Apache 2 license
+ */
+final class InMemoryRpcService implements Web3jService {
+    private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+    private final Map<String, Response> responses = new ConcurrentHashMap<>();
+
+    InMemoryRpcService result(String method, String json) {
+        results.put(method, json);
+        responses.remove(method);
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        String method = request.getMethod();
+        String result = results.get(method);
+        if (result == null) {
+            throw new IOException("no result recorded for " + method);
+        }
+        try {
+            return (T) responses.computeIfAbsent(method, key -> parse(result, responseType));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            result.complete(send(request, responseType));
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private <T extends Response> T parse(String result, Class<T> responseType) {
+        try {
+            return objectMapper.readValue("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":" + result + "}", responseType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
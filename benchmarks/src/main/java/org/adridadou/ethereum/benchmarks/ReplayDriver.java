@@ -0,0 +1,286 @@
+package org.adridadou.ethereum.benchmarks;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.adridadou.ethereum.propeller.event.EthereumEventHandler;
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.adridadou.ethereum.propeller.values.ChainId;
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.rpc.BatchHttpService;
+import org.adridadou.ethereum.rpc.EthereumRpc;
+import org.adridadou.ethereum.rpc.EthereumRpcConfig;
+import org.adridadou.ethereum.rpc.HttpTransport;
+import org.adridadou.ethereum.rpc.InstrumentedRpcService;
+import org.adridadou.ethereum.rpc.RpcMetrics;
+import org.adridadou.ethereum.rpc.RpcRecorder;
+import org.adridadou.ethereum.rpc.RpcRequestExecutor;
+import org.adridadou.ethereum.rpc.Web3JFacade;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.utils.Numeric;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public final class ReplayDriver {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReplayServer server;
+    private final Web3jService service;
+    private final EthereumRpc ethereum;
+    private final ReplayMetrics metrics = new ReplayMetrics();
+
+    private ReplayDriver(ReplayServer server) {
+        this.server = server;
+        EthereumRpcConfig config = EthereumRpcConfig.builder()
+                .pollBlocks(true)
+                .pollingFrequence(100)
+                .metrics(metrics)
+                .build();
+        HttpTransport transport = new HttpTransport(config.getHttpTransport());
+        this.service = new InstrumentedRpcService(new BatchHttpService(server.getUrl(), transport), metrics);
+        RpcRequestExecutor requestExecutor = new RpcRequestExecutor(RpcRequestExecutor.defaultExecutor(), config.getMaxInFlightRequests());
+        Web3JFacade web3JFacade = new Web3JFacade(Web3j.build(service), service, requestExecutor, config.createReadCache());
+        this.ethereum = new EthereumRpc(web3JFacade, ChainId.id(1), config);
+        this.ethereum.register(new EthereumEventHandler());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: ReplayDriver recording [speed] [concurrency] [seconds]");
+            System.exit(1);
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 60;
+
+        List<RpcRecorder.Exchange> exchanges = RpcRecorder.read(Paths.get(args[0]));
+        try (ReplayServer server = new ReplayServer(exchanges, speed)) {
+            System.out.printf("replaying %d exchanges (%d calls) at %sx with %d workers for %ds%n",
+                    exchanges.size(), server.getCalls().size(), speed, concurrency, seconds);
+            ReplayDriver driver = new ReplayDriver(server);
+            try {
+                driver.run(concurrency, TimeUnit.SECONDS.toNanos(seconds));
+            } finally {
+                driver.ethereum.close();
+            }
+        }
+    }
+
+    private void run(int concurrency, long durationNanos) throws InterruptedException {
+        List<JsonNode> calls = server.getCalls();
+        if (calls.isEmpty()) {
+            throw new IllegalArgumentException("the recording has no calls");
+        }
+        AtomicInteger next = new AtomicInteger();
+        List<Worker> workers = new ArrayList<>(concurrency);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<Long, Long> allocatedBefore = allocatedBytes(threads);
+        server.restart();
+        metrics.reset();
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(calls, next, deadline);
+            worker.setName("replay-worker-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Worker worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = 0;
+        for (Map.Entry<Long, Long> entry : allocatedBytes(threads).entrySet()) {
+            allocated += entry.getValue() - allocatedBefore.getOrDefault(entry.getKey(), 0L);
+        }
+
+        Map<String, Latencies> latencies = new TreeMap<>();
+        Map<String, Long> errors = new HashMap<>();
+        for (Worker worker : workers) {
+            worker.latencies.forEach((method, values) -> latencies.computeIfAbsent(method, key -> new Latencies()).addAll(values));
+            worker.errors.forEach((method, count) -> errors.merge(method, count, Long::sum));
+        }
+        report(latencies, errors, elapsed, allocated);
+    }
+
+    private void report(Map<String, Latencies> latencies, Map<String, Long> errors, long elapsedNanos, long allocatedBytes) {
+        double seconds = elapsedNanos / 1e9;
+        Latencies all = new Latencies();
+        latencies.values().forEach(all::addAll);
+        System.out.printf("%n%-28s %10s %10s %10s %10s %10s %10s %8s%n", "method", "calls", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors");
+        latencies.forEach((method, values) -> printLine(method, values, seconds, errors.getOrDefault(method, 0L)));
+        printLine("total", all, seconds, errors.values().stream().mapToLong(Long::longValue).sum());
+
+        System.out.printf("%nnode calls: %d (%.1f/s)%n", metrics.rpcCalls.get(), metrics.rpcCalls.get() / seconds);
+        Latencies lags = metrics.getLags();
+        System.out.printf("blocks processed: %d, lag in blocks p50 %d p99 %d max %d%n",
+                lags.size, lags.percentile(50), lags.percentile(99), lags.percentile(100));
+        System.out.printf("allocation rate: %.1f MB/s%n", allocatedBytes / seconds / (1024 * 1024));
+    }
+
+    private static void printLine(String method, Latencies values, double seconds, long errors) {
+        System.out.printf("%-28s %10d %10.1f %10.3f %10.3f %10.3f %10.3f %8d%n", method, values.size, values.size / seconds,
+                values.percentile(50) / 1e6, values.percentile(90) / 1e6, values.percentile(99) / 1e6, values.percentile(100) / 1e6, errors);
+    }
+
+    /**
+     * the bytes allocated so far by each live thread
+     */
+    private static Map<Long, Long> allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> result = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (allocated[i] >= 0) {
+                result.put(ids[i], allocated[i]);
+            }
+        }
+        return result;
+    }
+
+    private Object execute(JsonNode call) throws IOException {
+        String method = call.path("method").asText();
+        JsonNode params = call.path("params");
+        switch (method) {
+            case "eth_blockNumber":
+                return ethereum.getCurrentBlockNumber();
+            case "eth_gasPrice":
+                return ethereum.getGasPrice();
+            case "eth_getBalance":
+                return ethereum.getBalance(EthAddress.of(params.get(0).asText()));
+            case "eth_getCode":
+                return ethereum.getCode(EthAddress.of(params.get(0).asText()));
+            case "eth_getTransactionCount":
+                return ethereum.getNonce(EthAddress.of(params.get(0).asText()));
+            case "eth_getTransactionReceipt":
+                return ethereum.getTransactionInfo(EthHash.of(params.get(0).asText()));
+            case "eth_getBlockByHash":
+                return ethereum.getBlock(EthHash.of(params.get(0).asText()));
+            case "eth_getBlockByNumber":
+                String number = params.get(0).asText();
+                if (number.startsWith("0x")) {
+                    return ethereum.getBlock(Numeric.decodeQuantity(number).longValue());
+                }
+                return send(method, params);
+            default:
+                return send(method, params);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object send(String method, JsonNode params) throws IOException {
+        List<Object> values = objectMapper.treeToValue(params, List.class);
+        RawResponse response = new Request<>(method, values, service, RawResponse.class).send();
+        if (response.hasError()) {
+            throw new EthereumApiException(method + " failed: " + response.getError().getMessage());
+        }
+        return response.getResult();
+    }
+
+    public static class RawResponse extends Response<Object> {}
+
+    private final class Worker extends Thread {
+        private final List<JsonNode> calls;
+        private final AtomicInteger next;
+        private final long deadline;
+        private final Map<String, Latencies> latencies = new HashMap<>();
+        private final Map<String, Long> errors = new HashMap<>();
+
+        private Worker(List<JsonNode> calls, AtomicInteger next, long deadline) {
+            this.calls = calls;
+            this.next = next;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            while (now < deadline) {
+                JsonNode call = calls.get((next.getAndIncrement() & Integer.MAX_VALUE) % calls.size());
+                String method = call.path("method").asText();
+                try {
+                    execute(call);
+                } catch (RuntimeException | IOException e) {
+                    errors.merge(method, 1L, Long::sum);
+                }
+                long end = System.nanoTime();
+                latencies.computeIfAbsent(method, key -> new Latencies()).add(end - now);
+                now = end;
+            }
+        }
+    }
+
+    private static final class ReplayMetrics implements RpcMetrics {
+        private final AtomicLong rpcCalls = new AtomicLong();
+        private Latencies lags = new Latencies();
+
+        @Override
+        public void rpcCall(String method, long durationNanos, String errorCode) {
+            rpcCalls.incrementAndGet();
+        }
+
+        @Override
+        public synchronized void blockProcessed(long blockNumber, int receipts, long lag) {
+            lags.add(lag);
+        }
+
+        synchronized void reset() {
+            rpcCalls.set(0);
+            lags = new Latencies();
+        }
+
+        synchronized Latencies getLags() {
+            return lags;
+        }
+    }
+
+    /**
+     * a growable array of longs, sorted when a percentile is asked
+     */
+    private static final class Latencies {
+        private long[] values = new long[1_024];
+        private int size;
+        private boolean sorted;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+            sorted = false;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long percentile(int percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            if (!sorted) {
+                Arrays.sort(values, 0, size);
+                sorted = true;
+            }
+            return values[(int) Math.min(size - 1, (long) size * percentile / 100)];
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.adridadou.ethereum.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.adridadou.ethereum.rpc.RpcRecorder;
+
+/**
+ * This code is released under Apache 2 license
+ */
+final class ReplayServer implements AutoCloseable {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, List<Answer>> answers = new HashMap<>();
+    private final List<JsonNode> calls = new ArrayList<>();
+    private final double speed;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "replay-rpc-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long startNanos;
+
+    ReplayServer(List<RpcRecorder.Exchange> exchanges, double speed) throws IOException {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("the replay speed must be positive");
+        }
+        this.speed = speed;
+        //the exchanges are written when they complete, the replay follows the order they were sent in
+        List<RpcRecorder.Exchange> sorted = new ArrayList<>(exchanges);
+        sorted.sort(Comparator.comparingLong(RpcRecorder.Exchange::getOffsetNanos));
+        for (RpcRecorder.Exchange exchange : sorted) {
+            index(exchange);
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        startNanos = System.nanoTime();
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * every recorded call in the recording order, batches flattened
+     */
+    List<JsonNode> getCalls() {
+        return calls;
+    }
+
+    /**
+     * the replay time restarts from the beginning of the recording
+     */
+    void restart() {
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void index(RpcRecorder.Exchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequest());
+        JsonNode response = objectMapper.readTree(exchange.getResponse());
+        if (!request.isArray()) {
+            add(request, response, exchange);
+            return;
+        }
+        Map<String, JsonNode> responses = new HashMap<>();
+        for (JsonNode item : response) {
+            responses.put(item.path("id").asText(), item);
+        }
+        for (JsonNode call : request) {
+            JsonNode item = responses.get(call.path("id").asText());
+            if (item != null) {
+                add(call, item, exchange);
+            }
+        }
+    }
+
+    private void add(JsonNode call, JsonNode response, RpcRecorder.Exchange exchange) {
+        String body = response.has("error") ? ",\"error\":" + response.get("error") : ",\"result\":" + response.get("result");
+        answers.computeIfAbsent(key(call), key -> new ArrayList<>())
+                .add(new Answer(exchange.getOffsetNanos(), exchange.getDurationNanos(), body));
+        calls.add(call);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = objectMapper.readTree(body);
+        }
+
+        long replayTime = (long) ((System.nanoTime() - startNanos) * speed);
+        StringBuilder response = new StringBuilder();
+        long durationNanos;
+        if (request.isArray()) {
+            durationNanos = 0;
+            response.append('[');
+            for (JsonNode call : request) {
+                if (response.length() > 1) {
+                    response.append(',');
+                }
+                durationNanos = Math.max(durationNanos, appendResponse(response, call, replayTime));
+            }
+            response.append(']');
+        } else {
+            durationNanos = appendResponse(response, request, replayTime);
+        }
+
+        sleep((long) (durationNanos / speed));
+        byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private long appendResponse(StringBuilder response, JsonNode call, long replayTime) {
+        response.append("{\"jsonrpc\":\"2.0\",\"id\":").append(call.get("id"));
+        List<Answer> recorded = answers.get(key(call));
+        if (recorded == null) {
+            response.append(",\"error\":{\"code\":-32000,\"message\":\"")
+                    .append(call.path("method").asText()).append(" was not recorded with these params\"}}");
+            return 0;
+        }
+        Answer answer = find(recorded, replayTime);
+        response.append(answer.body).append('}');
+        return answer.durationNanos;
+    }
+
+    /**
+     * the answers are in the order they were sent, the first one is used before it was recorded
+     */
+    static Answer find(List<Answer> recorded, long replayTime) {
+        int low = 0;
+        int high = recorded.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (recorded.get(middle).offsetNanos <= replayTime) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return recorded.get(low);
+    }
+
+    private static String key(JsonNode call) {
+        return call.path("method").asText() + call.path("params");
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static final class Answer {
+        private final long offsetNanos;
+        private final long durationNanos;
+        private final String body;
+
+        Answer(long offsetNanos, long durationNanos, String body) {
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.adridadou.ethereum.benchmarks;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.adridadou.ethereum.propeller.Crypto;
+import org.adridadou.ethereum.propeller.values.ChainId;
+import org.adridadou.ethereum.propeller.values.EthAccount;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.rpc.TransactionSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.utils.Numeric;
+
+/**
+ * This code is released under Apache 2 license
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SigningBenchmark {
+    private static final ChainId CHAIN_ID = ChainId.id(1);
+    private static final BigInteger PRIVATE_KEY = new BigInteger("4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318", 16);
+
+    private final EthAccount account = new EthAccount(PRIVATE_KEY);
+    private final TransactionSigner signer = new TransactionSigner(CHAIN_ID, 16);
+    private final RawTransaction transaction = RawTransaction.createTransaction(BigInteger.valueOf(42), BigInteger.valueOf(20_000_000_000L),
+            BigInteger.valueOf(90_000), "0x3535353535353535353535353535353535353535", BigInteger.TEN.pow(18),
+            "0xa9059cbb0000000000000000000000003535353535353535353535353535353535353535000000000000000000000000000000000000000000000000000000000000002a");
+    private Web3j web3j;
+
+    @Setup
+    public void setup() {
+        web3j = Web3j.build(new InMemoryRpcService()
+                .result("eth_sendRawTransaction", BlockFixtures.transactionHash(1, 0)));
+    }
+
+    @Benchmark
+    public EthHash sign() {
+        return signer.sign(account, transaction).getHash();
+    }
+
+    @Benchmark
+    public EthHash signWithoutCache() {
+        EthData signed = EthData.of(TransactionEncoder.signMessage(transaction, (byte) CHAIN_ID.id, Credentials.create(Numeric.toHexStringNoPrefix(account.getBigIntPrivateKey()))));
+        return EthHash.of(Crypto.sha3(signed).data);
+    }
+
+    @Benchmark
+    public EthHash signAndSend() throws IOException {
+        TransactionSigner.SignedTransaction signed = signer.sign(account, transaction);
+        web3j.ethSendRawTransaction(signed.toHex()).send();
+        return signed.getHash();
+    }
+}
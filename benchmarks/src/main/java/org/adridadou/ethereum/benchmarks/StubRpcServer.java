@@ -0,0 +1,110 @@
+package org.adridadou.ethereum.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This code is released under Apache 2 license
+ */
+final class StubRpcServer implements AutoCloseable {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stub-rpc-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long latencyMicros;
+
+    StubRpcServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    StubRpcServer result(String method, String json) {
+        results.put(method, json);
+        return this;
+    }
+
+    StubRpcServer latency(long amount, TimeUnit unit) {
+        this.latencyMicros = unit.toMicros(amount);
+        return this;
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = objectMapper.readTree(body);
+        }
+
+        StringBuilder response = new StringBuilder();
+        if (request.isArray()) {
+            response.append('[');
+            for (JsonNode call : request) {
+                if (response.length() > 1) {
+                    response.append(',');
+                }
+                appendResponse(response, call);
+            }
+            response.append(']');
+        } else {
+            appendResponse(response, request);
+        }
+
+        sleep();
+        byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void appendResponse(StringBuilder response, JsonNode call) {
+        String method = call.path("method").asText();
+        String result = results.get(method);
+        response.append("{\"jsonrpc\":\"2.0\",\"id\":").append(call.get("id"));
+        if (result == null) {
+            response.append(",\"error\":{\"code\":-32601,\"message\":\"the method ").append(method).append(" does not exist/is not available\"}}");
+        } else {
+            response.append(",\"result\":").append(result).append('}');
+        }
+    }
+
+    private void sleep() {
+        long micros = latencyMicros;
+        if (micros > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(micros);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
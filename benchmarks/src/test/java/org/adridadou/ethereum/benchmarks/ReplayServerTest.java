@@ -0,0 +1,37 @@
+package org.adridadou.ethereum.benchmarks;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertSame;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class ReplayServerTest {
+    private final ReplayServer.Answer first = new ReplayServer.Answer(100, 1, "{\"result\":\"0x1\"}");
+    private final ReplayServer.Answer second = new ReplayServer.Answer(200, 1, "{\"result\":\"0x2\"}");
+    private final ReplayServer.Answer third = new ReplayServer.Answer(300, 1, "{\"result\":\"0x3\"}");
+    private final List<ReplayServer.Answer> recorded = Arrays.asList(first, second, third);
+
+    @Test
+    public void firstAnswerIsUsedBeforeItWasRecorded() {
+        assertSame(first, ReplayServer.find(recorded, 0));
+        assertSame(first, ReplayServer.find(recorded, 100));
+    }
+
+    @Test
+    public void lastAnswerRecordedBeforeTheReplayTimeIsUsed() {
+        assertSame(first, ReplayServer.find(recorded, 199));
+        assertSame(second, ReplayServer.find(recorded, 200));
+        assertSame(second, ReplayServer.find(recorded, 299));
+        assertSame(third, ReplayServer.find(recorded, 10_000));
+    }
+
+    @Test
+    public void singleAnswerIsAlwaysUsed() {
+        assertSame(first, ReplayServer.find(Arrays.asList(first), 10_000));
+    }
+}
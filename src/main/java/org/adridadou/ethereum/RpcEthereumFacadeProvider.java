@@ -4,12 +4,24 @@ import org.adridadou.ethereum.propeller.CoreEthereumFacadeProvider;
 import org.adridadou.ethereum.propeller.EthereumFacade;
 import org.adridadou.ethereum.propeller.event.EthereumEventHandler;
 import org.adridadou.ethereum.propeller.values.ChainId;
+import org.adridadou.ethereum.rpc.BatchHttpService;
+import org.adridadou.ethereum.rpc.BatchIpcService;
 import org.adridadou.ethereum.rpc.EthereumRpc;
 import org.adridadou.ethereum.rpc.EthereumRpcConfig;
+import org.adridadou.ethereum.rpc.HttpTransport;
+import org.adridadou.ethereum.rpc.HttpTransportConfig;
+import org.adridadou.ethereum.rpc.InstrumentedRpcService;
+import org.adridadou.ethereum.rpc.NodePool;
+import org.adridadou.ethereum.rpc.RateLimitedRpcService;
+import org.adridadou.ethereum.rpc.RpcMetrics;
+import org.adridadou.ethereum.rpc.RpcRequestExecutor;
 import org.adridadou.ethereum.rpc.Web3JFacade;
+import org.adridadou.ethereum.rpc.WebSocketRpcService;
 import org.adridadou.ethereum.values.config.InfuraKey;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.Web3jService;
+
+import java.util.List;
 
 
 /**
@@ -23,21 +35,93 @@ public class RpcEthereumFacadeProvider {
     public static final ChainId KOVAN_CHAIN_ID = ChainId.id(42);
     public static final ChainId RINKEBY_CHAIN_ID = ChainId.id(4);
 
+    private static final String IPC_SCHEME = "ipc://";
+
     private RpcEthereumFacadeProvider() {}
 
     public static EthereumFacade forRemoteNode(final String url, final ChainId chainId) {
         return forRemoteNode(url, chainId, EthereumRpcConfig.builder().build());
     }
 
+    /**
+     * The transport is chosen from the url: http(s):// for HTTP, ws(s):// for WebSocket
+     * and ipc://path or a path ending with .ipc for a Unix domain socket.
+     * On WebSocket, new blocks and logs are pushed by the node through eth_subscribe instead of being polled.
+     */
     public static EthereumFacade forRemoteNode(final String url, final ChainId chainId, EthereumRpcConfig config) {
-        Web3j w3j = Web3j.build(new HttpService(url));
-		Web3JFacade web3j = new Web3JFacade(w3j);
+        return create(createService(url, config.getHttpTransport(), config.getMetrics()), chainId, config, true);
+    }
+
+    /**
+     * Spreads the calls over several nodes, see {@link NodePool}. The first url is the primary node
+     * that receives the transactions and the filter calls. Blocks and logs are not pushed, even if some of the nodes are WebSocket urls.
+     * Each node gets its own copy of the configured rate limiter since each endpoint has its own quota.
+     */
+    public static EthereumFacade forRemoteNodes(final List<String> urls, final ChainId chainId, EthereumRpcConfig config) {
+        NodePool.Builder builder = NodePool.builder();
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i);
+            String rateGauge = "rpc.rate_limit.rate.node" + i;
+            Web3jService service = createService(url, config.getHttpTransport(), RpcMetrics.NOOP);
+            builder.node(url, config.getRateLimiter()
+                    .<Web3jService>map(limiter -> new RateLimitedRpcService(service, limiter.copy(), config.getMetrics(), rateGauge))
+                    .orElse(service));
+        }
+        return create(builder.build(), chainId, config, false);
+    }
+
+    /**
+     * the configured rate limiter applies to the pool as a whole, the nodes can be wrapped in a {@link RateLimitedRpcService} to limit each of them
+     */
+    public static EthereumFacade forNodePool(final NodePool pool, final ChainId chainId, EthereumRpcConfig config) {
+        return create(pool, chainId, config, true);
+    }
+
+    private static EthereumFacade create(final Web3jService transport, final ChainId chainId, EthereumRpcConfig config, boolean rateLimited) {
+        RpcMetrics metrics = config.getMetrics();
+        Web3jService instrumented = metrics == RpcMetrics.NOOP ? transport : new InstrumentedRpcService(transport, metrics);
+        Web3jService service = config.getRateLimiter()
+                .filter(limiter -> rateLimited)
+                .<Web3jService>map(limiter -> new RateLimitedRpcService(instrumented, limiter, metrics))
+                .orElse(instrumented);
+        Web3j w3j = Web3j.build(service);
+        RpcRequestExecutor requestExecutor = new RpcRequestExecutor(config.getRpcExecutor().orElseGet(RpcRequestExecutor::defaultExecutor), config.getMaxInFlightRequests());
+        metrics.gauge("rpc.executor.in_flight", requestExecutor::getInFlight);
+        metrics.gauge("rpc.executor.queued", requestExecutor::getQueued);
+		Web3JFacade web3j = new Web3JFacade(w3j, service, requestExecutor, config.createReadCache());
         EthereumRpc ethRpc = new EthereumRpc(web3j, chainId, config);
         EthereumEventHandler eventHandler = new EthereumEventHandler();
 
         return CoreEthereumFacadeProvider.create(ethRpc, eventHandler, config);
     }
 
+    public static EthereumFacade forIpc(final String ipcSocketPath, final ChainId chainId) {
+        return forIpc(ipcSocketPath, chainId, EthereumRpcConfig.builder().build());
+    }
+
+    public static EthereumFacade forIpc(final String ipcSocketPath, final ChainId chainId, EthereumRpcConfig config) {
+        return forRemoteNode(IPC_SCHEME + ipcSocketPath, chainId, config);
+    }
+
+    static Web3jService createService(final String url, final HttpTransportConfig httpConfig, final RpcMetrics metrics) {
+        String lowerCaseUrl = url.toLowerCase();
+        if (lowerCaseUrl.startsWith("http://") || lowerCaseUrl.startsWith("https://")) {
+            HttpTransport transport = new HttpTransport(httpConfig);
+            transport.registerGauges(metrics);
+            return new BatchHttpService(url, transport);
+        }
+        if (lowerCaseUrl.startsWith("ws://") || lowerCaseUrl.startsWith("wss://")) {
+            return new WebSocketRpcService(url);
+        }
+        if (lowerCaseUrl.startsWith(IPC_SCHEME)) {
+            return new BatchIpcService(url.substring(IPC_SCHEME.length()));
+        }
+        if (lowerCaseUrl.endsWith(".ipc")) {
+            return new BatchIpcService(url);
+        }
+        throw new IllegalArgumentException("unsupported node url " + url + ", expected http(s)://, ws(s)://, ipc:// or a path to a .ipc file");
+    }
+
     public static InfuraBuilder forInfura(final InfuraKey key)  {
         return new InfuraBuilder(key, EthereumRpcConfig.builder().build());
     }
@@ -46,6 +130,9 @@ public class RpcEthereumFacadeProvider {
         return new InfuraBuilder(key, config);
     }
 
+    /**
+     * Infura enforces request quotas, see {@link EthereumRpcConfig.Builder#rateLimit} to stay within them
+     */
     public static class InfuraBuilder {
         private final InfuraKey key;
         private final EthereumRpcConfig config;
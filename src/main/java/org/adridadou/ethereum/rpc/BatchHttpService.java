@@ -0,0 +1,46 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.http.HttpService;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class BatchHttpService extends HttpService implements JsonRpcBatchService, AutoCloseable {
+    private final HttpTransport transport;
+
+    public BatchHttpService(String url) {
+        super(url);
+        this.transport = null;
+    }
+
+    public BatchHttpService(String url, OkHttpClient httpClient) {
+        super(url, httpClient, false);
+        this.transport = null;
+    }
+
+    /**
+     * the service owns the transport and closes it with itself
+     */
+    public BatchHttpService(String url, HttpTransport transport) {
+        super(url, transport.getClient(), false);
+        this.transport = transport;
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+        return BatchSupport.sendBatch(objectMapper, this::performIO, requests, responseType);
+    }
+
+    @Override
+    public void close() {
+        if (transport != null) {
+            transport.close();
+        }
+    }
+}
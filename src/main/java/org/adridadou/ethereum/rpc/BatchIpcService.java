@@ -0,0 +1,30 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.ipc.UnixIpcService;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class BatchIpcService extends UnixIpcService implements JsonRpcBatchService {
+
+    public BatchIpcService(String ipcSocketPath) {
+        super(ipcSocketPath);
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+        return BatchSupport.sendBatch(objectMapper, this::performIO, requests, responseType);
+    }
+
+    //the socket is shared: a write and its read must not interleave with another caller's
+    @Override
+    protected synchronized InputStream performIO(String payload) throws IOException {
+        return super.performIO(payload);
+    }
+}
@@ -0,0 +1,54 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+/**
+ * This code is released under Apache 2 license
+ */
+final class BatchSupport {
+    private BatchSupport() {}
+
+    interface Transport {
+        InputStream performIO(String payload) throws IOException;
+    }
+
+    static <T extends Response> List<T> sendBatch(ObjectMapper objectMapper, Transport transport, List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String payload = objectMapper.writeValueAsString(requests);
+        try (InputStream result = transport.performIO(payload)) {
+            if (result == null) {
+                throw new IOException("no response received for a batch of " + requests.size() + " requests");
+            }
+            List<T> responses = objectMapper.readValue(result, objectMapper.getTypeFactory().constructCollectionType(List.class, responseType));
+            return orderById(requests, responses);
+        }
+    }
+
+    static <T extends Response> List<T> orderById(List<? extends Request<?, T>> requests, List<T> responses) throws IOException {
+        Map<Long, T> responsesById = new HashMap<>();
+        responses.forEach(response -> responsesById.put(response.getId(), response));
+
+        List<T> result = new ArrayList<>(requests.size());
+        for (Request<?, T> request : requests) {
+            T response = responsesById.get(request.getId());
+            if (response == null) {
+                throw new IOException("missing response for request " + request.getId() + " (" + request.getMethod() + ") in batch");
+            }
+            result.add(response);
+        }
+        return result;
+    }
+}
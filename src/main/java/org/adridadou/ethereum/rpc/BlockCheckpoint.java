@@ -0,0 +1,66 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOError;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public interface BlockCheckpoint {
+    OptionalLong lastProcessed();
+
+    void save(long blockNumber);
+
+    static BlockCheckpoint none() {
+        return inMemory();
+    }
+
+    static BlockCheckpoint inMemory() {
+        AtomicLong last = new AtomicLong(-1);
+        return new BlockCheckpoint() {
+            @Override
+            public OptionalLong lastProcessed() {
+                long value = last.get();
+                return value < 0 ? OptionalLong.empty() : OptionalLong.of(value);
+            }
+
+            @Override
+            public void save(long blockNumber) {
+                last.set(blockNumber);
+            }
+        };
+    }
+
+    static BlockCheckpoint file(Path path) {
+        return new BlockCheckpoint() {
+            @Override
+            public OptionalLong lastProcessed() {
+                try {
+                    if (!Files.exists(path)) {
+                        return OptionalLong.empty();
+                    }
+                    return OptionalLong.of(Long.parseLong(new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim()));
+                } catch (IOException e) {
+                    throw new IOError(e);
+                }
+            }
+
+            @Override
+            public void save(long blockNumber) {
+                try {
+                    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                    Files.write(tmp, Long.toString(blockNumber).getBytes(StandardCharsets.UTF_8));
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new IOError(e);
+                }
+            }
+        };
+    }
+}
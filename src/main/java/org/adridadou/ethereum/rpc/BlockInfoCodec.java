@@ -0,0 +1,157 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.propeller.values.EthValue;
+import org.adridadou.ethereum.propeller.values.EventData;
+import org.adridadou.ethereum.propeller.values.TransactionReceipt;
+
+/**
+ * This code is released under Apache 2 license
+ */
+final class BlockInfoCodec {
+    //version 1 wrote the error with writeUTF, limited to 65535 bytes
+    private static final int VERSION_1 = 1;
+    private static final int VERSION = 2;
+    private static final int EMPTY = -1;
+
+    private BlockInfoCodec() {}
+
+    static byte[] encode(EthHash blockHash, BlockInfo blockInfo) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + blockInfo.receipts.size() * 512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeLong(blockInfo.blockNumber);
+        writeBytes(out, blockHash.data);
+        out.writeInt(blockInfo.receipts.size());
+        for (TransactionReceipt receipt : blockInfo.receipts) {
+            writeHash(out, receipt.hash);
+            writeHash(out, receipt.blockHash);
+            writeAddress(out, receipt.sender);
+            writeAddress(out, receipt.receiveAddress);
+            writeAddress(out, receipt.contractAddress);
+            writeBytes(out, (receipt.error == null ? "" : receipt.error).getBytes(StandardCharsets.UTF_8));
+            writeData(out, receipt.executionResult);
+            out.writeBoolean(receipt.isSuccessful);
+            writeBytes(out, receipt.ethValue.inWei().toByteArray());
+            out.writeInt(receipt.events.size());
+            for (EventData event : receipt.events) {
+                writeHash(out, event.getTransactionHash());
+                writeData(out, event.getEventSignature());
+                writeData(out, event.getEventArguments());
+                out.writeInt(event.getIndexedArguments().size());
+                for (EthData indexed : event.getIndexedArguments()) {
+                    writeData(out, indexed);
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static BlockInfo decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        int version = readVersion(in);
+        long blockNumber = in.readLong();
+        readBytes(in);
+        int receiptCount = in.readInt();
+        List<TransactionReceipt> receipts = new ArrayList<>(receiptCount);
+        for (int i = 0; i < receiptCount; i++) {
+            EthHash hash = readHash(in);
+            EthHash blockHash = readHash(in);
+            EthAddress sender = readAddress(in);
+            EthAddress receiveAddress = readAddress(in);
+            EthAddress contractAddress = readAddress(in);
+            String error = version == VERSION_1 ? in.readUTF() : new String(readBytes(in), StandardCharsets.UTF_8);
+            EthData executionResult = readData(in);
+            boolean successful = in.readBoolean();
+            EthValue value = EthValue.wei(new BigInteger(readBytes(in)));
+            int eventCount = in.readInt();
+            List<EventData> events = new ArrayList<>(eventCount);
+            for (int j = 0; j < eventCount; j++) {
+                EthHash transactionHash = readHash(in);
+                EthData signature = readTopic(in);
+                EthData arguments = readData(in);
+                int indexedCount = in.readInt();
+                List<EthData> indexed = new ArrayList<>(indexedCount);
+                for (int k = 0; k < indexedCount; k++) {
+                    indexed.add(readTopic(in));
+                }
+                events.add(new EventData(transactionHash, signature, arguments, indexed));
+            }
+            receipts.add(new TransactionReceipt(hash, blockHash, sender, receiveAddress, contractAddress, error, executionResult, successful, events, value));
+        }
+        return new BlockInfo(blockNumber, receipts);
+    }
+
+    private static int readVersion(DataInputStream in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != VERSION && version != VERSION_1) {
+            throw new IOException("unsupported block record version " + version);
+        }
+        return version;
+    }
+
+    private static void writeHash(DataOutputStream out, EthHash hash) throws IOException {
+        writeBytes(out, hash == null || hash.isEmpty() ? null : hash.data);
+    }
+
+    private static void writeAddress(DataOutputStream out, EthAddress address) throws IOException {
+        writeBytes(out, address == null || address.isEmpty() ? null : address.address);
+    }
+
+    private static void writeData(DataOutputStream out, EthData data) throws IOException {
+        writeBytes(out, data == null || data.isEmpty() ? null : data.data);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(EMPTY);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static EthHash readHash(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? EthHash.empty() : ValueInterner.hash(bytes);
+    }
+
+    private static EthAddress readAddress(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? EthAddress.empty() : ValueInterner.address(bytes);
+    }
+
+    private static EthData readData(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? EthData.empty() : EthData.of(bytes);
+    }
+
+    private static EthData readTopic(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? EthData.empty() : ValueInterner.topic(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == EMPTY) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
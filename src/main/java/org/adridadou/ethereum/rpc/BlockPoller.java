@@ -0,0 +1,132 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import rx.Observable;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class BlockPoller implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(BlockPoller.class);
+    private static final int CATCH_UP_WINDOW = 16;
+
+    private final Web3JFacade web3JFacade;
+    private final RpcMetrics metrics;
+    private final Web3jBlockHandler blockEventHandler = new Web3jBlockHandler();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "web3j-block-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long minDelay;
+    private final long maxDelay;
+    private long currentDelay;
+    private volatile long lastBlockNumber = -1;
+    private volatile long headBlockNumber = -1;
+    private volatile long lastPollTime;
+
+    BlockPoller(Web3JFacade web3JFacade, long pollingFrequence, long maxPollingFrequence, RpcMetrics metrics) {
+        this.web3JFacade = web3JFacade;
+        this.metrics = metrics;
+        metrics.gauge("blocks.poller.lag", this::getLag);
+        this.minDelay = pollingFrequence;
+        this.maxDelay = Math.max(pollingFrequence, maxPollingFrequence);
+        this.currentDelay = pollingFrequence;
+    }
+
+    Observable<EthBlock> start() {
+        scheduler.execute(this::run);
+        return getBlocks();
+    }
+
+    Observable<EthBlock> getBlocks() {
+        return blockEventHandler.observable;
+    }
+
+    public long getLastBlockNumber() {
+        return lastBlockNumber;
+    }
+
+    public long getHeadBlockNumber() {
+        return headBlockNumber;
+    }
+
+    public long getLag() {
+        return lastBlockNumber < 0 ? 0 : Math.max(0, headBlockNumber - lastBlockNumber);
+    }
+
+    public long getLastPollTime() {
+        return lastPollTime;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void run() {
+        long delay = poll();
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::run, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * returns the delay before the next poll
+     */
+    long poll() {
+        long delay;
+        try {
+            long head = web3JFacade.getCurrentBlockNumber();
+            headBlockNumber = head;
+            lastPollTime = System.currentTimeMillis();
+            if (lastBlockNumber < 0) {
+                lastBlockNumber = head - 1;
+            }
+
+            if (head > lastBlockNumber) {
+                catchUp(head);
+                currentDelay = minDelay;
+                delay = 0;
+            } else {
+                currentDelay = Math.min(maxDelay, currentDelay * 2);
+                delay = currentDelay;
+            }
+        } catch (Throwable e) {
+            logger.warn("error while polling blocks", e);
+            metrics.blockPollingError(e);
+            currentDelay = Math.min(maxDelay, Math.max(1, currentDelay * 2));
+            delay = currentDelay;
+        }
+        return delay;
+    }
+
+    private void catchUp(long head) {
+        Deque<CompletableFuture<Optional<EthBlock>>> window = new ArrayDeque<>();
+        long next = lastBlockNumber + 1;
+        while (lastBlockNumber < head && !scheduler.isShutdown()) {
+            while (window.size() < CATCH_UP_WINDOW && next <= head) {
+                window.add(web3JFacade.getBlockAsync(next));
+                next++;
+            }
+
+            long expected = lastBlockNumber + 1;
+            EthBlock block = Futures.join(window.poll())
+                    .filter(ethBlock -> ethBlock.getBlock() != null)
+                    .orElseThrow(() -> new EthereumApiException("block " + expected + " not found"));
+            blockEventHandler.newElement(block);
+            lastBlockNumber = expected;
+        }
+    }
+}
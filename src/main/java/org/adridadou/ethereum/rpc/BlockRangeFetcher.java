@@ -0,0 +1,120 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class BlockRangeFetcher {
+    private static final AtomicInteger poolCounter = new AtomicInteger();
+
+    private final LongFunction<BlockInfo> blockLoader;
+    private final int window;
+    private final ThreadPoolExecutor executor;
+
+    public BlockRangeFetcher(LongFunction<BlockInfo> blockLoader, int workers, int window) {
+        if (workers < 1 || window < 1) {
+            throw new IllegalArgumentException("workers and window must be at least 1");
+        }
+        if (window < workers) {
+            throw new IllegalArgumentException("the window (" + window + ") must be at least the number of workers (" + workers + ")");
+        }
+        this.blockLoader = blockLoader;
+        this.window = window;
+        String name = "block-range-fetcher-" + poolCounter.incrementAndGet();
+        //shared by the fetches, the workers stop when no fetch is running
+        this.executor = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Stream<BlockInfo> fetch(long from, long to, BlockCheckpoint checkpoint) {
+        long start = Math.max(from, checkpoint.lastProcessed().orElse(from - 1) + 1);
+        RangeIterator iterator = new RangeIterator(start, to, checkpoint);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    private class RangeIterator implements Iterator<BlockInfo> {
+        private final long to;
+        private final BlockCheckpoint checkpoint;
+        private final Deque<CompletableFuture<BlockInfo>> pending = new ArrayDeque<>();
+        private long next;
+        private long lastDelivered = -1;
+        private boolean closed;
+
+        private RangeIterator(long from, long to, BlockCheckpoint checkpoint) {
+            this.next = from;
+            this.to = to;
+            this.checkpoint = checkpoint;
+            fill();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = !pending.isEmpty();
+            if (!hasNext) {
+                close();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public BlockInfo next() {
+            if (pending.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            saveCheckpoint();
+            try {
+                BlockInfo blockInfo = Futures.join(pending.poll());
+                lastDelivered = blockInfo.blockNumber;
+                return blockInfo;
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            } finally {
+                fill();
+            }
+        }
+
+        private void fill() {
+            while (pending.size() < window && next <= to && !closed) {
+                long blockNumber = next++;
+                pending.add(CompletableFuture.supplyAsync(() -> blockLoader.apply(blockNumber), executor));
+            }
+        }
+
+        private void saveCheckpoint() {
+            if (lastDelivered >= 0) {
+                checkpoint.save(lastDelivered);
+            }
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                saveCheckpoint();
+                pending.forEach(future -> future.cancel(true));
+                pending.clear();
+            }
+        }
+    }
+}
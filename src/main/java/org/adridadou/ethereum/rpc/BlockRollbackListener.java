@@ -0,0 +1,10 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public interface BlockRollbackListener {
+    void onRollback(BlockInfo orphanedBlock);
+}
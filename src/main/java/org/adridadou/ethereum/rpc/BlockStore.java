@@ -0,0 +1,334 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOError;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.propeller.values.TransactionInfo;
+import org.adridadou.ethereum.propeller.values.TransactionReceipt;
+import org.adridadou.ethereum.propeller.values.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class BlockStore implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(BlockStore.class);
+    private static final long SEGMENT_SIZE = 256L * 1024 * 1024;
+    private static final int OFFSET_BITS = 36;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final int INDEX_ENTRY_SIZE = 8;
+    private static final int INDEX_CHUNK_ENTRIES = 1 << 20;
+    private static final int HASH_SIZE = HashIndex.HASH_SIZE;
+    private static final int HASH_RECORD_SIZE = 1 + HASH_SIZE + 8;
+    private static final byte BLOCK_HASH = 0;
+    private static final byte TRANSACTION_HASH = 1;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final List<FileChannel> segments = new CopyOnWriteArrayList<>();
+    private final FileChannel index;
+    private final FileChannel hashLog;
+    private final Map<Integer, MappedByteBuffer> indexChunks = new HashMap<>();
+    //the hash log is replayed into the indexes from where they were when last closed
+    private final HashIndex blocksByHash;
+    private final HashIndex blocksByTransaction;
+    private volatile long highestBlock = -1;
+
+    private BlockStore(Path directory, long segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        this.index = FileChannel.open(directory.resolve("blocks.idx"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.hashLog = FileChannel.open(directory.resolve("hashes.log"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.blocksByHash = HashIndex.open(directory.resolve("block-hashes.idx"));
+        this.blocksByTransaction = HashIndex.open(directory.resolve("transaction-hashes.idx"));
+        openSegments();
+        replayHashes();
+        highestBlock = findHighestBlock();
+    }
+
+    public static BlockStore open(Path directory) {
+        return open(directory, SEGMENT_SIZE);
+    }
+
+    static BlockStore open(Path directory, long segmentSize) {
+        try {
+            return new BlockStore(directory, segmentSize);
+        } catch (IOException e) {
+            throw new EthereumApiException("error while opening the block store in " + directory, e);
+        }
+    }
+
+    public synchronized void put(EthHash blockHash, BlockInfo blockInfo) {
+        //an index entry alone is not enough, the segment may not have been written before a crash
+        if (contains(blockInfo.blockNumber)) {
+            return;
+        }
+        try {
+            byte[] record = BlockInfoCodec.encode(blockHash, blockInfo);
+            long position = append(record);
+
+            ByteBuffer hashes = ByteBuffer.allocate(HASH_RECORD_SIZE * (blockInfo.receipts.size() + 1));
+            putHash(hashes, BLOCK_HASH, blockHash, blockInfo.blockNumber);
+            for (TransactionReceipt receipt : blockInfo.receipts) {
+                putHash(hashes, TRANSACTION_HASH, receipt.hash, blockInfo.blockNumber);
+            }
+            hashes.flip();
+            writeFully(hashLog, hashes, hashLog.size());
+
+            indexChunk(blockInfo.blockNumber).putLong(indexOffset(blockInfo.blockNumber), position + 1);
+            blocksByHash.put(blockHash.data, blockInfo.blockNumber);
+            for (TransactionReceipt receipt : blockInfo.receipts) {
+                blocksByTransaction.put(receipt.hash.data, blockInfo.blockNumber);
+            }
+            highestBlock = Math.max(highestBlock, blockInfo.blockNumber);
+        } catch (IOException e) {
+            throw new IOError(e);
+        }
+    }
+
+    public boolean contains(long blockNumber) {
+        return get(blockNumber).isPresent();
+    }
+
+    public Optional<BlockInfo> get(long blockNumber) {
+        long position = position(blockNumber);
+        if (position < 0) {
+            return Optional.empty();
+        }
+        byte[] record;
+        try {
+            record = read(position);
+        } catch (IOException e) {
+            throw new IOError(e);
+        }
+        if (record == null) {
+            return Optional.empty();
+        }
+        try {
+            BlockInfo blockInfo = BlockInfoCodec.decode(record);
+            //after a crash, the entry can point to the record of another block appended in its place
+            return blockInfo.blockNumber == blockNumber ? Optional.of(blockInfo) : Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("the record of block " + blockNumber + " is corrupted, it will be fetched again", e);
+            return Optional.empty();
+        }
+    }
+
+    public Optional<BlockInfo> get(EthHash blockHash) {
+        long blockNumber = blocksByHash.get(blockHash.data);
+        return blockNumber < 0 ? Optional.empty() : get(blockNumber);
+    }
+
+    public Optional<TransactionInfo> getTransactionInfo(EthHash transactionHash) {
+        long blockNumber = blocksByTransaction.get(transactionHash.data);
+        if (blockNumber < 0) {
+            return Optional.empty();
+        }
+        return get(blockNumber).flatMap(blockInfo -> blockInfo.receipts.stream()
+                .filter(receipt -> Arrays.equals(receipt.hash.data, transactionHash.data))
+                .findFirst()
+                .map(receipt -> new TransactionInfo(transactionHash, receipt, TransactionStatus.Executed, receipt.blockHash)));
+    }
+
+    public long getHighestBlock() {
+        return highestBlock;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            for (MappedByteBuffer chunk : indexChunks.values()) {
+                chunk.force();
+            }
+            for (FileChannel segment : segments) {
+                segment.force(false);
+                segment.close();
+            }
+            hashLog.force(false);
+            blocksByHash.close(hashLog.size());
+            blocksByTransaction.close(hashLog.size());
+            hashLog.close();
+            index.close();
+        } catch (IOException e) {
+            logger.warn("error while closing the block store in " + directory, e);
+        }
+    }
+
+    private long position(long blockNumber) {
+        if (blockNumber < 0) {
+            return -1;
+        }
+        long entry;
+        synchronized (this) {
+            int chunk = (int) (blockNumber / INDEX_CHUNK_ENTRIES);
+            MappedByteBuffer buffer = indexChunks.get(chunk);
+            if (buffer == null) {
+                try {
+                    if (index.size() <= (long) chunk * INDEX_CHUNK_ENTRIES * INDEX_ENTRY_SIZE) {
+                        return -1;
+                    }
+                } catch (IOException e) {
+                    throw new IOError(e);
+                }
+                buffer = indexChunk(blockNumber);
+            }
+            entry = buffer.getLong(indexOffset(blockNumber));
+        }
+        return entry - 1;
+    }
+
+    private MappedByteBuffer indexChunk(long blockNumber) {
+        int chunk = (int) (blockNumber / INDEX_CHUNK_ENTRIES);
+        return indexChunks.computeIfAbsent(chunk, key -> {
+            try {
+                return index.map(FileChannel.MapMode.READ_WRITE, (long) key * INDEX_CHUNK_ENTRIES * INDEX_ENTRY_SIZE, (long) INDEX_CHUNK_ENTRIES * INDEX_ENTRY_SIZE);
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+        });
+    }
+
+    private static int indexOffset(long blockNumber) {
+        return (int) (blockNumber % INDEX_CHUNK_ENTRIES) * INDEX_ENTRY_SIZE;
+    }
+
+    private long append(byte[] record) throws IOException {
+        FileChannel segment = segments.get(segments.size() - 1);
+        long offset = segment.size();
+        if (offset > 0 && offset + record.length + 4 > segmentSize) {
+            segment.force(false);
+            segment = openSegment(segments.size());
+            segments.add(segment);
+            offset = 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+        buffer.putInt(record.length).put(record).flip();
+        writeFully(segment, buffer, offset);
+        return ((long) (segments.size() - 1) << OFFSET_BITS) | offset;
+    }
+
+    /**
+     * null when the index points past the end of a segment, i.e. the record was not fully written before a crash
+     */
+    private byte[] read(long position) throws IOException {
+        int segmentNumber = (int) (position >>> OFFSET_BITS);
+        if (segmentNumber >= segments.size()) {
+            return null;
+        }
+        FileChannel segment = segments.get(segmentNumber);
+        long offset = position & OFFSET_MASK;
+        long size = segment.size();
+        if (offset + 4 > size) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(segment, header, offset);
+        int length = header.getInt(0);
+        if (length < 0 || offset + 4 + length > size) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(segment, record, offset + 4);
+        return record.array();
+    }
+
+    private void openSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.dat")) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        for (int i = 0; i < files.size(); i++) {
+            segments.add(openSegment(i));
+        }
+        if (segments.isEmpty()) {
+            segments.add(openSegment(0));
+        }
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        Path file = directory.resolve(String.format("segment-%05d.dat", number));
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void replayHashes() throws IOException {
+        long size = hashLog.size() - hashLog.size() % HASH_RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_RECORD_SIZE * 4096);
+        long position = Math.min(blocksByHash.getIndexedLogSize(), blocksByTransaction.getIndexedLogSize());
+        position -= position % HASH_RECORD_SIZE;
+        while (position < size) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), size - position));
+            readFully(hashLog, buffer, position);
+            buffer.flip();
+            while (buffer.remaining() >= HASH_RECORD_SIZE) {
+                byte type = buffer.get();
+                byte[] hash = new byte[HASH_SIZE];
+                buffer.get(hash);
+                long blockNumber = buffer.getLong();
+                (type == BLOCK_HASH ? blocksByHash : blocksByTransaction).put(hash, blockNumber);
+            }
+            position += buffer.limit();
+        }
+    }
+
+    private long findHighestBlock() throws IOException {
+        for (long blockNumber = index.size() / INDEX_ENTRY_SIZE - 1; blockNumber >= 0; blockNumber--) {
+            if (position(blockNumber) >= 0) {
+                return blockNumber;
+            }
+        }
+        return -1;
+    }
+
+    private static void putHash(ByteBuffer buffer, byte type, EthHash hash, long blockNumber) {
+        byte[] data = hash.data;
+        buffer.put(type);
+        if (data.length == HASH_SIZE) {
+            buffer.put(data);
+        } else {
+            //left pad shorter hashes so that the record keeps its fixed size
+            buffer.put(new byte[HASH_SIZE - Math.min(HASH_SIZE, data.length)]);
+            buffer.put(data, Math.max(0, data.length - HASH_SIZE), Math.min(HASH_SIZE, data.length));
+        }
+        buffer.putLong(blockNumber);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) {
+                throw new IOException("unexpected end of the block store file");
+            }
+            current += read;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOError;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthCall;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class CallAggregator implements AutoCloseable {
+    private final JsonRpcBatchService batchService;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final Executor sender;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "web3j-call-aggregator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<PendingCall> queue = new ArrayList<>();
+    //guarded by the queue, a timer that fired after its batch was taken must not flush the next one
+    private ScheduledFuture<?> windowTimer;
+    private long window;
+
+    public CallAggregator(JsonRpcBatchService batchService, long windowMillis, int maxBatchSize) {
+        this(batchService, windowMillis, maxBatchSize, RpcRequestExecutor.defaultExecutor());
+    }
+
+    public CallAggregator(JsonRpcBatchService batchService, long windowMillis, int maxBatchSize, Executor sender) {
+        this.batchService = batchService;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.sender = sender;
+    }
+
+    public CompletableFuture<EthCall> call(Request<?, EthCall> request) {
+        PendingCall call = new PendingCall(request);
+        List<PendingCall> fullBatch = null;
+        synchronized (queue) {
+            queue.add(call);
+            if (queue.size() >= maxBatchSize) {
+                fullBatch = take();
+            } else if (queue.size() == 1) {
+                long current = window;
+                windowTimer = scheduler.schedule(() -> flush(current), windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return call.result;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (queue) {
+            take().forEach(call -> call.result.completeExceptionally(new IllegalStateException("the call aggregator is closed")));
+        }
+    }
+
+    private void flush(long expectedWindow) {
+        List<PendingCall> batch;
+        synchronized (queue) {
+            if (window != expectedWindow) {
+                return;
+            }
+            batch = take();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private List<PendingCall> take() {
+        if (windowTimer != null) {
+            windowTimer.cancel(false);
+            windowTimer = null;
+        }
+        window++;
+        List<PendingCall> batch = new ArrayList<>(queue);
+        queue.clear();
+        return batch;
+    }
+
+    private void dispatch(List<PendingCall> batch) {
+        try {
+            sender.execute(() -> send(batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(call -> call.result.completeExceptionally(e));
+        }
+    }
+
+    private void send(List<PendingCall> batch) {
+        try {
+            if (batch.size() == 1) {
+                PendingCall call = batch.get(0);
+                call.result.complete(call.request.send());
+                return;
+            }
+            List<Request<?, EthCall>> requests = batch.stream().map(call -> call.request).collect(Collectors.toList());
+            List<EthCall> responses = batchService.sendBatch(requests, EthCall.class);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(responses.get(i));
+            }
+        } catch (IOException e) {
+            batch.forEach(call -> call.result.completeExceptionally(new IOError(e)));
+        } catch (Throwable e) {
+            batch.forEach(call -> call.result.completeExceptionally(e));
+        }
+    }
+
+    private static final class PendingCall {
+        private final Request<?, EthCall> request;
+        private final CompletableFuture<EthCall> result = new CompletableFuture<>();
+
+        private PendingCall(Request<?, EthCall> request) {
+            this.request = request;
+        }
+    }
+}
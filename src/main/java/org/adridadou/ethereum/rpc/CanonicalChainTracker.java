@@ -0,0 +1,171 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.core.methods.response.EthBlock;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class CanonicalChainTracker {
+    private static final Logger logger = LoggerFactory.getLogger(CanonicalChainTracker.class);
+
+    public interface Listener {
+        void onBlock(BlockInfo blockInfo);
+
+        void onRollback(BlockInfo blockInfo);
+
+        /**
+         * an emitted block left the reorg window and can no longer be rolled back
+         */
+        default void onFinalized(EthHash blockHash, BlockInfo blockInfo) {}
+    }
+
+    private final Function<EthHash, Optional<EthBlock>> blockLoader;
+    private final Function<EthBlock, BlockInfo> converter;
+    private final Listener listener;
+    private final int confirmations;
+    private final int capacity;
+    private final Deque<TrackedBlock> ring = new ArrayDeque<>();
+    private final Map<String, TrackedBlock> blocksByHash = new HashMap<>();
+    private long lastEmitted = -1;
+
+    public CanonicalChainTracker(Function<EthHash, Optional<EthBlock>> blockLoader, Function<EthBlock, BlockInfo> converter,
+                                 int confirmations, int reorgDepth, Listener listener) {
+        this.blockLoader = blockLoader;
+        this.converter = converter;
+        this.listener = listener;
+        this.confirmations = confirmations;
+        this.capacity = confirmations + Math.max(1, reorgDepth);
+    }
+
+    public synchronized void onNewBlock(EthBlock ethBlock) {
+        EthBlock.Block block = ethBlock.getBlock();
+        if (blocksByHash.containsKey(block.getHash())) {
+            return;
+        }
+
+        if (ring.isEmpty() || ring.peekLast().hash.equals(block.getParentHash())) {
+            append(new TrackedBlock(ethBlock));
+        } else {
+            switchTo(ethBlock);
+        }
+
+        emitConfirmed();
+    }
+
+    public synchronized long getHeadBlockNumber() {
+        return ring.isEmpty() ? -1 : ring.peekLast().number;
+    }
+
+    private void switchTo(EthBlock ethBlock) {
+        LinkedList<TrackedBlock> newChain = new LinkedList<>();
+        newChain.addFirst(new TrackedBlock(ethBlock));
+        TrackedBlock ancestor = blocksByHash.get(ethBlock.getBlock().getParentHash());
+        while (ancestor == null && newChain.size() <= capacity) {
+            String parentHash = newChain.getFirst().parentHash;
+            Optional<EthBlock> parent = blockLoader.apply(EthHash.of(parentHash))
+                    .filter(parentBlock -> parentBlock.getBlock() != null);
+            if (!parent.isPresent()) {
+                break;
+            }
+            newChain.addFirst(new TrackedBlock(parent.get()));
+            ancestor = blocksByHash.get(newChain.getFirst().parentHash);
+        }
+
+        if (ancestor == null) {
+            logger.error("could not find a common ancestor for block " + ethBlock.getBlock().getNumber() + " in the last " + capacity + " blocks, restarting from it");
+            //the blocks at the heights of the new chain are orphaned, the older ones cannot be checked
+            rollbackAfter(newChain.getFirst().number - 1);
+            ring.clear();
+            blocksByHash.clear();
+        } else {
+            rollbackAfter(ancestor.number);
+        }
+        newChain.forEach(this::append);
+    }
+
+    private void rollbackAfter(long ancestorNumber) {
+        List<TrackedBlock> orphaned = new ArrayList<>();
+        while (!ring.isEmpty() && ring.peekLast().number > ancestorNumber) {
+            TrackedBlock block = ring.pollLast();
+            blocksByHash.remove(block.hash);
+            orphaned.add(block);
+        }
+
+        if (!orphaned.isEmpty()) {
+            logger.info("reorg detected, " + orphaned.size() + " block(s) after block " + ancestorNumber + " are orphaned");
+        }
+
+        for (TrackedBlock block : orphaned) {
+            if (block.blockInfo != null && block.number <= lastEmitted) {
+                listener.onRollback(block.blockInfo);
+            }
+        }
+        lastEmitted = Math.min(lastEmitted, ancestorNumber);
+    }
+
+    private void append(TrackedBlock block) {
+        ring.addLast(block);
+        blocksByHash.put(block.hash, block);
+        while (ring.size() > capacity) {
+            TrackedBlock finalized = ring.pollFirst();
+            blocksByHash.remove(finalized.hash);
+            if (finalized.number > lastEmitted) {
+                logger.warn("block " + finalized.number + " left the reorg window before it could be emitted");
+            }
+            if (finalized.blockInfo != null) {
+                listener.onFinalized(EthHash.of(finalized.hash), finalized.blockInfo);
+            }
+        }
+    }
+
+    private void emitConfirmed() {
+        long confirmedUpTo = ring.peekLast().number - confirmations;
+        Iterator<TrackedBlock> it = ring.iterator();
+        while (it.hasNext()) {
+            TrackedBlock block = it.next();
+            if (block.number > confirmedUpTo) {
+                return;
+            }
+            if (block.number > lastEmitted) {
+                if (block.blockInfo == null) {
+                    block.blockInfo = converter.apply(block.ethBlock);
+                    block.ethBlock = null;
+                }
+                //a block the listener rejects is emitted again with the next block
+                listener.onBlock(block.blockInfo);
+                lastEmitted = block.number;
+            }
+        }
+    }
+
+    private static final class TrackedBlock {
+        private final long number;
+        private final String hash;
+        private final String parentHash;
+        private EthBlock ethBlock;
+        private BlockInfo blockInfo;
+
+        private TrackedBlock(EthBlock ethBlock) {
+            EthBlock.Block block = ethBlock.getBlock();
+            this.number = block.getNumber().longValue();
+            this.hash = block.getHash();
+            this.parentHash = block.getParentHash();
+            this.ethBlock = ethBlock;
+        }
+    }
+}
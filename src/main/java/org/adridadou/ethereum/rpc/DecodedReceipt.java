@@ -0,0 +1,65 @@
+package org.adridadou.ethereum.rpc;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.propeller.values.EventData;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public final class DecodedReceipt {
+    private final EthHash transactionHash;
+    private final EthHash blockHash;
+    private final EthAddress from;
+    private final EthAddress to;
+    private final EthAddress contractAddress;
+    private final BigInteger gasUsed;
+    private final Boolean status;
+    private final List<EventData> events;
+
+    DecodedReceipt(EthHash transactionHash, EthHash blockHash, EthAddress from, EthAddress to, EthAddress contractAddress, BigInteger gasUsed, Boolean status, List<EventData> events) {
+        this.transactionHash = transactionHash;
+        this.blockHash = blockHash;
+        this.from = from;
+        this.to = to;
+        this.contractAddress = contractAddress;
+        this.gasUsed = gasUsed;
+        this.status = status;
+        this.events = events;
+    }
+
+    public EthHash getTransactionHash() {
+        return transactionHash;
+    }
+
+    public EthHash getBlockHash() {
+        return blockHash;
+    }
+
+    public EthAddress getFrom() {
+        return from;
+    }
+
+    public EthAddress getTo() {
+        return to;
+    }
+
+    public EthAddress getContractAddress() {
+        return contractAddress;
+    }
+
+    public BigInteger getGasUsed() {
+        return gasUsed;
+    }
+
+    public Boolean getStatus() {
+        return status;
+    }
+
+    public List<EventData> getEvents() {
+        return events;
+    }
+}
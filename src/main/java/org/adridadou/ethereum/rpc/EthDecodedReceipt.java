@@ -0,0 +1,15 @@
+package org.adridadou.ethereum.rpc;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.web3j.protocol.core.Response;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class EthDecodedReceipt extends Response<DecodedReceipt> {
+    @Override
+    @JsonDeserialize(using = ReceiptDecoder.ReceiptDeserializer.class)
+    public void setResult(DecodedReceipt result) {
+        super.setResult(result);
+    }
+}
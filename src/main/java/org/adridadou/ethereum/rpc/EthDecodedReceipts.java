@@ -0,0 +1,17 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.web3j.protocol.core.Response;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class EthDecodedReceipts extends Response<List<DecodedReceipt>> {
+    @Override
+    @JsonDeserialize(using = ReceiptDecoder.ReceiptListDeserializer.class)
+    public void setResult(List<DecodedReceipt> result) {
+        super.setResult(result);
+    }
+}
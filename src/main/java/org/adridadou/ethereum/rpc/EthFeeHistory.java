@@ -0,0 +1,47 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.List;
+
+import org.web3j.protocol.core.Response;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class EthFeeHistory extends Response<EthFeeHistory.FeeHistory> {
+
+    public static class FeeHistory {
+        private String oldestBlock;
+        private List<String> baseFeePerGas;
+        private List<List<String>> reward;
+
+        public String getOldestBlock() {
+            return oldestBlock;
+        }
+
+        public void setOldestBlock(String oldestBlock) {
+            this.oldestBlock = oldestBlock;
+        }
+
+        /**
+         * one entry more than the number of blocks, the last one is the base fee of the next block
+         */
+        public List<String> getBaseFeePerGas() {
+            return baseFeePerGas;
+        }
+
+        public void setBaseFeePerGas(List<String> baseFeePerGas) {
+            this.baseFeePerGas = baseFeePerGas;
+        }
+
+        /**
+         * the priority fees at the requested percentiles, per block
+         */
+        public List<List<String>> getReward() {
+            return reward;
+        }
+
+        public void setReward(List<List<String>> reward) {
+            this.reward = reward;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.List;
+
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class EthGetBlockReceipts extends Response<List<TransactionReceipt>> {
+}
@@ -1,15 +1,27 @@
 package org.adridadou.ethereum.rpc;
 
+import java.io.IOError;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
-import org.adridadou.ethereum.propeller.Crypto;
 import org.adridadou.ethereum.propeller.EthereumBackend;
 import org.adridadou.ethereum.propeller.event.BlockInfo;
 import org.adridadou.ethereum.propeller.event.EthereumEventHandler;
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
 import org.adridadou.ethereum.propeller.values.ChainId;
 import org.adridadou.ethereum.propeller.values.EthAccount;
 import org.adridadou.ethereum.propeller.values.EthAddress;
@@ -27,13 +39,13 @@ import org.adridadou.ethereum.propeller.values.TransactionRequest;
 import org.adridadou.ethereum.propeller.values.TransactionStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.web3j.crypto.Credentials;
 import org.web3j.crypto.RawTransaction;
-import org.web3j.crypto.TransactionEncoder;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.EthFilter;
 import org.web3j.protocol.core.methods.response.EthBlock;
 import org.web3j.protocol.core.methods.response.Log;
 import org.web3j.protocol.core.methods.response.Transaction;
-import org.web3j.utils.Numeric;
+import rx.Observable;
 
 /**
  * Created by davidroon on 20.01.17.
@@ -41,22 +53,68 @@ import org.web3j.utils.Numeric;
  */
 public class EthereumRpc implements EthereumBackend {
     private static final Logger logger = LoggerFactory.getLogger(EthereumRpc.class);
+    private static final int MAX_CACHED_CREDENTIALS = 1_000;
 
     private final Web3JFacade web3JFacade;
     private final EthereumRpcEventGenerator ethereumRpcEventGenerator;
     private final ChainId chainId;
+    private final EthereumRpcConfig config;
+    private final BlockRangeFetcher blockRangeFetcher;
+    private final LogPoller logPoller;
+    private final NonceManager nonceManager;
+    private final TransactionSigner signer;
+    private final BlockStore blockStore;
+    private final ReceiptWatcher receiptWatcher;
+    private final FeeOracle feeOracle;
+    private final Set<Long> incompleteBlocks = ConcurrentHashMap.newKeySet();
 
     public EthereumRpc(Web3JFacade web3JFacade, ChainId chainId, EthereumRpcConfig config) {
         this.web3JFacade = web3JFacade;
+        this.config = config;
+        web3JFacade.setFullTransactions(config.isFullTransactions());
+        web3JFacade.setSingleFlight(new SingleFlight(config.getSingleFlightMethods(), config.getMetrics()));
+        if (config.getCallAggregationWindow() >= 0) {
+            web3JFacade.setCallAggregation(config.getCallAggregationWindow(), config.getCallAggregationMaxBatch());
+        }
+        this.blockStore = config.getBlockStorePath().map(BlockStore::open).orElse(null);
+        this.logPoller = new LogPoller(web3JFacade, config.getPollingFrequence());
+        this.blockRangeFetcher = new BlockRangeFetcher(number -> RateLimiter.withPriority(RateLimiter.Priority.LOW, () -> getBlock(number, this::toCompleteBlockInfo))
+                .orElseThrow(() -> new EthereumApiException("block " + number + " not found")), config.getBackfillWorkers(), config.getBackfillWindow());
+        this.receiptWatcher = new ReceiptWatcher(this::lookupTransactions);
+        this.feeOracle = config.getFeeOracleWindow() > 0 ? new FeeOracle(config.getFeeOracleWindow()) : null;
+        if (feeOracle != null) {
+            web3JFacade.getRequestExecutor().submit(() -> {
+                web3JFacade.getFeeHistory(feeOracle.getWindow(), FeeOracle.SAMPLE_PERCENTILES).ifPresent(feeOracle::seed);
+                return null;
+            }).exceptionally(error -> {
+                logger.warn("error while seeding the fee oracle", Futures.unwrap(error));
+                return null;
+            });
+        }
         this.ethereumRpcEventGenerator = new EthereumRpcEventGenerator(web3JFacade, config, this);
         this.chainId = chainId;
+        this.signer = new TransactionSigner(chainId, MAX_CACHED_CREDENTIALS);
+        config.getMetrics().gauge("values.intern.hit_rate", ValueInterner::getHitRate);
+        this.nonceManager = config.isManageNonces() ? new NonceManager(web3JFacade::getPendingTransactionCount) : null;
     }
 
+    /**
+     * with the fee oracle enabled, the configured speed is answered locally once the oracle has seen a block
+     */
     @Override
     public GasPrice getGasPrice() {
+        if (feeOracle != null) {
+            return getGasPrice(config.getFeeOracleSpeed());
+        }
         return web3JFacade.getGasPrice();
     }
 
+    public GasPrice getGasPrice(FeeOracle.Speed speed) {
+        return Optional.ofNullable(feeOracle)
+                .flatMap(oracle -> oracle.getGasPrice(speed))
+                .orElseGet(web3JFacade::getCachedGasPrice);
+    }
+
     @Override
     public EthValue getBalance(EthAddress address) {
         return EthValue.wei(web3JFacade.getBalance(address).getBalance());
@@ -64,16 +122,142 @@ public class EthereumRpc implements EthereumBackend {
 
     @Override
     public boolean addressExists(EthAddress address) {
-        return web3JFacade.getTransactionCount(address).intValue() > 0 || web3JFacade.getBalance(address).getBalance().intValue() > 0 || !web3JFacade.getCode(address).isEmpty();
+        return Futures.join(Futures.anyMatch(Arrays.asList(
+                web3JFacade.getTransactionCountAsync(address).thenApply(count -> count.signum() > 0),
+                web3JFacade.getBalanceAsync(address).thenApply(balance -> balance.getBalance().signum() > 0),
+                web3JFacade.getCodeAsync(address).thenApply(code -> !code.isEmpty()))));
     }
 
+    /**
+     * When nonces are managed and the nonce is null, the next nonce of the account is allocated locally.
+     */
     @Override
     public EthHash submit(TransactionRequest request, Nonce nonce) {
-        RawTransaction tx = web3JFacade.createTransaction(nonce, getGasPrice(), request.getGasLimit(), request.getAddress(), request.getValue(), request.getData());
-        EthData signedMessage = EthData.of(TransactionEncoder.signMessage(tx, (byte)chainId.id, Credentials.create(Numeric.toHexStringNoPrefix(request.getAccount().getBigIntPrivateKey()))));
-        web3JFacade.sendTransaction(signedMessage);
+        if (nonceManager == null) {
+            return send(request, nonce, getGasPrice());
+        }
+
+        EthAddress address = request.getAccount().getAddress();
+        GasPrice gasPrice = getManagedGasPrice();
+        if (nonce != null) {
+            boolean claimed = nonceManager.claim(address, nonce);
+            return sendManaged(request, address, nonce, gasPrice, claimed);
+        }
+        try {
+            return sendManaged(request, address, nonceManager.allocate(address), gasPrice, true);
+        } catch (EthereumApiException e) {
+            if (!NonceManager.isNonceConflict(e.getMessage())) {
+                throw e;
+            }
+            logger.debug("nonce conflict for " + address.withLeading0x() + ", resyncing from the node");
+            nonceManager.resync(address);
+            return sendManaged(request, address, nonceManager.allocate(address), gasPrice, true);
+        }
+    }
+
+    /**
+     * a nonce that did not reach the node is released, if the transaction did reach it reusing the nonce ends up in
+     * a nonce conflict and a resync
+     */
+    private EthHash sendManaged(TransactionRequest request, EthAddress address, Nonce nonce, GasPrice gasPrice, boolean release) {
+        try {
+            return send(request, nonce, gasPrice);
+        } catch (EthereumApiException e) {
+            if (release && !NonceManager.isNonceConflict(e.getMessage())) {
+                nonceManager.release(address, nonce);
+            }
+            throw e;
+        } catch (IOError e) {
+            if (release) {
+                nonceManager.release(address, nonce);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Submits the transaction on the rpc executor. Requires managed nonces so that concurrent submissions
+     * from the same account get distinct nonces.
+     */
+    public CompletableFuture<EthHash> submitAsync(TransactionRequest request) {
+        if (nonceManager == null) {
+            throw new IllegalStateException("submitAsync requires managed nonces, see EthereumRpcConfig.Builder.manageNonces");
+        }
+        return web3JFacade.getRequestExecutor().submit(() -> submit(request, null));
+    }
+
+    /**
+     * Allocates the nonces in the order of the list, signs the transactions (in parallel if enabled in the config)
+     * and sends them concurrently. Requires managed nonces.
+     * Returns one future per request, in the same order, with the hash of the transaction or the error of its submission.
+     */
+    public List<CompletableFuture<EthHash>> submitBatch(List<TransactionRequest> requests) {
+        if (nonceManager == null) {
+            throw new IllegalStateException("submitBatch requires managed nonces, see EthereumRpcConfig.Builder.manageNonces");
+        }
+        GasPrice gasPrice = getManagedGasPrice();
+        List<Nonce> nonces = requests.stream()
+                .map(request -> nonceManager.allocate(request.getAccount().getAddress()))
+                .collect(Collectors.toList());
+
+        List<TransactionSigner.SignedTransaction> signedTransactions;
+        try {
+            IntStream indexes = IntStream.range(0, requests.size());
+            signedTransactions = (config.isParallelSigning() ? indexes.parallel() : indexes)
+                    .mapToObj(i -> sign(requests.get(i), nonces.get(i), gasPrice))
+                    .collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            for (int i = 0; i < requests.size(); i++) {
+                nonceManager.release(requests.get(i).getAccount().getAddress(), nonces.get(i));
+            }
+            throw e;
+        }
 
-        return EthHash.of(Crypto.sha3(signedMessage).data);
+        List<CompletableFuture<EthHash>> sent = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            EthAddress address = requests.get(i).getAccount().getAddress();
+            Nonce nonce = nonces.get(i);
+            TransactionSigner.SignedTransaction signed = signedTransactions.get(i);
+            sent.add(web3JFacade.sendTransactionAsync(signed.toHex())
+                    .handle((hash, error) -> {
+                        if (error != null && !NonceManager.isAlreadyKnown(Futures.unwrap(error).getMessage())) {
+                            onSendFailure(address, nonce, Futures.unwrap(error));
+                        }
+                        return signed.getHash();
+                    }));
+        }
+        return sent;
+    }
+
+    private GasPrice getManagedGasPrice() {
+        return feeOracle != null ? getGasPrice() : web3JFacade.getCachedGasPrice();
+    }
+
+    private void onSendFailure(EthAddress address, Nonce nonce, Throwable error) {
+        if (error instanceof EthereumApiException && NonceManager.isNonceConflict(error.getMessage())) {
+            nonceManager.resync(address);
+        } else {
+            nonceManager.release(address, nonce);
+        }
+        throw error instanceof RuntimeException ? (RuntimeException) error : new EthereumApiException(error.getMessage(), error);
+    }
+
+    private EthHash send(TransactionRequest request, Nonce nonce, GasPrice gasPrice) {
+        TransactionSigner.SignedTransaction signed = sign(request, nonce, gasPrice);
+        try {
+            web3JFacade.sendTransaction(signed.toHex());
+        } catch (EthereumApiException e) {
+            //the node already has this very transaction, e.g. from a retried request
+            if (!NonceManager.isAlreadyKnown(e.getMessage())) {
+                throw e;
+            }
+        }
+        return signed.getHash();
+    }
+
+    private TransactionSigner.SignedTransaction sign(TransactionRequest request, Nonce nonce, GasPrice gasPrice) {
+        RawTransaction tx = web3JFacade.createTransaction(nonce, gasPrice, request.getGasLimit(), request.getAddress(), request.getValue(), request.getData());
+        return signer.sign(request.getAccount(), tx);
     }
 
     @Override
@@ -83,6 +267,9 @@ public class EthereumRpc implements EthereumBackend {
 
     @Override
     public Nonce getNonce(EthAddress currentAddress) {
+        if (nonceManager != null) {
+            return nonceManager.next(currentAddress);
+        }
         return new Nonce(web3JFacade.getTransactionCount(currentAddress));
     }
 
@@ -93,14 +280,102 @@ public class EthereumRpc implements EthereumBackend {
 
     @Override
     public Optional<BlockInfo> getBlock(long number) {
-        return web3JFacade.getBlock(number).map(this::toBlockInfo);
+        return getBlock(number, this::toBlockInfo);
+    }
+
+    private Optional<BlockInfo> getBlock(long number, Function<EthBlock, BlockInfo> converter) {
+        if (blockStore != null) {
+            Optional<BlockInfo> stored = blockStore.get(number);
+            if (stored.isPresent()) {
+                return stored;
+            }
+        }
+        return web3JFacade.getBlock(number).map(ethBlock -> store(ethBlock, converter.apply(ethBlock)));
     }
 
     @Override
     public Optional<BlockInfo> getBlock(EthHash ethHash) {
+        if (blockStore != null) {
+            Optional<BlockInfo> stored = blockStore.get(ethHash);
+            if (stored.isPresent()) {
+                return stored;
+            }
+        }
+        //a block fetched by hash can be on a side chain, only the blocks fetched by number are stored
         return web3JFacade.getBlock(ethHash).map(this::toBlockInfo);
     }
 
+    /**
+     * keeps a block fetched by number in the block store if it is deep enough to be final
+     */
+    private BlockInfo store(EthBlock ethBlock, BlockInfo blockInfo) {
+        long head = ethereumRpcEventGenerator.getHeadBlockNumber();
+        if (blockStore != null && head >= 0 && blockInfo.blockNumber <= head - config.getConfirmations() - config.getReorgDepth()) {
+            onFinalized(EthHash.of(ethBlock.getBlock().getHash()), blockInfo);
+        }
+        return blockInfo;
+    }
+
+    void onNewHead(EthBlock ethBlock) {
+        if (feeOracle != null) {
+            feeOracle.onBlock(ethBlock.getBlock());
+        }
+    }
+
+    void onBlock(BlockInfo blockInfo) {
+        receiptWatcher.onBlock(blockInfo);
+    }
+
+    void onFinalized(EthHash blockHash, BlockInfo blockInfo) {
+        //a block whose receipts could not be converted is not stored, it will be fetched again
+        if (blockStore != null && !incompleteBlocks.remove(blockInfo.blockNumber)) {
+            blockStore.put(blockHash, blockInfo);
+        }
+    }
+
+    public Optional<BlockStore> getBlockStore() {
+        return Optional.ofNullable(blockStore);
+    }
+
+    public void close() {
+        ethereumRpcEventGenerator.close();
+        logPoller.close();
+        receiptWatcher.close();
+        web3JFacade.close();
+        if (blockStore != null) {
+            blockStore.close();
+        }
+    }
+
+    public Stream<BlockInfo> getBlocks(long from, long to) {
+        return getBlocks(from, to, BlockCheckpoint.none());
+    }
+
+    public Stream<BlockInfo> getBlocks(long from, long to, BlockCheckpoint checkpoint) {
+        return blockRangeFetcher.fetch(from, to, checkpoint);
+    }
+
+    public List<EventData> getLogs(LogFilter filter, long from, long to) {
+        List<CompletableFuture<List<Log>>> chunks = new ArrayList<>();
+        for (long start = from; start <= to; start += config.getLogRangeChunkSize()) {
+            long end = Math.min(to, start + config.getLogRangeChunkSize() - 1);
+            EthFilter ethFilter = filter.toEthFilter(DefaultBlockParameter.valueOf(BigInteger.valueOf(start)), DefaultBlockParameter.valueOf(BigInteger.valueOf(end)));
+            chunks.add(web3JFacade.getLogsAsync(ethFilter));
+        }
+
+        return chunks.stream()
+                .flatMap(chunk -> Futures.join(chunk).stream())
+                .filter(log -> !log.isRemoved())
+                .map(this::toEventInfo)
+                .collect(Collectors.toList());
+    }
+
+    public Observable<EventData> observeLogs(LogFilter filter) {
+        return web3JFacade.subscribeLogs(filter)
+                .orElseGet(() -> logPoller.observe(filter))
+                .map(this::toEventInfo);
+    }
+
     @Override
     public SmartContractByteCode getCode(EthAddress address) {
         return web3JFacade.getCode(address);
@@ -111,63 +386,188 @@ public class EthereumRpc implements EthereumBackend {
         return web3JFacade.constantCall(account, address, data);
     }
 
+    /**
+     * runs the call on the rpc executor. With call aggregation enabled, the calls issued together are sent as batches
+     */
+    public CompletableFuture<EthData> constantCallAsync(EthAccount account, EthAddress address, EthData data) {
+        return web3JFacade.constantCallAsync(account, address, data);
+    }
+
     @Override
     public void register(EthereumEventHandler eventHandler) {
         ethereumRpcEventGenerator.addListener(eventHandler);
     }
 
+    public void registerRollbackListener(BlockRollbackListener listener) {
+        ethereumRpcEventGenerator.addRollbackListener(listener);
+    }
+
     @Override
     public Optional<TransactionInfo> getTransactionInfo(EthHash hash) {
+        if (blockStore != null) {
+            Optional<TransactionInfo> stored = blockStore.getTransactionInfo(hash);
+            if (stored.isPresent()) {
+                return stored;
+            }
+        }
         return Optional.ofNullable(web3JFacade.getReceipt(hash)).flatMap(web3jReceipt -> Optional.ofNullable(web3JFacade.getTransaction(hash))
-            .map(transaction -> {
-                TransactionReceipt receipt = toReceipt(transaction, web3jReceipt);
-                TransactionStatus status = transaction.getBlockHash().isEmpty() ? TransactionStatus.Unknown : TransactionStatus.Executed;
-                return new TransactionInfo(hash, receipt, status, EthHash.of(transaction.getBlockHash()));
-            })
+            .map(transaction -> toTransactionInfo(hash, transaction, web3jReceipt))
         );
     }
 
-    BlockInfo toBlockInfo(EthBlock ethBlock) {
-        EthBlock.Block block = ethBlock.getBlock();
-        try {
-            Map<String, EthBlock.TransactionObject> txObjects = block.getTransactions().stream()
-                    .map(tx -> (EthBlock.TransactionObject)tx.get()).collect(Collectors.toMap(EthBlock.TransactionObject::getHash, e -> e));
+    /**
+     * completes once the transaction is in an emitted block, see {@link ReceiptWatcher}
+     */
+    public CompletableFuture<TransactionInfo> watchTransaction(EthHash hash) {
+        return receiptWatcher.watch(hash);
+    }
 
-            Map<String, org.web3j.protocol.core.methods.response.TransactionReceipt> receipts = txObjects.values().stream()
-                    .map(tx -> Optional.ofNullable(web3JFacade.getReceipt(EthHash.of(tx.getHash()))))
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .collect(Collectors.toMap(org.web3j.protocol.core.methods.response.TransactionReceipt::getTransactionHash, e -> e));
+    private CompletableFuture<List<TransactionInfo>> lookupTransactions(List<EthHash> hashes, long maxBlockNumber) {
+        return web3JFacade.getRequestExecutor().submit(() -> web3JFacade.getReceipts(hashes, config.getReceiptBatchSize()))
+                .thenCompose(receipts -> {
+                    //the transactions are only fetched for the few receipts found outside of the emitted blocks
+                    List<CompletableFuture<TransactionInfo>> infos = receipts.stream()
+                            .filter(receipt -> receipt.getBlockNumber().longValue() <= maxBlockNumber)
+                            .map(receipt -> {
+                                EthHash hash = EthHash.of(receipt.getTransactionHash());
+                                return web3JFacade.getTransactionAsync(hash).thenApply(transaction -> transaction == null ? null : toTransactionInfo(hash, transaction, receipt));
+                            })
+                            .collect(Collectors.toList());
+                    return CompletableFuture.allOf(infos.toArray(new CompletableFuture[infos.size()]))
+                            .thenApply(done -> infos.stream().map(CompletableFuture::join).filter(Objects::nonNull).collect(Collectors.toList()));
+                });
+    }
 
-            List<TransactionReceipt> receiptList = receipts.entrySet().stream()
-                    .map(entry -> toReceipt(txObjects.get(entry.getKey()), entry.getValue())).collect(Collectors.toList());
+    private TransactionInfo toTransactionInfo(EthHash hash, Transaction transaction, org.web3j.protocol.core.methods.response.TransactionReceipt web3jReceipt) {
+        TransactionReceipt receipt = toReceipt(transaction, web3jReceipt);
+        TransactionStatus status = transaction.getBlockHash().isEmpty() ? TransactionStatus.Unknown : TransactionStatus.Executed;
+        return new TransactionInfo(hash, receipt, status, EthHash.of(transaction.getBlockHash()));
+    }
 
-            return new BlockInfo(block.getNumber().longValue(), receiptList);
+    BlockInfo toBlockInfo(EthBlock ethBlock) {
+        EthBlock.Block block = ethBlock.getBlock();
+        try {
+            return toCompleteBlockInfo(ethBlock);
         } catch (Throwable ex) {
             logger.error("error while converting to block info", ex);
+            config.getMetrics().conversionFallback(block.getNumber().longValue(), ex);
+            if (blockStore != null) {
+                incompleteBlocks.add(block.getNumber().longValue());
+            }
             return new BlockInfo(block.getNumber().longValue(), Collections.emptyList());
         }
+    }
+
+    /**
+     * fails instead of falling back to an empty block, a range fetch must not move its checkpoint past missing receipts
+     */
+    BlockInfo toCompleteBlockInfo(EthBlock ethBlock) {
+        EthBlock.Block block = ethBlock.getBlock();
+        //the transaction objects are null when the block only carries the hashes
+        Map<String, Transaction> txObjects = new HashMap<>(block.getTransactions().size() * 4 / 3 + 1);
+        for (EthBlock.TransactionResult tx : block.getTransactions()) {
+            if (tx instanceof EthBlock.TransactionObject) {
+                txObjects.put(((EthBlock.TransactionObject) tx).getHash(), (Transaction) tx);
+            } else {
+                txObjects.put((String) tx.get(), null);
+            }
+        }
+
+        List<TransactionReceipt> receiptList = new ArrayList<>(txObjects.size());
+        if (config.isStreamingDecoding()) {
+            for (DecodedReceipt receipt : getDecodedReceipts(block, txObjects.keySet())) {
+                String txHash = receipt.getTransactionHash().withLeading0x();
+                if (txObjects.containsKey(txHash)) {
+                    receiptList.add(toReceipt(txObjects.get(txHash), receipt));
+                }
+            }
+        } else {
+            for (org.web3j.protocol.core.methods.response.TransactionReceipt receipt : getReceipts(block, txObjects.keySet())) {
+                if (txObjects.containsKey(receipt.getTransactionHash())) {
+                    receiptList.add(toReceipt(txObjects.get(receipt.getTransactionHash()), receipt));
+                }
+            }
+        }
+
+        return new BlockInfo(block.getNumber().longValue(), receiptList);
+    }
+
+    private List<org.web3j.protocol.core.methods.response.TransactionReceipt> getReceipts(EthBlock.Block block, Set<String> txHashes) {
+        if (txHashes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Optional<List<org.web3j.protocol.core.methods.response.TransactionReceipt>> blockReceipts = config.isUseBlockReceipts()
+                ? web3JFacade.getBlockReceipts(EthHash.of(block.getHash()))
+                : Optional.empty();
+
+        return blockReceipts.orElseGet(() -> web3JFacade.getReceipts(txHashes.stream().map(EthHash::of).collect(Collectors.toList()), config.getReceiptBatchSize()));
+    }
+
+    private List<DecodedReceipt> getDecodedReceipts(EthBlock.Block block, Set<String> txHashes) {
+        if (txHashes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Optional<List<DecodedReceipt>> blockReceipts = config.isUseBlockReceipts()
+                ? web3JFacade.getDecodedBlockReceipts(EthHash.of(block.getHash()))
+                : Optional.empty();
 
+        return blockReceipts.orElseGet(() -> web3JFacade.getDecodedReceipts(txHashes.stream().map(EthHash::of).collect(Collectors.toList()), config.getReceiptBatchSize()));
     }
 
     private TransactionReceipt toReceipt(Transaction tx, org.web3j.protocol.core.methods.response.TransactionReceipt receipt) {
-        boolean successful = !receipt.getGasUsed().equals(tx.getGas());
-        String error = "";
-        if(!successful) {
-            error = "All the gas was used! an error occurred";
+        boolean successful = isSuccessful(tx, receipt.getGasUsed(), receipt.getStatus() == null ? null : !"0x0".equals(receipt.getStatus()));
+
+        EthHash transactionHash = EthHash.of(receipt.getTransactionHash());
+        return new TransactionReceipt(transactionHash, ValueInterner.hash(receipt.getBlockHash()), ValueInterner.address(receipt.getFrom()), ValueInterner.address(receipt.getTo()), ValueInterner.address(receipt.getContractAddress()), error(successful), EthData.empty(), successful, toEventInfos(transactionHash, receipt.getLogs()), value(tx));
+    }
+
+    private TransactionReceipt toReceipt(Transaction tx, DecodedReceipt receipt) {
+        boolean successful = isSuccessful(tx, receipt.getGasUsed(), receipt.getStatus());
+
+        return new TransactionReceipt(receipt.getTransactionHash(), receipt.getBlockHash(), receipt.getFrom(), receipt.getTo(), receipt.getContractAddress(), error(successful), EthData.empty(), successful, receipt.getEvents(), value(tx));
+    }
+
+    /**
+     * without the transaction object, the gas limit is unknown and the receipt status is used instead
+     */
+    private boolean isSuccessful(Transaction tx, BigInteger gasUsed, Boolean status) {
+        if (tx != null) {
+            return !gasUsed.equals(tx.getGas());
         }
+        return status == null || status;
+    }
 
-        return new TransactionReceipt(EthHash.of(receipt.getTransactionHash()), EthHash.of(receipt.getBlockHash()), EthAddress.of(receipt.getFrom()),EthAddress.of(receipt.getTo()), EthAddress.of(receipt.getContractAddress()), error, EthData.empty(), successful, toEventInfos(EthHash.of(receipt.getTransactionHash()), receipt.getLogs()), EthValue.wei(tx.getValue()));
+    private String error(boolean successful) {
+        return successful ? "" : "All the gas was used! an error occurred";
+    }
+
+    private EthValue value(Transaction tx) {
+        return tx == null ? EthValue.wei(BigInteger.ZERO) : EthValue.wei(tx.getValue());
     }
 
     private List<EventData> toEventInfos(EthHash transactionHash, List<Log> logs) {
-        return logs.stream().map(log -> this.toEventInfo(transactionHash, log)).collect(Collectors.toList());
+        List<EventData> events = new ArrayList<>(logs.size());
+        for (Log log : logs) {
+            events.add(toEventInfo(transactionHash, log));
+        }
+        return events;
+    }
+
+    EventData toEventInfo(Log log) {
+        return toEventInfo(EthHash.of(log.getTransactionHash()), log);
     }
 
     private EventData toEventInfo(EthHash transactionHash, Log log) {
-        List<EthData> topics = log.getTopics().stream().map(EthData::of).collect(Collectors.toList());
-        EthData eventSignature = topics.get(0);
-        EthData eventArguments = EthData.of(log.getData());
-        return new EventData(transactionHash, eventSignature, eventArguments, topics.subList(1, topics.size()));
+        List<String> logTopics = log.getTopics();
+        List<EthData> topics = new ArrayList<>(logTopics.size());
+        for (String topic : logTopics) {
+            topics.add(ValueInterner.topic(topic));
+        }
+        //anonymous events have no signature topic
+        EthData eventSignature = topics.isEmpty() ? EthData.empty() : topics.get(0);
+        List<EthData> indexed = topics.isEmpty() ? Collections.emptyList() : topics.subList(1, topics.size());
+        return new EventData(transactionHash, eventSignature, EthData.of(log.getData()), indexed);
     }
 }
@@ -2,6 +2,12 @@ package org.adridadou.ethereum.rpc;
 
 import org.adridadou.ethereum.propeller.EthereumConfig;
 
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -11,11 +17,72 @@ import java.util.concurrent.TimeUnit;
 public class EthereumRpcConfig extends EthereumConfig {
     private final boolean pollBlocks;
     private final long pollingFrequence;
+    private final long maxPollingFrequence;
+    private final int receiptBatchSize;
+    private final boolean useBlockReceipts;
+    private final int maxInFlightRequests;
+    private final Executor rpcExecutor;
+    private final int readCacheMaxEntries;
+    private final long readCacheMaxBytes;
+    private final int codeCacheMaxEntries;
+    private final long codeCacheMaxBytes;
+    private final int backfillWorkers;
+    private final int backfillWindow;
+    private final int confirmations;
+    private final int reorgDepth;
+    private final int eventQueueSize;
+    private final OverflowPolicy overflowPolicy;
+    private final long logRangeChunkSize;
+    private final boolean manageNonces;
+    private final boolean parallelSigning;
+    private final RpcMetrics metrics;
+    private final boolean streamingDecoding;
+    private final boolean fullTransactions;
+    private final Path blockStorePath;
+    private final long callAggregationWindow;
+    private final int callAggregationMaxBatch;
+    private final Set<String> singleFlightMethods;
+    private final RateLimiter rateLimiter;
+    private final int feeOracleWindow;
+    private final FeeOracle.Speed feeOracleSpeed;
+    private final HttpTransportConfig httpTransport;
 
-    private EthereumRpcConfig(boolean pollBlocks, long pollingFrequence, String swarmUrl, long blockWait) {
+    private EthereumRpcConfig(boolean pollBlocks, long pollingFrequence, long maxPollingFrequence, int receiptBatchSize, boolean useBlockReceipts, int maxInFlightRequests, Executor rpcExecutor,
+                              int readCacheMaxEntries, long readCacheMaxBytes, int codeCacheMaxEntries, long codeCacheMaxBytes,
+                              int backfillWorkers, int backfillWindow, int confirmations, int reorgDepth,
+                              int eventQueueSize, OverflowPolicy overflowPolicy, long logRangeChunkSize, boolean manageNonces, boolean parallelSigning, RpcMetrics metrics, boolean streamingDecoding, boolean fullTransactions, Path blockStorePath, long callAggregationWindow, int callAggregationMaxBatch, Set<String> singleFlightMethods, RateLimiter rateLimiter, int feeOracleWindow, FeeOracle.Speed feeOracleSpeed, HttpTransportConfig httpTransport, String swarmUrl, long blockWait) {
         super(swarmUrl, blockWait);
         this.pollBlocks = pollBlocks;
         this.pollingFrequence = pollingFrequence;
+        this.maxPollingFrequence = maxPollingFrequence;
+        this.receiptBatchSize = receiptBatchSize;
+        this.useBlockReceipts = useBlockReceipts;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.rpcExecutor = rpcExecutor;
+        this.readCacheMaxEntries = readCacheMaxEntries;
+        this.readCacheMaxBytes = readCacheMaxBytes;
+        this.codeCacheMaxEntries = codeCacheMaxEntries;
+        this.codeCacheMaxBytes = codeCacheMaxBytes;
+        this.backfillWorkers = backfillWorkers;
+        this.backfillWindow = backfillWindow;
+        this.confirmations = confirmations;
+        this.reorgDepth = reorgDepth;
+        this.eventQueueSize = eventQueueSize;
+        this.overflowPolicy = overflowPolicy;
+        this.logRangeChunkSize = logRangeChunkSize;
+        this.manageNonces = manageNonces;
+        this.parallelSigning = parallelSigning;
+        this.metrics = metrics;
+        this.streamingDecoding = streamingDecoding;
+        this.fullTransactions = fullTransactions;
+        this.blockStorePath = blockStorePath;
+        this.callAggregationWindow = callAggregationWindow;
+        this.callAggregationMaxBatch = callAggregationMaxBatch;
+        this.singleFlightMethods = singleFlightMethods;
+        this.rateLimiter = rateLimiter;
+        this.feeOracleWindow = feeOracleWindow;
+        this.feeOracleSpeed = feeOracleSpeed;
+        this.httpTransport = httpTransport;
     }
 
     public boolean isPollBlocks() {
@@ -26,6 +93,116 @@ public class EthereumRpcConfig extends EthereumConfig {
         return pollingFrequence;
     }
 
+    public long getMaxPollingFrequence() {
+        return maxPollingFrequence;
+    }
+
+    public int getReceiptBatchSize() {
+        return receiptBatchSize;
+    }
+
+    public boolean isUseBlockReceipts() {
+        return useBlockReceipts;
+    }
+
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    public Optional<Executor> getRpcExecutor() {
+        return Optional.ofNullable(rpcExecutor);
+    }
+
+    public int getBackfillWorkers() {
+        return backfillWorkers;
+    }
+
+    public int getBackfillWindow() {
+        return backfillWindow;
+    }
+
+    public int getConfirmations() {
+        return confirmations;
+    }
+
+    public int getReorgDepth() {
+        return reorgDepth;
+    }
+
+    public int getEventQueueSize() {
+        return eventQueueSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public long getLogRangeChunkSize() {
+        return logRangeChunkSize;
+    }
+
+    public boolean isManageNonces() {
+        return manageNonces;
+    }
+
+    public boolean isParallelSigning() {
+        return parallelSigning;
+    }
+
+    public RpcMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isStreamingDecoding() {
+        return streamingDecoding;
+    }
+
+    public boolean isFullTransactions() {
+        return fullTransactions;
+    }
+
+    public Optional<Path> getBlockStorePath() {
+        return Optional.ofNullable(blockStorePath);
+    }
+
+    /**
+     * in milliseconds, negative when call aggregation is disabled
+     */
+    public long getCallAggregationWindow() {
+        return callAggregationWindow;
+    }
+
+    public int getCallAggregationMaxBatch() {
+        return callAggregationMaxBatch;
+    }
+
+    public Set<String> getSingleFlightMethods() {
+        return singleFlightMethods;
+    }
+
+    public Optional<RateLimiter> getRateLimiter() {
+        return Optional.ofNullable(rateLimiter);
+    }
+
+    /**
+     * 0 when the fee oracle is disabled
+     */
+    public int getFeeOracleWindow() {
+        return feeOracleWindow;
+    }
+
+    public FeeOracle.Speed getFeeOracleSpeed() {
+        return feeOracleSpeed;
+    }
+
+    public HttpTransportConfig getHttpTransport() {
+        return httpTransport;
+    }
+
+    public ReadCache createReadCache() {
+        return new ReadCache(readCacheMaxEntries, readCacheMaxBytes, codeCacheMaxEntries, codeCacheMaxBytes);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -33,6 +210,35 @@ public class EthereumRpcConfig extends EthereumConfig {
     public static class Builder extends EthereumConfig.Builder {
         private boolean pollBlocks;
         private long pollingFrequence = 100;
+        private long maxPollingFrequence = -1;
+        private int receiptBatchSize = 100;
+        private boolean useBlockReceipts = true;
+        private int maxInFlightRequests = RpcRequestExecutor.DEFAULT_MAX_IN_FLIGHT;
+        private Executor rpcExecutor;
+        private int readCacheMaxEntries = 0;
+        private long readCacheMaxBytes = 0;
+        private int codeCacheMaxEntries = 1_000;
+        private long codeCacheMaxBytes = 32 * 1024 * 1024;
+        private int backfillWorkers = 8;
+        private int backfillWindow = 64;
+        private int confirmations = 0;
+        private int reorgDepth = 64;
+        private int eventQueueSize = 1_024;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private long logRangeChunkSize = 2_000;
+        private boolean manageNonces;
+        private boolean parallelSigning;
+        private RpcMetrics metrics = RpcMetrics.NOOP;
+        private boolean streamingDecoding;
+        private boolean fullTransactions = true;
+        private Path blockStorePath;
+        private long callAggregationWindow = -1;
+        private int callAggregationMaxBatch = 100;
+        private Set<String> singleFlightMethods = SingleFlight.DEFAULT_METHODS;
+        private RateLimiter rateLimiter;
+        private int feeOracleWindow;
+        private FeeOracle.Speed feeOracleSpeed = FeeOracle.Speed.STANDARD;
+        private HttpTransportConfig httpTransport = HttpTransportConfig.defaults();
 
         public Builder pollBlocks(boolean value) {
             this.pollBlocks = value;
@@ -49,8 +255,194 @@ public class EthereumRpcConfig extends EthereumConfig {
             return this;
         }
 
+        public Builder maxPollingFrequence(long amount, TimeUnit unit) {
+            this.maxPollingFrequence = unit.toMillis(amount);
+            return this;
+        }
+
+        public Builder receiptBatchSize(int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("the receipt batch size must be at least 1");
+            }
+            this.receiptBatchSize = size;
+            return this;
+        }
+
+        public Builder useBlockReceipts(boolean value) {
+            this.useBlockReceipts = value;
+            return this;
+        }
+
+        public Builder maxInFlightRequests(int value) {
+            if (value < 1) {
+                throw new IllegalArgumentException("the max number of in-flight requests must be at least 1");
+            }
+            this.maxInFlightRequests = value;
+            return this;
+        }
+
+        public Builder rpcExecutor(Executor executor) {
+            this.rpcExecutor = executor;
+            return this;
+        }
+
+        public Builder readCache(int maxEntries, long maxBytes) {
+            this.readCacheMaxEntries = maxEntries;
+            this.readCacheMaxBytes = maxBytes;
+            return this;
+        }
+
+        public Builder codeCache(int maxEntries, long maxBytes) {
+            this.codeCacheMaxEntries = maxEntries;
+            this.codeCacheMaxBytes = maxBytes;
+            return this;
+        }
+
+        public Builder backfill(int workers, int window) {
+            if (workers < 1 || window < 1) {
+                throw new IllegalArgumentException("the backfill workers and window must be at least 1");
+            }
+            if (window < workers) {
+                throw new IllegalArgumentException("the backfill window (" + window + ") must be at least the number of workers (" + workers + ")");
+            }
+            this.backfillWorkers = workers;
+            this.backfillWindow = window;
+            return this;
+        }
+
+        public Builder confirmations(int n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("the number of confirmations cannot be negative");
+            }
+            this.confirmations = n;
+            return this;
+        }
+
+        public Builder reorgDepth(int depth) {
+            if (depth < 1) {
+                throw new IllegalArgumentException("the reorg depth must be at least 1");
+            }
+            this.reorgDepth = depth;
+            return this;
+        }
+
+        public Builder eventQueue(int size, OverflowPolicy policy) {
+            if (size < 1) {
+                throw new IllegalArgumentException("the event queue size must be at least 1");
+            }
+            this.eventQueueSize = size;
+            this.overflowPolicy = policy;
+            return this;
+        }
+
+        public Builder logRangeChunkSize(long blocks) {
+            if (blocks < 1) {
+                throw new IllegalArgumentException("the log range chunk size must be at least 1 block");
+            }
+            this.logRangeChunkSize = blocks;
+            return this;
+        }
+
+        /**
+         * allocates the nonces locally from the pending count and uses a gas price cached per block,
+         * so that transactions from the same account can be submitted concurrently
+         */
+        public Builder manageNonces(boolean value) {
+            this.manageNonces = value;
+            return this;
+        }
+
+        public Builder parallelSigning(boolean value) {
+            this.parallelSigning = value;
+            return this;
+        }
+
+        public Builder metrics(RpcMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * decodes receipts and logs with the streaming {@link ReceiptDecoder} instead of web3j's object mapping
+         */
+        public Builder streamingDecoding(boolean value) {
+            this.streamingDecoding = value;
+            return this;
+        }
+
+        /**
+         * with false, blocks only carry the transaction hashes. The receipts then have a zero value
+         * and their success comes from the receipt status
+         */
+        public Builder fullTransactions(boolean value) {
+            this.fullTransactions = value;
+            return this;
+        }
+
+        /**
+         * keeps the finalized blocks and their receipts in a {@link BlockStore} in this directory
+         */
+        public Builder blockStore(Path directory) {
+            this.blockStorePath = directory;
+            return this;
+        }
+
+        /**
+         * sends the constant calls issued within the window as a single JSON-RPC batch of at most maxBatchSize calls
+         */
+        public Builder callAggregation(long window, TimeUnit unit, int maxBatchSize) {
+            if (window < 0 || maxBatchSize < 1) {
+                throw new IllegalArgumentException("the call aggregation window cannot be negative and the batch size must be at least 1");
+            }
+            this.callAggregationWindow = unit.toMillis(window);
+            this.callAggregationMaxBatch = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * the JSON-RPC methods whose concurrent identical reads share one call, among {@link SingleFlight#IDEMPOTENT_METHODS}.
+         * An empty set disables the coalescing
+         */
+        public Builder singleFlight(Set<String> methods) {
+            SingleFlight.checkMethods(methods);
+            this.singleFlightMethods = Collections.unmodifiableSet(new HashSet<>(methods));
+            return this;
+        }
+
+        /**
+         * keeps the calls to the endpoint within its quota, e.g. for Infura, see {@link RateLimiter}
+         */
+        public Builder rateLimit(RateLimiter limiter) {
+            this.rateLimiter = limiter;
+            return this;
+        }
+
+        /**
+         * estimates the gas price from the last blocks with a {@link FeeOracle} instead of calling eth_gasPrice.
+         * The speed is the one used by getGasPrice and the submissions
+         */
+        public Builder feeOracle(int windowBlocks, FeeOracle.Speed speed) {
+            if (windowBlocks < 1) {
+                throw new IllegalArgumentException("the fee oracle window must be at least 1 block");
+            }
+            this.feeOracleWindow = windowBlocks;
+            this.feeOracleSpeed = speed;
+            return this;
+        }
+
+        /**
+         * the OkHttp settings of the http(s) nodes
+         */
+        public Builder httpTransport(HttpTransportConfig config) {
+            this.httpTransport = config;
+            return this;
+        }
+
         public EthereumRpcConfig build() {
-            return new EthereumRpcConfig(pollBlocks, pollingFrequence, swarmUrl, blockWaitLimit);
+            return new EthereumRpcConfig(pollBlocks, pollingFrequence, maxPollingFrequence < 0 ? pollingFrequence * 4 : maxPollingFrequence, receiptBatchSize, useBlockReceipts, maxInFlightRequests, rpcExecutor,
+                    readCacheMaxEntries, readCacheMaxBytes, codeCacheMaxEntries, codeCacheMaxBytes,
+                    backfillWorkers, backfillWindow, confirmations, reorgDepth,
+                    eventQueueSize, overflowPolicy, logRangeChunkSize, manageNonces, parallelSigning, metrics, streamingDecoding, fullTransactions, blockStorePath, callAggregationWindow, callAggregationMaxBatch, singleFlightMethods, rateLimiter, feeOracleWindow, feeOracleSpeed, httpTransport, swarmUrl, blockWaitLimit);
         }
     }
 }
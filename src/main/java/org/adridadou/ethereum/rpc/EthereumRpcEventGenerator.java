@@ -1,42 +1,92 @@
 package org.adridadou.ethereum.rpc;
 
 import org.adridadou.ethereum.propeller.event.*;
-import org.adridadou.ethereum.propeller.values.TransactionInfo;
-import org.adridadou.ethereum.propeller.values.TransactionStatus;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.web3j.protocol.core.methods.response.EthBlock;
+import rx.Subscription;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Created by davidroon on 30.01.17.
  * This code is released under Apache 2 license
  */
 public class EthereumRpcEventGenerator {
-    private final List<EthereumEventHandler> ethereumEventHandlers = new ArrayList<>();
+    private static final Logger logger = LoggerFactory.getLogger(EthereumRpcEventGenerator.class);
+    private final EventDispatcher eventDispatcher;
+    private final List<BlockRollbackListener> rollbackListeners = new CopyOnWriteArrayList<>();
+    private final Web3JFacade web3JFacade;
+    private final CanonicalChainTracker chainTracker;
+    private final RpcMetrics metrics;
     private final EthereumRpc ethereum;
+    private final Subscription blockSubscription;
+    private volatile long headBlockNumber;
 
     public EthereumRpcEventGenerator(Web3JFacade web3JFacade, EthereumRpcConfig config, EthereumRpc ethereum) {
+        this.web3JFacade = web3JFacade;
         this.ethereum = ethereum;
+        this.metrics = config.getMetrics();
+        this.eventDispatcher = new EventDispatcher(config.getEventQueueSize(), config.getOverflowPolicy(), metrics);
+        this.chainTracker = new CanonicalChainTracker(web3JFacade::getBlock, ethereum::toBlockInfo, config.getConfirmations(), config.getReorgDepth(), new CanonicalChainTracker.Listener() {
+            @Override
+            public void onBlock(BlockInfo blockInfo) {
+                emitBlock(blockInfo);
+                ethereum.onBlock(blockInfo);
+            }
+
+            @Override
+            public void onRollback(BlockInfo blockInfo) {
+                rollbackListeners.forEach(listener -> listener.onRollback(blockInfo));
+            }
+
+            @Override
+            public void onFinalized(EthHash blockHash, BlockInfo blockInfo) {
+                ethereum.onFinalized(blockHash, blockInfo);
+            }
+        });
         if(config.isPollBlocks()) {
-            web3JFacade.observeBlocksPolling(config.getPollingFrequence()).subscribe(this::observeBlocks);
+            blockSubscription = web3JFacade.observeBlocksPolling(config.getPollingFrequence(), config.getMaxPollingFrequence(), metrics).subscribe(this::observeBlocks);
         }else {
-            web3JFacade.observeBlocks().subscribe(this::observeBlocks);
+            blockSubscription = web3JFacade.observeBlocks().subscribe(this::observeBlocks);
         }
     }
 
     private void observeBlocks(EthBlock ethBlock) {
-        ethereumEventHandlers.forEach(EthereumEventHandler::onReady);
-        BlockInfo param = ethereum.toBlockInfo(ethBlock);
-        ethereumEventHandlers.forEach(handler -> handler.onBlock(param));
-
-        ethereumEventHandlers
-                .forEach(handler -> param.receipts
-                        .stream().map(tx -> new TransactionInfo(tx.hash, tx, TransactionStatus.Executed, tx.blockHash))
-                        .forEach(handler::onTransactionExecuted));
+        try {
+            headBlockNumber = ethBlock.getBlock().getNumber().longValue();
+            web3JFacade.onNewBlock(headBlockNumber);
+            ethereum.onNewHead(ethBlock);
+            chainTracker.onNewBlock(ethBlock);
+        } catch (Throwable e) {
+            logger.error("error while processing block " + ethBlock.getBlock().getNumber(), e);
+        }
+    }
+
+    private void emitBlock(BlockInfo param) {
+        metrics.blockProcessed(param.blockNumber, param.receipts.size(), Math.max(0, headBlockNumber - param.blockNumber));
+        eventDispatcher.dispatch(param);
+    }
+
+    long getHeadBlockNumber() {
+        return chainTracker.getHeadBlockNumber();
     }
 
     public void addListener(EthereumEventHandler ethereumEventHandler) {
-        this.ethereumEventHandlers.add(ethereumEventHandler);
+        this.eventDispatcher.addHandler(ethereumEventHandler);
+    }
+
+    public void addRollbackListener(BlockRollbackListener listener) {
+        this.rollbackListeners.add(listener);
+    }
+
+    /**
+     * stops following the chain and the handler threads
+     */
+    public void close() {
+        blockSubscription.unsubscribe();
+        eventDispatcher.close();
     }
 }
@@ -0,0 +1,176 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.event.EthereumEventHandler;
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.adridadou.ethereum.propeller.values.TransactionInfo;
+import org.adridadou.ethereum.propeller.values.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class EventDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(EventDispatcher.class);
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final List<HandlerQueue> handlers = new CopyOnWriteArrayList<>();
+    private final int queueSize;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final RpcMetrics metrics;
+    private final boolean timed;
+
+    public EventDispatcher(int queueSize, OverflowPolicy overflowPolicy) {
+        this(queueSize, overflowPolicy, RpcMetrics.NOOP);
+    }
+
+    public EventDispatcher(int queueSize, OverflowPolicy overflowPolicy, RpcMetrics metrics) {
+        this.queueSize = queueSize;
+        this.overflowPolicy = overflowPolicy;
+        this.metrics = metrics;
+        this.timed = metrics != RpcMetrics.NOOP;
+        metrics.gauge("events.dropped", droppedEvents::get);
+    }
+
+    public void addHandler(EthereumEventHandler handler) {
+        HandlerQueue queue = new HandlerQueue(handler, queueSize);
+        handlers.add(queue);
+        queue.start();
+    }
+
+    public void dispatch(BlockInfo blockInfo) {
+        List<TransactionInfo> transactions = new ArrayList<>(blockInfo.receipts.size());
+        blockInfo.receipts.forEach(tx -> transactions.add(new TransactionInfo(tx.hash, tx, TransactionStatus.Executed, tx.blockHash)));
+        BlockEvent event = new BlockEvent(blockInfo, Collections.unmodifiableList(transactions));
+
+        if (overflowPolicy == OverflowPolicy.FAIL) {
+            //all or nothing: the rejected block is emitted again later and no handler may see it twice.
+            //dispatch is the only producer, the queues can only get more room between the check and the offer
+            List<HandlerQueue> full = new ArrayList<>();
+            handlers.stream().filter(HandlerQueue::isFull).forEach(full::add);
+            if (!full.isEmpty()) {
+                full.forEach(HandlerQueue::onDropped);
+                throw new EthereumApiException("block " + blockInfo.blockNumber + " rejected, " + full.size() + " event handler(s) have a full queue");
+            }
+        }
+        handlers.forEach(handler -> handler.offer(event));
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public int getHandlerCount() {
+        return handlers.size();
+    }
+
+    public void close() {
+        handlers.forEach(HandlerQueue::stop);
+        handlers.clear();
+    }
+
+    private static final class BlockEvent {
+        private final BlockInfo blockInfo;
+        private final List<TransactionInfo> transactions;
+
+        private BlockEvent(BlockInfo blockInfo, List<TransactionInfo> transactions) {
+            this.blockInfo = blockInfo;
+            this.transactions = transactions;
+        }
+    }
+
+    private final class HandlerQueue implements Runnable {
+        private final EthereumEventHandler handler;
+        private final BlockingQueue<BlockEvent> queue;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private boolean ready;
+
+        private HandlerQueue(EthereumEventHandler handler, int queueSize) {
+            this.handler = handler;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.thread = new Thread(this, "ethereum-event-handler-" + threadCounter.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        private void stop() {
+            running = false;
+            thread.interrupt();
+        }
+
+        private boolean isFull() {
+            return queue.remainingCapacity() == 0;
+        }
+
+        private void offer(BlockEvent event) {
+            switch (overflowPolicy) {
+                case BLOCK:
+                    try {
+                        queue.put(event);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        onDropped();
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(event)) {
+                        if (queue.poll() != null) {
+                            onDropped();
+                        }
+                    }
+                    break;
+                default:
+                    if (!queue.offer(event)) {
+                        onDropped();
+                    }
+            }
+        }
+
+        private void onDropped() {
+            droppedEvents.incrementAndGet();
+            metrics.eventDropped(handler.getClass().getName());
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    deliver(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Throwable e) {
+                    logger.error("error in event handler " + handler.getClass().getName(), e);
+                }
+            }
+        }
+
+        private void deliver(BlockEvent event) {
+            if (!ready) {
+                handler.onReady();
+                ready = true;
+            }
+            long start = timed ? System.nanoTime() : 0;
+            handler.onBlock(event.blockInfo);
+            event.transactions.forEach(handler::onTransactionExecuted);
+            if (timed) {
+                metrics.handlerDispatch(handler.getClass().getName(), System.nanoTime() - start);
+            }
+        }
+    }
+}
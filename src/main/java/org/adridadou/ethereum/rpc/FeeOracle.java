@@ -0,0 +1,123 @@
+package org.adridadou.ethereum.rpc;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.adridadou.ethereum.propeller.values.EthValue;
+import org.adridadou.ethereum.propeller.values.GasPrice;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.Transaction;
+import org.web3j.utils.Numeric;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class FeeOracle {
+    public enum Speed {
+        SLOW(20), STANDARD(50), FAST(90);
+
+        private final int percentile;
+
+        Speed(int percentile) {
+            this.percentile = percentile;
+        }
+    }
+
+    static final int[] SAMPLE_PERCENTILES = {10, 30, 50, 70, 90};
+
+    private final int window;
+    private final long[] samples;
+    private final long[] sorted;
+    private int next;
+    private int blocks;
+    private long lastBlockNumber = -1;
+    private volatile long[] prices;
+
+    public FeeOracle(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("the fee oracle window must be at least 1 block");
+        }
+        this.window = window;
+        this.samples = new long[window * SAMPLE_PERCENTILES.length];
+        this.sorted = new long[samples.length];
+    }
+
+    public Optional<GasPrice> getGasPrice(Speed speed) {
+        long[] current = prices;
+        return current == null ? Optional.empty() : Optional.of(new GasPrice(EthValue.wei(BigInteger.valueOf(current[speed.ordinal()]))));
+    }
+
+    /**
+     * blocks without transactions or fetched with the transaction hashes only are ignored
+     */
+    public void onBlock(EthBlock.Block block) {
+        List<EthBlock.TransactionResult> transactions = block.getTransactions();
+        long[] blockPrices = new long[transactions.size()];
+        int count = 0;
+        for (EthBlock.TransactionResult transaction : transactions) {
+            if (transaction instanceof EthBlock.TransactionObject) {
+                BigInteger gasPrice = ((Transaction) transaction).getGasPrice();
+                if (gasPrice != null) {
+                    blockPrices[count++] = gasPrice.min(BigInteger.valueOf(Long.MAX_VALUE)).longValue();
+                }
+            }
+        }
+        if (count > 0) {
+            Arrays.sort(blockPrices, 0, count);
+            long[] blockSamples = new long[SAMPLE_PERCENTILES.length];
+            for (int i = 0; i < blockSamples.length; i++) {
+                blockSamples[i] = blockPrices[Math.min(count - 1, count * SAMPLE_PERCENTILES[i] / 100)];
+            }
+            add(block.getNumber().longValue(), blockSamples);
+        }
+    }
+
+    /**
+     * the effective price of each sample is the base fee plus the priority fee. Ignored once blocks came in
+     */
+    public synchronized void seed(EthFeeHistory.FeeHistory history) {
+        if (lastBlockNumber >= 0 || history.getReward() == null) {
+            return;
+        }
+        long oldestBlock = Numeric.decodeQuantity(history.getOldestBlock()).longValue();
+        List<List<String>> rewards = history.getReward();
+        for (int block = 0; block < rewards.size(); block++) {
+            BigInteger baseFee = Numeric.decodeQuantity(history.getBaseFeePerGas().get(block));
+            List<String> blockRewards = rewards.get(block);
+            if (blockRewards.size() != SAMPLE_PERCENTILES.length) {
+                continue;
+            }
+            long[] blockSamples = new long[SAMPLE_PERCENTILES.length];
+            for (int i = 0; i < blockSamples.length; i++) {
+                blockSamples[i] = baseFee.add(Numeric.decodeQuantity(blockRewards.get(i))).min(BigInteger.valueOf(Long.MAX_VALUE)).longValue();
+            }
+            add(oldestBlock + block, blockSamples);
+        }
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    private synchronized void add(long blockNumber, long[] blockSamples) {
+        if (blockNumber <= lastBlockNumber) {
+            //a block seen again after a reorg, the window keeps the first version
+            return;
+        }
+        lastBlockNumber = blockNumber;
+        System.arraycopy(blockSamples, 0, samples, next * SAMPLE_PERCENTILES.length, SAMPLE_PERCENTILES.length);
+        next = (next + 1) % window;
+        blocks = Math.min(window, blocks + 1);
+
+        int length = blocks * SAMPLE_PERCENTILES.length;
+        System.arraycopy(samples, 0, sorted, 0, length);
+        Arrays.sort(sorted, 0, length);
+        long[] result = new long[Speed.values().length];
+        for (Speed speed : Speed.values()) {
+            result[speed.ordinal()] = sorted[Math.min(length - 1, length * speed.percentile / 100)];
+        }
+        prices = result;
+    }
+}
@@ -0,0 +1,67 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This code is released under Apache 2 license
+ */
+final class Futures {
+    private Futures() {}
+
+    /**
+     * Completes with true as soon as one of the futures completes with true, with false once all of them
+     * completed with false. If none completes with true and one of them failed, the failure is propagated.
+     */
+    static CompletableFuture<Boolean> anyMatch(List<CompletableFuture<Boolean>> futures) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        if (futures.isEmpty()) {
+            result.complete(false);
+        }
+        futures.forEach(future -> future.whenComplete((value, error) -> {
+            if (error != null) {
+                firstError.compareAndSet(null, unwrap(error));
+            } else if (Boolean.TRUE.equals(value)) {
+                result.complete(true);
+            }
+            if (remaining.decrementAndGet() == 0) {
+                Throwable failure = firstError.get();
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(false);
+                }
+            }
+        }));
+        return result;
+    }
+
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    static Throwable unwrap(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -0,0 +1,210 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOError;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This code is released under Apache 2 license
+ */
+final class HashIndex {
+    static final int HASH_SIZE = 32;
+    private static final int KEY_LONGS = HASH_SIZE / 8;
+    private static final int VALUE_OFFSET = HASH_SIZE;
+    private static final int SLOT_SIZE = HASH_SIZE + 8;
+    private static final int CHUNK_SLOTS = 1 << 20;
+    private static final long INITIAL_CAPACITY = 1 << 16;
+    private static final int HEADER_SIZE = 24;
+    private static final int CAPACITY = 0;
+    private static final int SIZE = 8;
+    private static final int INDEXED_LOG_SIZE = 16;
+    private static final long DIRTY = -1;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private Map<Integer, MappedByteBuffer> chunks = new HashMap<>();
+    private long capacity;
+    private long size;
+    private final long indexedLogSize;
+
+    private HashIndex(Path file, long initialCapacity) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        this.capacity = header.getLong(CAPACITY);
+        if (capacity == 0) {
+            capacity = initialCapacity;
+            header.putLong(CAPACITY, capacity);
+        }
+        this.size = header.getLong(SIZE);
+        this.indexedLogSize = header.getLong(INDEXED_LOG_SIZE);
+        if (indexedLogSize == DIRTY) {
+            size = countEntries();
+        }
+        //the entries written from now on are only known to be on disk once the index is closed
+        header.putLong(INDEXED_LOG_SIZE, DIRTY);
+        header.force();
+    }
+
+    static HashIndex open(Path file) throws IOException {
+        return new HashIndex(file, INITIAL_CAPACITY);
+    }
+
+    /**
+     * the size of the hash log covered by the index when it was closed, 0 if it was not closed properly
+     */
+    long getIndexedLogSize() {
+        return Math.max(0, indexedLogSize);
+    }
+
+    synchronized void put(byte[] hash, long blockNumber) throws IOException {
+        if ((size + 1) * 4 > capacity * 3) {
+            grow();
+        }
+        if (insert(key(hash), blockNumber + 1)) {
+            size++;
+            header.putLong(SIZE, size);
+        }
+    }
+
+    /**
+     * -1 when the hash is not indexed
+     */
+    synchronized long get(byte[] hash) {
+        long[] key = key(hash);
+        for (long slot = start(key); ; slot = next(slot)) {
+            MappedByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+            long value = chunk.getLong(offset + VALUE_OFFSET);
+            if (value == 0) {
+                return -1;
+            }
+            if (matches(chunk, offset, key)) {
+                return value - 1;
+            }
+        }
+    }
+
+    synchronized void close(long logSize) throws IOException {
+        for (MappedByteBuffer chunk : chunks.values()) {
+            chunk.force();
+        }
+        header.putLong(SIZE, size);
+        header.putLong(INDEXED_LOG_SIZE, logSize);
+        header.force();
+        channel.close();
+    }
+
+    /**
+     * linear probing from the hash prefix, the hashes are already uniformly distributed
+     */
+    private boolean insert(long[] key, long value) {
+        for (long slot = start(key); ; slot = next(slot)) {
+            MappedByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+            if (chunk.getLong(offset + VALUE_OFFSET) == 0) {
+                for (int i = 0; i < KEY_LONGS; i++) {
+                    chunk.putLong(offset + i * 8, key[i]);
+                }
+                chunk.putLong(offset + VALUE_OFFSET, value);
+                return true;
+            }
+            if (matches(chunk, offset, key)) {
+                chunk.putLong(offset + VALUE_OFFSET, value);
+                return false;
+            }
+        }
+    }
+
+    private void grow() throws IOException {
+        Path grownFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(grownFile);
+        HashIndex grown = new HashIndex(grownFile, capacity * 2);
+        long[] key = new long[KEY_LONGS];
+        for (long slot = 0; slot < capacity; slot++) {
+            MappedByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+            long value = chunk.getLong(offset + VALUE_OFFSET);
+            if (value != 0) {
+                for (int i = 0; i < KEY_LONGS; i++) {
+                    key[i] = chunk.getLong(offset + i * 8);
+                }
+                grown.insert(key, value);
+            }
+        }
+        grown.size = size;
+        grown.header.putLong(SIZE, size);
+        channel.close();
+        Files.move(grownFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = grown.channel;
+        header = grown.header;
+        chunks = grown.chunks;
+        capacity = grown.capacity;
+    }
+
+    private long countEntries() {
+        long count = 0;
+        for (long slot = 0; slot < capacity; slot++) {
+            if (chunk(slot).getLong(offset(slot) + VALUE_OFFSET) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long start(long[] key) {
+        return key[0] & (capacity - 1);
+    }
+
+    private long next(long slot) {
+        return (slot + 1) & (capacity - 1);
+    }
+
+    private MappedByteBuffer chunk(long slot) {
+        return chunks.computeIfAbsent((int) (slot / CHUNK_SLOTS), chunk -> {
+            try {
+                long slots = Math.min(CHUNK_SLOTS, capacity);
+                return channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) chunk * CHUNK_SLOTS * SLOT_SIZE, slots * SLOT_SIZE);
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+        });
+    }
+
+    private static int offset(long slot) {
+        return (int) (slot % CHUNK_SLOTS) * SLOT_SIZE;
+    }
+
+    private static boolean matches(MappedByteBuffer chunk, int offset, long[] key) {
+        for (int i = 0; i < KEY_LONGS; i++) {
+            if (chunk.getLong(offset + i * 8) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * shorter hashes are left padded so that every key has the same size
+     */
+    private static long[] key(byte[] hash) {
+        byte[] padded = new byte[HASH_SIZE];
+        int length = Math.min(HASH_SIZE, hash.length);
+        System.arraycopy(hash, hash.length - length, padded, HASH_SIZE - length, length);
+        ByteBuffer buffer = ByteBuffer.wrap(padded);
+        long[] key = new long[KEY_LONGS];
+        for (int i = 0; i < KEY_LONGS; i++) {
+            key[i] = buffer.getLong();
+        }
+        return key;
+    }
+}
@@ -0,0 +1,209 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.Okio;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class HttpTransport implements AutoCloseable {
+    private static final Pattern METHOD = Pattern.compile("\"method\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final OkHttpClient client;
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong connectionsAcquired = new AtomicLong();
+
+    public HttpTransport(HttpTransportConfig config) {
+        this.connectionPool = new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveMillis(), TimeUnit.MILLISECONDS);
+        this.dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(config.getMaxRequestsPerHost());
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .protocols(config.isHttp2() ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Collections.singletonList(Protocol.HTTP_1_1))
+                .connectTimeout(config.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(config.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(config.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .eventListener(new EventListener() {
+                    @Override
+                    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+                        connectionsOpened.incrementAndGet();
+                    }
+
+                    @Override
+                    public void connectionAcquired(Call call, Connection connection) {
+                        connectionsAcquired.incrementAndGet();
+                    }
+                });
+        //first so that it sees the request as sent by web3j and the decompressed response
+        config.getRecorder().ifPresent(builder::addInterceptor);
+        if (!config.getMethodTimeouts().isEmpty()) {
+            builder.addInterceptor(new MethodTimeoutInterceptor(config.getMethodTimeouts()));
+        }
+        if (config.isCompression()) {
+            builder.addInterceptor(new CompressionInterceptor());
+        }
+        this.client = builder.build();
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    public int getConnectionCount() {
+        return connectionPool.connectionCount();
+    }
+
+    public int getIdleConnectionCount() {
+        return connectionPool.idleConnectionCount();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    public long getConnectionsAcquired() {
+        return connectionsAcquired.get();
+    }
+
+    public double getReuseRate() {
+        long acquired = connectionsAcquired.get();
+        return acquired == 0 ? 0 : Math.max(0, 1 - (double) connectionsOpened.get() / acquired);
+    }
+
+    public void registerGauges(RpcMetrics metrics) {
+        metrics.gauge("http.connections", this::getConnectionCount);
+        metrics.gauge("http.connections.idle", this::getIdleConnectionCount);
+        metrics.gauge("http.connections.opened", this::getConnectionsOpened);
+        metrics.gauge("http.connections.reuse_rate", this::getReuseRate);
+    }
+
+    /**
+     * the calls already queued still run, new calls are rejected
+     */
+    @Override
+    public void close() {
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+    }
+
+    /**
+     * reads the JSON-RPC methods from the payload and uses the longest of their read timeouts
+     */
+    static final class MethodTimeoutInterceptor implements Interceptor {
+        private final Map<String, Long> timeouts;
+
+        MethodTimeoutInterceptor(Map<String, Long> timeouts) {
+            this.timeouts = timeouts;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            long timeout = timeout(request.body());
+            return timeout > 0
+                    ? chain.withReadTimeout((int) Math.min(Integer.MAX_VALUE, timeout), TimeUnit.MILLISECONDS).proceed(request)
+                    : chain.proceed(request);
+        }
+
+        private long timeout(RequestBody body) throws IOException {
+            if (body == null) {
+                return 0;
+            }
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            Matcher matcher = METHOD.matcher(buffer.readUtf8());
+            long timeout = 0;
+            while (matcher.find()) {
+                timeout = Math.max(timeout, timeouts.getOrDefault(matcher.group(1), 0L));
+            }
+            return timeout;
+        }
+    }
+
+    /**
+     * OkHttp only decompresses gzip on its own, this asks for deflate as well and decodes both
+     */
+    static final class CompressionInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            if (request.header("Accept-Encoding") != null) {
+                return chain.proceed(request);
+            }
+            Response response = chain.proceed(request.newBuilder().header("Accept-Encoding", "gzip, deflate").build());
+            String encoding = response.header("Content-Encoding");
+            ResponseBody body = response.body();
+            if (encoding == null || body == null) {
+                return response;
+            }
+
+            InputStream decoded;
+            if ("gzip".equalsIgnoreCase(encoding)) {
+                decoded = new GZIPInputStream(body.byteStream());
+            } else if ("deflate".equalsIgnoreCase(encoding)) {
+                decoded = inflate(body.byteStream());
+            } else {
+                return response;
+            }
+            return response.newBuilder()
+                    .removeHeader("Content-Encoding")
+                    .removeHeader("Content-Length")
+                    .body(ResponseBody.create(body.contentType(), -1, Okio.buffer(Okio.source(decoded))))
+                    .build();
+        }
+
+        /**
+         * deflate is meant to be zlib wrapped but some servers send the raw stream.
+         * A zlib header uses the deflate method and its first two bytes are a multiple of 31
+         */
+        static InputStream inflate(InputStream stream) throws IOException {
+            BufferedInputStream buffered = new BufferedInputStream(stream);
+            buffered.mark(2);
+            int first = buffered.read();
+            int second = buffered.read();
+            buffered.reset();
+            boolean zlib = first != -1 && second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+            Inflater inflater = new Inflater(!zlib);
+            return new InflaterInputStream(buffered, inflater) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    inflater.end();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class HttpTransportConfig {
+    private final int maxIdleConnections;
+    private final long keepAliveMillis;
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final boolean compression;
+    private final boolean http2;
+    private final long connectTimeoutMillis;
+    private final long readTimeoutMillis;
+    private final long writeTimeoutMillis;
+    private final Map<String, Long> methodTimeouts;
+    private final RpcRecorder recorder;
+
+    private HttpTransportConfig(int maxIdleConnections, long keepAliveMillis, int maxRequests, int maxRequestsPerHost, boolean compression, boolean http2,
+                                long connectTimeoutMillis, long readTimeoutMillis, long writeTimeoutMillis, Map<String, Long> methodTimeouts,
+                                RpcRecorder recorder) {
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveMillis = keepAliveMillis;
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.compression = compression;
+        this.http2 = http2;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.methodTimeouts = methodTimeouts;
+        this.recorder = recorder;
+    }
+
+    public static HttpTransportConfig defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    /**
+     * read timeouts in milliseconds per JSON-RPC method, overriding the default read timeout
+     */
+    public Map<String, Long> getMethodTimeouts() {
+        return methodTimeouts;
+    }
+
+    public Optional<RpcRecorder> getRecorder() {
+        return Optional.ofNullable(recorder);
+    }
+
+    public static class Builder {
+        private int maxIdleConnections = 64;
+        private long keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+        private int maxRequests = 256;
+        private int maxRequestsPerHost = 128;
+        private boolean compression = true;
+        private boolean http2 = true;
+        private long connectTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+        private long readTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+        private long writeTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+        private final Map<String, Long> methodTimeouts = new HashMap<>();
+        private RpcRecorder recorder;
+
+        private Builder() {
+            methodTimeouts.put("eth_getLogs", TimeUnit.MINUTES.toMillis(2));
+            methodTimeouts.put("eth_getBlockReceipts", TimeUnit.MINUTES.toMillis(1));
+        }
+
+        public Builder connectionPool(int maxIdleConnections, long keepAlive, TimeUnit unit) {
+            if (maxIdleConnections < 1) {
+                throw new IllegalArgumentException("the connection pool must keep at least 1 connection");
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveMillis = unit.toMillis(keepAlive);
+            return this;
+        }
+
+        /**
+         * the limits of the OkHttp dispatcher, used by the async calls
+         */
+        public Builder maxRequests(int maxRequests, int maxRequestsPerHost) {
+            if (maxRequests < 1 || maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException("the max number of requests must be at least 1");
+            }
+            this.maxRequests = maxRequests;
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * asks for gzip or deflate responses and decompresses them
+         */
+        public Builder compression(boolean value) {
+            this.compression = value;
+            return this;
+        }
+
+        /**
+         * offers HTTP/2 during the TLS handshake, plain http always uses HTTP/1.1
+         */
+        public Builder http2(boolean value) {
+            this.http2 = value;
+            return this;
+        }
+
+        public Builder timeouts(long connect, long read, long write, TimeUnit unit) {
+            this.connectTimeoutMillis = unit.toMillis(connect);
+            this.readTimeoutMillis = unit.toMillis(read);
+            this.writeTimeoutMillis = unit.toMillis(write);
+            return this;
+        }
+
+        public Builder methodTimeout(String method, long readTimeout, TimeUnit unit) {
+            this.methodTimeouts.put(method, unit.toMillis(readTimeout));
+            return this;
+        }
+
+        /**
+         * records every exchange with the node, closing the recorder is left to the caller
+         */
+        public Builder record(RpcRecorder recorder) {
+            this.recorder = recorder;
+            return this;
+        }
+
+        public HttpTransportConfig build() {
+            return new HttpTransportConfig(maxIdleConnections, keepAliveMillis, maxRequests, maxRequestsPerHost, compression, http2,
+                    connectTimeoutMillis, readTimeoutMillis, writeTimeoutMillis, Collections.unmodifiableMap(new HashMap<>(methodTimeouts)), recorder);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class InstrumentedRpcService implements Web3jService, JsonRpcBatchService {
+    static final String IO_ERROR = "io";
+
+    private final Web3jService delegate;
+    private final RpcMetrics metrics;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public InstrumentedRpcService(Web3jService delegate, RpcMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        metrics.gauge("rpc.in_flight", inFlight::get);
+    }
+
+    /**
+     * the service doing the actual transport, to check what it supports (subscriptions, batches)
+     */
+    public static Web3jService unwrap(Web3jService service) {
+        if (service instanceof InstrumentedRpcService) {
+            return unwrap(((InstrumentedRpcService) service).delegate);
+        }
+        if (service instanceof RateLimitedRpcService) {
+            return unwrap(((RateLimitedRpcService) service).getDelegate());
+        }
+        return service;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            T response = delegate.send(request, responseType);
+            metrics.rpcCall(request.getMethod(), System.nanoTime() - start, errorCode(response));
+            return response;
+        } catch (IOException | RuntimeException e) {
+            metrics.rpcCall(request.getMethod(), System.nanoTime() - start, IO_ERROR);
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        return delegate.sendAsync(request, responseType).whenComplete((response, error) -> {
+            inFlight.decrementAndGet();
+            metrics.rpcCall(request.getMethod(), System.nanoTime() - start, error != null ? IO_ERROR : errorCode(response));
+        });
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+        if (!(delegate instanceof JsonRpcBatchService)) {
+            List<T> responses = new ArrayList<>(requests.size());
+            for (Request<?, T> request : requests) {
+                responses.add(send(request, responseType));
+            }
+            return responses;
+        }
+
+        inFlight.addAndGet(requests.size());
+        long start = System.nanoTime();
+        try {
+            List<T> responses = ((JsonRpcBatchService) delegate).sendBatch(requests, responseType);
+            long duration = System.nanoTime() - start;
+            for (int i = 0; i < requests.size(); i++) {
+                metrics.rpcCall(requests.get(i).getMethod(), duration, i < responses.size() ? errorCode(responses.get(i)) : IO_ERROR);
+            }
+            return responses;
+        } catch (IOException | RuntimeException e) {
+            long duration = System.nanoTime() - start;
+            requests.forEach(request -> metrics.rpcCall(request.getMethod(), duration, IO_ERROR));
+            throw e;
+        } finally {
+            inFlight.addAndGet(-requests.size());
+        }
+    }
+
+    private static String errorCode(Response response) {
+        return response != null && response.hasError() ? String.valueOf(response.getError().getCode()) : null;
+    }
+}
@@ -0,0 +1,14 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public interface JsonRpcBatchService {
+    <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException;
+}
@@ -0,0 +1,88 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.EthFilter;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class LogFilter {
+    private final Set<EthAddress> addresses;
+    private final List<List<EthData>> topics;
+
+    private LogFilter(Set<EthAddress> addresses, List<List<EthData>> topics) {
+        this.addresses = Collections.unmodifiableSet(addresses);
+        this.topics = Collections.unmodifiableList(topics);
+    }
+
+    public static LogFilter forAddresses(EthAddress... addresses) {
+        return new LogFilter(new LinkedHashSet<>(Arrays.asList(addresses)), Collections.emptyList());
+    }
+
+    public static LogFilter anyAddress() {
+        return new LogFilter(Collections.emptySet(), Collections.emptyList());
+    }
+
+    public LogFilter withEventSignature(EthData... signatures) {
+        return withTopic(0, signatures);
+    }
+
+    public LogFilter withTopic(int position, EthData... values) {
+        List<List<EthData>> newTopics = new ArrayList<>(topics);
+        while (newTopics.size() <= position) {
+            newTopics.add(Collections.emptyList());
+        }
+        newTopics.set(position, Collections.unmodifiableList(Arrays.asList(values)));
+        return new LogFilter(new LinkedHashSet<>(addresses), newTopics);
+    }
+
+    public Set<EthAddress> getAddresses() {
+        return addresses;
+    }
+
+    public List<List<EthData>> getTopics() {
+        return topics;
+    }
+
+    Map<String, Object> toSubscriptionParams() {
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (!addresses.isEmpty()) {
+            params.put("address", addresses.stream().map(EthAddress::withLeading0x).collect(Collectors.toList()));
+        }
+        if (!topics.isEmpty()) {
+            params.put("topics", topics.stream().map(values -> {
+                if (values.isEmpty()) {
+                    return null;
+                }
+                return values.size() == 1 ? values.get(0).withLeading0x() : values.stream().map(EthData::withLeading0x).collect(Collectors.toList());
+            }).collect(Collectors.toList()));
+        }
+        return params;
+    }
+
+    EthFilter toEthFilter(DefaultBlockParameter from, DefaultBlockParameter to) {
+        EthFilter filter = new EthFilter(from, to, addresses.stream().map(EthAddress::withLeading0x).collect(Collectors.toList()));
+        for (List<EthData> values : topics) {
+            if (values.isEmpty()) {
+                filter.addNullTopic();
+            } else if (values.size() == 1) {
+                filter.addSingleTopic(values.get(0).withLeading0x());
+            } else {
+                filter.addOptionalTopics(values.stream().map(EthData::withLeading0x).toArray(String[]::new));
+            }
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,144 @@
+package org.adridadou.ethereum.rpc;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.Log;
+import rx.Observable;
+import rx.Subscriber;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class LogPoller {
+    private static final Logger logger = LoggerFactory.getLogger(LogPoller.class);
+
+    private final Web3JFacade web3JFacade;
+    private final long pollingFrequence;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "web3j-log-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LogPoller(Web3JFacade web3JFacade, long pollingFrequence) {
+        this.web3JFacade = web3JFacade;
+        this.pollingFrequence = pollingFrequence;
+    }
+
+    public Observable<Log> observe(LogFilter filter) {
+        return Observable.create(subscriber -> {
+            FilterPolling polling = new FilterPolling(filter, subscriber);
+            subscriber.add(Subscriptions.create(polling::stop));
+            polling.start();
+        });
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * geth and besu answer "filter not found", parity and nethermind "filter does not exist"
+     */
+    static boolean isFilterNotFound(EthereumApiException e) {
+        String message = e.getMessage() == null ? "" : e.getMessage().toLowerCase();
+        return e.getCause() == null && message.contains("filter") && (message.contains("not found") || message.contains("does not exist"));
+    }
+
+    private class FilterPolling {
+        private final LogFilter filter;
+        private final Subscriber<? super Log> subscriber;
+        private BigInteger filterId;
+        private BigInteger lastSeenBlock;
+        private ScheduledFuture<?> task;
+
+        private FilterPolling(LogFilter filter, Subscriber<? super Log> subscriber) {
+            this.filter = filter;
+            this.subscriber = subscriber;
+        }
+
+        private synchronized void start() {
+            lastSeenBlock = BigInteger.valueOf(web3JFacade.getCurrentBlockNumber());
+            filterId = web3JFacade.newFilter(filter.toEthFilter(DefaultBlockParameterName.LATEST, DefaultBlockParameterName.LATEST));
+            task = scheduler.scheduleWithFixedDelay(this::poll, pollingFrequence, pollingFrequence, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void stop() {
+            if (task != null) {
+                task.cancel(false);
+            }
+            if (filterId == null) {
+                return;
+            }
+            try {
+                web3JFacade.uninstallFilter(filterId);
+            } catch (Throwable e) {
+                logger.debug("error while uninstalling log filter", e);
+            }
+        }
+
+        private synchronized void poll() {
+            if (subscriber.isUnsubscribed()) {
+                return;
+            }
+            if (filterId == null) {
+                recreate();
+                return;
+            }
+            try {
+                emit(web3JFacade.getFilterChanges(filterId));
+            } catch (EthereumApiException e) {
+                if (!isFilterNotFound(e)) {
+                    logger.warn("error while polling logs", e);
+                    return;
+                }
+                logger.info("log filter " + filterId + " is gone, recreating it");
+                filterId = null;
+                recreate();
+            } catch (Throwable e) {
+                logger.warn("error while polling logs", e);
+            }
+        }
+
+        /**
+         * on failure, the filter is recreated on the next poll
+         */
+        private void recreate() {
+            BigInteger created = null;
+            try {
+                created = web3JFacade.newFilter(filter.toEthFilter(DefaultBlockParameterName.LATEST, DefaultBlockParameterName.LATEST));
+                emit(web3JFacade.getLogs(filter.toEthFilter(DefaultBlockParameter.valueOf(lastSeenBlock), DefaultBlockParameterName.LATEST)));
+                filterId = created;
+            } catch (Throwable e) {
+                logger.warn("error while recreating the log filter, retrying on the next poll", e);
+                if (created != null) {
+                    try {
+                        web3JFacade.uninstallFilter(created);
+                    } catch (Throwable uninstallError) {
+                        logger.debug("error while uninstalling log filter", uninstallError);
+                    }
+                }
+            }
+        }
+
+        private void emit(List<Log> logs) {
+            for (Log log : logs) {
+                if (!log.isRemoved()) {
+                    lastSeenBlock = log.getBlockNumber();
+                    subscriber.onNext(log);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class LruCache<K, V> {
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    public LruCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized Optional<V> get(K key) {
+        return Optional.ofNullable(entries.get(key)).map(entry -> entry.value);
+    }
+
+    public synchronized void put(K key, V value, long bytes) {
+        if (maxEntries <= 0 || bytes > maxBytes) {
+            //the value is not cached, the previous one is stale
+            Entry<V> previous = entries.remove(key);
+            if (previous != null) {
+                currentBytes -= previous.bytes;
+            }
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, bytes));
+        if (previous != null) {
+            currentBytes -= previous.bytes;
+        }
+        currentBytes += bytes;
+        evict();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long sizeInBytes() {
+        return currentBytes;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext() && (entries.size() > maxEntries || currentBytes > maxBytes)) {
+            currentBytes -= it.next().getValue().bytes;
+            it.remove();
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long bytes;
+
+        private Entry(V value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
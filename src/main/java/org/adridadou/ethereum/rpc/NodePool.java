@@ -0,0 +1,329 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class NodePool implements Web3jService, JsonRpcBatchService, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(NodePool.class);
+    //filters live on the node that created them
+    private static final Set<String> PINNED_METHODS = new HashSet<>(Arrays.asList("eth_sendRawTransaction", "eth_sendTransaction",
+            "eth_newFilter", "eth_newBlockFilter", "eth_newPendingTransactionFilter", "eth_getFilterChanges", "eth_getFilterLogs", "eth_uninstallFilter"));
+    //the pending nonce only counts the pending transactions the primary has seen, which are the ones sent through it
+    private static final String PENDING_NONCE_METHOD = "eth_getTransactionCount";
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final List<Node> nodes;
+    private final Node primary;
+    private final long maxBlockLag;
+    private final int failureThreshold;
+    private final long cooldown;
+    private final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "web3j-node-pool-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService asyncExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "web3j-node-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private NodePool(Builder builder) {
+        if (builder.services.isEmpty()) {
+            throw new IllegalArgumentException("a node pool needs at least one node");
+        }
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < builder.services.size(); i++) {
+            nodes.add(new Node(builder.names.get(i), builder.services.get(i)));
+        }
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.primary = nodes.get(builder.primaryIndex);
+        this.maxBlockLag = builder.maxBlockLag;
+        this.failureThreshold = builder.failureThreshold;
+        this.cooldown = builder.cooldown;
+        if (builder.healthCheckInterval > 0) {
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, builder.healthCheckInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (isPinned(request)) {
+            return primary.call(() -> primary.service.send(request, responseType));
+        }
+
+        IOException lastError = null;
+        for (Node node : candidates()) {
+            try {
+                return node.call(() -> node.service.send(request, responseType));
+            } catch (IOException e) {
+                logger.debug("call " + request.getMethod() + " failed on " + node.name + ", trying the next node", e);
+                lastError = e;
+            }
+        }
+        throw lastError;
+    }
+
+    private static boolean isPinned(Request<?, ?> request) {
+        return PINNED_METHODS.contains(request.getMethod())
+                || PENDING_NONCE_METHOD.equals(request.getMethod()) && request.getParams().contains(DefaultBlockParameterName.PENDING.getValue());
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(request, responseType);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, asyncExecutor);
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+        boolean pinned = requests.stream().anyMatch(NodePool::isPinned);
+        IOException lastError = null;
+        for (Node node : pinned ? Collections.singletonList(primary) : candidates()) {
+            try {
+                return node.call(() -> {
+                    if (node.service instanceof JsonRpcBatchService) {
+                        return ((JsonRpcBatchService) node.service).sendBatch(requests, responseType);
+                    }
+                    List<T> responses = new ArrayList<>(requests.size());
+                    for (Request<?, T> request : requests) {
+                        responses.add(node.service.send(request, responseType));
+                    }
+                    return responses;
+                });
+            } catch (IOException e) {
+                logger.debug("batch failed on " + node.name + ", trying the next node", e);
+                lastError = e;
+            }
+        }
+        throw lastError;
+    }
+
+    public List<NodeStatus> getStatus() {
+        return nodes.stream().map(Node::status).collect(Collectors.toList());
+    }
+
+    /**
+     * closes the nodes as well
+     */
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        asyncExecutor.shutdownNow();
+        for (Node node : nodes) {
+            Web3jService transport = InstrumentedRpcService.unwrap(node.service);
+            if (transport instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) transport).close();
+                } catch (Exception e) {
+                    logger.warn("error while closing " + node.name, e);
+                }
+            }
+        }
+    }
+
+    List<Node> candidates() {
+        long now = System.currentTimeMillis();
+        Comparator<Node> byScore = Comparator.comparingDouble(Node::score);
+        List<Node> healthy = nodes.stream()
+                .filter(node -> node.isAvailable(now) && !node.lagging)
+                .sorted(byScore)
+                .collect(Collectors.toList());
+        //when nothing is healthy, still try every node rather than failing right away
+        List<Node> others = nodes.stream()
+                .filter(node -> !healthy.contains(node))
+                .sorted(byScore)
+                .collect(Collectors.toList());
+        healthy.addAll(others);
+        return healthy;
+    }
+
+    void checkHealth() {
+        long maxHeight = -1;
+        for (Node node : nodes) {
+            try {
+                EthBlockNumber response = node.call(() -> node.service.send(new Request<>("eth_blockNumber", Collections.emptyList(), node.service, EthBlockNumber.class), EthBlockNumber.class));
+                if (!response.hasError()) {
+                    node.blockHeight = response.getBlockNumber().longValue();
+                    maxHeight = Math.max(maxHeight, node.blockHeight);
+                }
+            } catch (Throwable e) {
+                logger.debug("health check failed for " + node.name, e);
+            }
+        }
+
+        for (Node node : nodes) {
+            boolean lagging = maxHeight - node.blockHeight > maxBlockLag;
+            if (lagging != node.lagging) {
+                logger.info(node.name + (lagging ? " is lagging behind (" + node.blockHeight + " vs " + maxHeight + ")" : " caught up"));
+            }
+            node.lagging = lagging;
+        }
+    }
+
+    private interface Call<T> {
+        T call() throws IOException;
+    }
+
+    final class Node {
+        private final String name;
+        private final Web3jService service;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private double latency;
+        private int consecutiveFailures;
+        private long openUntil;
+        private volatile long blockHeight = -1;
+        private volatile boolean lagging;
+
+        private Node(String name, Web3jService service) {
+            this.name = name;
+            this.service = service;
+        }
+
+        private <T> T call(Call<T> call) throws IOException {
+            inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                T result = call.call();
+                onSuccess(System.nanoTime() - start);
+                return result;
+            } catch (IOException | RuntimeException e) {
+                onFailure();
+                throw e;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private synchronized void onSuccess(long nanos) {
+            double millis = nanos / 1_000_000.0;
+            latency = latency == 0 ? millis : latency + EWMA_WEIGHT * (millis - latency);
+            consecutiveFailures = 0;
+        }
+
+        private synchronized void onFailure() {
+            consecutiveFailures++;
+            if (consecutiveFailures >= failureThreshold) {
+                openUntil = System.currentTimeMillis() + cooldown;
+                logger.warn(name + " failed " + consecutiveFailures + " times in a row, skipping it for " + cooldown + "ms");
+            }
+        }
+
+        private synchronized boolean isAvailable(long now) {
+            return now >= openUntil;
+        }
+
+        private synchronized double score() {
+            return (latency == 0 ? 1 : latency) * (inFlight.get() + 1);
+        }
+
+        private synchronized NodeStatus status() {
+            return new NodeStatus(name, latency, inFlight.get(), blockHeight, lagging, System.currentTimeMillis() < openUntil);
+        }
+    }
+
+    public static final class NodeStatus {
+        public final String name;
+        public final double latencyMillis;
+        public final int inFlight;
+        public final long blockHeight;
+        public final boolean lagging;
+        public final boolean circuitOpen;
+
+        NodeStatus(String name, double latencyMillis, int inFlight, long blockHeight, boolean lagging, boolean circuitOpen) {
+            this.name = name;
+            this.latencyMillis = latencyMillis;
+            this.inFlight = inFlight;
+            this.blockHeight = blockHeight;
+            this.lagging = lagging;
+            this.circuitOpen = circuitOpen;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{latency=" + latencyMillis + "ms, inFlight=" + inFlight + ", block=" + blockHeight + ", lagging=" + lagging + ", circuitOpen=" + circuitOpen + "}";
+        }
+    }
+
+    public static class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<Web3jService> services = new ArrayList<>();
+        private int primaryIndex = 0;
+        private long maxBlockLag = 3;
+        private long healthCheckInterval = 5_000;
+        private int failureThreshold = 3;
+        private long cooldown = 10_000;
+
+        public Builder node(String name, Web3jService service) {
+            names.add(name);
+            services.add(service);
+            return this;
+        }
+
+        public Builder primary(String name) {
+            int index = names.indexOf(name);
+            if (index < 0) {
+                throw new IllegalArgumentException("unknown node " + name);
+            }
+            this.primaryIndex = index;
+            return this;
+        }
+
+        public Builder maxBlockLag(long blocks) {
+            this.maxBlockLag = blocks;
+            return this;
+        }
+
+        /**
+         * 0 disables the health check
+         */
+        public Builder healthCheckInterval(long amount, TimeUnit unit) {
+            this.healthCheckInterval = unit.toMillis(amount);
+            return this;
+        }
+
+        public Builder circuitBreaker(int failureThreshold, long cooldown, TimeUnit unit) {
+            this.failureThreshold = failureThreshold;
+            this.cooldown = unit.toMillis(cooldown);
+            return this;
+        }
+
+        public NodePool build() {
+            return new NodePool(this);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.adridadou.ethereum.rpc;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.Nonce;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class NonceManager {
+    private final Function<EthAddress, BigInteger> pendingCount;
+    private final Map<EthAddress, AccountNonces> accounts = new ConcurrentHashMap<>();
+
+    public NonceManager(Function<EthAddress, BigInteger> pendingCount) {
+        this.pendingCount = pendingCount;
+    }
+
+    public Nonce allocate(EthAddress address) {
+        return new Nonce(account(address).allocate());
+    }
+
+    public Nonce next(EthAddress address) {
+        return new Nonce(account(address).next());
+    }
+
+    public void release(EthAddress address, Nonce nonce) {
+        account(address).release(nonce.getValue());
+    }
+
+    /**
+     * takes a nonce chosen by the caller, returns false when it is neither the local next nonce nor a released one,
+     * e.g. to replace a pending transaction
+     */
+    public boolean claim(EthAddress address, Nonce nonce) {
+        return account(address).claim(nonce.getValue());
+    }
+
+    /**
+     * never goes back below a nonce already handed out, its transaction may still be on its way to the node
+     */
+    public void resync(EthAddress address) {
+        account(address).reset(pendingCount.apply(address));
+    }
+
+    static boolean isNonceConflict(String message) {
+        if (message == null) {
+            return false;
+        }
+        String lowerCase = message.toLowerCase();
+        return lowerCase.contains("nonce too low")
+                || lowerCase.contains("replacement transaction underpriced");
+    }
+
+    /**
+     * the same signed transaction is already in the pool of the node
+     */
+    static boolean isAlreadyKnown(String message) {
+        if (message == null) {
+            return false;
+        }
+        String lowerCase = message.toLowerCase();
+        return lowerCase.contains("already known") || lowerCase.contains("known transaction");
+    }
+
+    private AccountNonces account(EthAddress address) {
+        return accounts.computeIfAbsent(address, key -> new AccountNonces(pendingCount.apply(key)));
+    }
+
+    private static final class AccountNonces {
+        private final TreeSet<BigInteger> released = new TreeSet<>();
+        private BigInteger next;
+
+        private AccountNonces(BigInteger next) {
+            this.next = next;
+        }
+
+        private synchronized BigInteger allocate() {
+            if (!released.isEmpty()) {
+                return released.pollFirst();
+            }
+            BigInteger nonce = next;
+            next = next.add(BigInteger.ONE);
+            return nonce;
+        }
+
+        private synchronized boolean claim(BigInteger nonce) {
+            if (released.remove(nonce)) {
+                return true;
+            }
+            if (!nonce.equals(next)) {
+                return false;
+            }
+            next = next.add(BigInteger.ONE);
+            return true;
+        }
+
+        private synchronized BigInteger next() {
+            return released.isEmpty() ? next : released.first();
+        }
+
+        private synchronized void release(BigInteger nonce) {
+            if (nonce.compareTo(next) < 0) {
+                released.add(nonce);
+            }
+        }
+
+        private synchronized void reset(BigInteger pending) {
+            released.headSet(pending).clear();
+            next = next.max(pending);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.adridadou.ethereum.rpc;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public enum OverflowPolicy {
+    BLOCK, DROP_OLDEST, FAIL
+}
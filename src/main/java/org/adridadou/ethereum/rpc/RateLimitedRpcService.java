@@ -0,0 +1,210 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class RateLimitedRpcService implements Web3jService, JsonRpcBatchService {
+    private static final int MAX_RETRIES = 3;
+    private static final int TOO_MANY_REQUESTS = 429;
+    //Infura also uses it for "query returned more than 10000 results", it is only a rate limit with a rate limit message
+    private static final int LIMIT_EXCEEDED = -32005;
+    private static final Pattern HTTP_TOO_MANY_REQUESTS = Pattern.compile("\\b429\\b");
+    private static final Executor RETRY_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "web3j-rate-limit-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Web3jService delegate;
+    private final RateLimiter limiter;
+    private final RpcMetrics metrics;
+
+    public RateLimitedRpcService(Web3jService delegate, RateLimiter limiter, RpcMetrics metrics) {
+        this(delegate, limiter, metrics, "rpc.rate_limit.rate");
+    }
+
+    public RateLimitedRpcService(Web3jService delegate, RateLimiter limiter, RpcMetrics metrics, String rateGauge) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.metrics = metrics;
+        metrics.gauge(rateGauge, limiter::getRate);
+    }
+
+    Web3jService getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        String method = request.getMethod();
+        for (int attempt = 0; ; attempt++) {
+            acquire(limiter.weight(method), limiter.priority(method));
+            T response;
+            try {
+                response = delegate.send(request, responseType);
+            } catch (IOException e) {
+                if (!isRateLimited(e)) {
+                    throw e;
+                }
+                onRateLimited(method);
+                if (attempt < MAX_RETRIES) {
+                    continue;
+                }
+                throw e;
+            }
+            if (!isRateLimited(response)) {
+                limiter.onSuccess();
+                return response;
+            }
+            onRateLimited(method);
+            if (attempt >= MAX_RETRIES) {
+                return response;
+            }
+        }
+    }
+
+    /**
+     * waits for the credits on the calling thread, then sends the call asynchronously.
+     * A rejected call waits for the credits of its retry on the retry thread
+     */
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        String method = request.getMethod();
+        try {
+            acquire(limiter.weight(method), limiter.priority(method));
+        } catch (IOException e) {
+            return failed(e);
+        }
+        return sendAsync(request, responseType, 0);
+    }
+
+    private <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType, int attempt) {
+        String method = request.getMethod();
+        return delegate.sendAsync(request, responseType).handle((response, error) -> {
+            Throwable cause = error == null ? null : Futures.unwrap(error);
+            if (cause == null ? !isRateLimited(response) : !isRateLimited(cause)) {
+                if (cause == null) {
+                    limiter.onSuccess();
+                }
+                return cause == null ? CompletableFuture.completedFuture(response) : RateLimitedRpcService.<T>failed(cause);
+            }
+            onRateLimited(method);
+            if (attempt >= MAX_RETRIES) {
+                return cause == null ? CompletableFuture.completedFuture(response) : RateLimitedRpcService.<T>failed(cause);
+            }
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    acquire(limiter.weight(method), limiter.priority(method));
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, RETRY_EXECUTOR).thenCompose(ignored -> sendAsync(request, responseType, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(error);
+        return result;
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+        if (!(delegate instanceof JsonRpcBatchService)) {
+            List<T> responses = new ArrayList<>(requests.size());
+            for (Request<?, T> request : requests) {
+                responses.add(send(request, responseType));
+            }
+            return responses;
+        }
+
+        int cost = 0;
+        RateLimiter.Priority priority = RateLimiter.Priority.LOW;
+        for (Request<?, T> request : requests) {
+            cost += limiter.weight(request.getMethod());
+            RateLimiter.Priority requestPriority = limiter.priority(request.getMethod());
+            if (requestPriority.ordinal() < priority.ordinal()) {
+                priority = requestPriority;
+            }
+        }
+
+        String method = "batch";
+        for (int attempt = 0; ; attempt++) {
+            acquire(cost, priority);
+            try {
+                List<T> responses = ((JsonRpcBatchService) delegate).sendBatch(requests, responseType);
+                //the calls rejected inside an answered batch are returned as they are
+                if (responses.stream().anyMatch(RateLimitedRpcService::isRateLimited)) {
+                    onRateLimited(method);
+                } else {
+                    limiter.onSuccess();
+                }
+                return responses;
+            } catch (IOException e) {
+                if (!isRateLimited(e)) {
+                    throw e;
+                }
+                onRateLimited(method);
+                if (attempt >= MAX_RETRIES) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void acquire(double cost, RateLimiter.Priority priority) throws IOException {
+        try {
+            limiter.acquire(cost, priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the rate limiter");
+        }
+    }
+
+    private void onRateLimited(String method) {
+        limiter.onRateLimited();
+        metrics.rateLimited(method);
+    }
+
+    static boolean isRateLimited(Response response) {
+        if (response == null || !response.hasError()) {
+            return false;
+        }
+        int code = response.getError().getCode();
+        return code == TOO_MANY_REQUESTS || (code == LIMIT_EXCEEDED && isRateLimitMessage(response.getError().getMessage()));
+    }
+
+    static boolean isRateLimited(Throwable error) {
+        if (!(error instanceof IOException) || error.getMessage() == null) {
+            return false;
+        }
+        //web3j reports the http status as "Invalid response received: 429; ..."
+        return HTTP_TOO_MANY_REQUESTS.matcher(error.getMessage()).find();
+    }
+
+    private static boolean isRateLimitMessage(String message) {
+        if (message == null) {
+            return false;
+        }
+        String lowerCase = message.toLowerCase();
+        return lowerCase.contains("rate limit")
+                || lowerCase.contains("rate exceeded")
+                || lowerCase.contains("request count exceeded")
+                || lowerCase.contains("too many requests");
+    }
+}
@@ -0,0 +1,208 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class RateLimiter {
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    private static final ThreadLocal<Priority> threadPriority = new ThreadLocal<>();
+    private static final Set<String> HIGH_PRIORITY_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "eth_sendRawTransaction", "eth_sendTransaction", "eth_blockNumber")));
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private final double decreaseFactor;
+    private final double increaseStep;
+    private final Map<String, Integer> weights;
+    private final int[] waiting = new int[Priority.values().length];
+    private double rate;
+    private double credits;
+    private long lastRefill = System.nanoTime();
+    private long rateLimitedCount;
+
+    private RateLimiter(double maxRate, double minRate, double burst, double decreaseFactor, double increaseStep, Map<String, Integer> weights) {
+        this.maxRate = maxRate;
+        this.minRate = minRate;
+        this.burst = burst;
+        this.decreaseFactor = decreaseFactor;
+        this.increaseStep = increaseStep;
+        this.weights = weights;
+        this.rate = maxRate;
+        this.credits = burst;
+    }
+
+    public static Builder builder(double creditsPerSecond) {
+        return new Builder(creditsPerSecond);
+    }
+
+    /**
+     * runs the call with this priority for the rpc calls made on the current thread
+     */
+    public static <T> T withPriority(Priority priority, Supplier<T> call) {
+        Priority previous = threadPriority.get();
+        threadPriority.set(priority);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                threadPriority.remove();
+            } else {
+                threadPriority.set(previous);
+            }
+        }
+    }
+
+    /**
+     * a limiter with the same settings and its own credits, for another endpoint with its own quota
+     */
+    public RateLimiter copy() {
+        return new RateLimiter(maxRate, minRate, burst, decreaseFactor, increaseStep, weights);
+    }
+
+    public int weight(String method) {
+        return weights.getOrDefault(method, 1);
+    }
+
+    public Priority priority(String method) {
+        if (HIGH_PRIORITY_METHODS.contains(method)) {
+            return Priority.HIGH;
+        }
+        Priority priority = threadPriority.get();
+        return priority == null ? Priority.NORMAL : priority;
+    }
+
+    /**
+     * waits until the credits are available and no call of a higher priority is waiting.
+     * A call costing more than the burst goes through once the bucket is full and leaves it in debt
+     */
+    public synchronized void acquire(double cost, Priority priority) throws InterruptedException {
+        waiting[priority.ordinal()]++;
+        try {
+            while (true) {
+                refill();
+                if (!higherPriorityWaiting(priority) && credits >= Math.min(cost, burst)) {
+                    credits -= cost;
+                    return;
+                }
+                long waitNanos = credits >= Math.min(cost, burst)
+                        ? MAX_WAIT_NANOS
+                        : Math.min(MAX_WAIT_NANOS, (long) ((Math.min(cost, burst) - credits) / rate * 1_000_000_000L));
+                TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, waitNanos));
+            }
+        } finally {
+            waiting[priority.ordinal()]--;
+            notifyAll();
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (rate < maxRate) {
+            rate = Math.min(maxRate, rate + increaseStep);
+        }
+    }
+
+    /**
+     * the endpoint rejected a call, the rate is cut and the credits left are dropped
+     */
+    public synchronized void onRateLimited() {
+        refill();
+        rate = Math.max(minRate, rate * decreaseFactor);
+        credits = Math.min(credits, 0);
+        rateLimitedCount++;
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    public synchronized long getRateLimitedCount() {
+        return rateLimitedCount;
+    }
+
+    private boolean higherPriorityWaiting(Priority priority) {
+        for (int i = 0; i < priority.ordinal(); i++) {
+            if (waiting[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        credits = Math.min(burst, credits + (now - lastRefill) * rate / 1_000_000_000L);
+        lastRefill = now;
+    }
+
+    public static class Builder {
+        private final double creditsPerSecond;
+        private double burst;
+        private double minCreditsPerSecond;
+        private double decreaseFactor = 0.5;
+        private final Map<String, Integer> weights = new HashMap<>();
+
+        private Builder(double creditsPerSecond) {
+            if (creditsPerSecond <= 0) {
+                throw new IllegalArgumentException("the rate must be positive");
+            }
+            this.creditsPerSecond = creditsPerSecond;
+            this.burst = creditsPerSecond;
+            this.minCreditsPerSecond = creditsPerSecond / 20;
+            weights.put("eth_getLogs", 10);
+            weights.put("eth_getBlockReceipts", 10);
+            weights.put("eth_getBlockByNumber", 4);
+            weights.put("eth_getBlockByHash", 4);
+            weights.put("eth_getTransactionReceipt", 2);
+            weights.put("eth_call", 2);
+            weights.put("eth_estimateGas", 2);
+        }
+
+        public Builder burst(double credits) {
+            if (credits < 1) {
+                throw new IllegalArgumentException("the burst must be at least 1 credit");
+            }
+            this.burst = credits;
+            return this;
+        }
+
+        public Builder minCreditsPerSecond(double value) {
+            this.minCreditsPerSecond = value;
+            return this;
+        }
+
+        public Builder decreaseFactor(double value) {
+            if (value <= 0 || value >= 1) {
+                throw new IllegalArgumentException("the decrease factor must be between 0 and 1");
+            }
+            this.decreaseFactor = value;
+            return this;
+        }
+
+        /**
+         * the credits a call of this method costs, 1 for the methods without a weight
+         */
+        public Builder weight(String method, int credits) {
+            this.weights.put(method, credits);
+            return this;
+        }
+
+        public RateLimiter build() {
+            double minRate = Math.max(Double.MIN_VALUE, Math.min(minCreditsPerSecond, creditsPerSecond));
+            return new RateLimiter(creditsPerSecond, minRate, burst, decreaseFactor, creditsPerSecond / 100, new HashMap<>(weights));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.adridadou.ethereum.rpc;
+
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.adridadou.ethereum.propeller.values.GasPrice;
+import org.adridadou.ethereum.propeller.values.SmartContractByteCode;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class ReadCache {
+    private static final long UNKNOWN_BLOCK = -1;
+    private static final long ENTRY_OVERHEAD = 64;
+
+    private final boolean enabled;
+    private final LruCache<Key, Object> blockCache;
+    private final LruCache<EthAddress, SmartContractByteCode> codeCache;
+    private volatile long currentBlock = UNKNOWN_BLOCK;
+    private volatile BlockValue<GasPrice> gasPrice;
+
+    public ReadCache(int maxEntries, long maxBytes, int maxCodeEntries, long maxCodeBytes) {
+        this.enabled = maxEntries > 0;
+        this.blockCache = new LruCache<>(maxEntries, maxBytes);
+        this.codeCache = new LruCache<>(maxCodeEntries, maxCodeBytes);
+    }
+
+    public static ReadCache disabled() {
+        return new ReadCache(0, 0, 0, 0);
+    }
+
+    public void onNewBlock(long blockNumber) {
+        if (blockNumber != currentBlock) {
+            currentBlock = blockNumber;
+            blockCache.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T read(String method, EthAddress from, EthAddress address, EthData data, Function<DefaultBlockParameter, T> loader, ToLongFunction<T> weigher) {
+        long block = currentBlock;
+        if (!enabled || block == UNKNOWN_BLOCK) {
+            return loader.apply(DefaultBlockParameterName.LATEST);
+        }
+
+        Key key = new Key(method, from, address, data, block);
+        Optional<Object> cached = blockCache.get(key);
+        if (cached.isPresent()) {
+            return (T) cached.get();
+        }
+
+        T value = loader.apply(DefaultBlockParameter.valueOf(BigInteger.valueOf(block)));
+        if (value != null && block == currentBlock) {
+            blockCache.put(key, value, ENTRY_OVERHEAD + weigher.applyAsLong(value));
+        }
+        return value;
+    }
+
+    /**
+     * the gas price is cached per block even when the read cache is disabled, it only changes with new blocks
+     */
+    GasPrice gasPrice(Supplier<GasPrice> loader) {
+        long block = currentBlock;
+        BlockValue<GasPrice> cached = gasPrice;
+        if (block != UNKNOWN_BLOCK && cached != null && cached.blockNumber == block) {
+            return cached.value;
+        }
+        GasPrice value = loader.get();
+        gasPrice = new BlockValue<>(block, value);
+        return value;
+    }
+
+    SmartContractByteCode code(EthAddress address, Supplier<String> loader) {
+        Optional<SmartContractByteCode> cached = codeCache.get(address);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        String code = loader.get();
+        SmartContractByteCode byteCode = SmartContractByteCode.of(code);
+        //empty code can still become a contract, only deployed code is immutable
+        if (!byteCode.isEmpty()) {
+            codeCache.put(address, byteCode, ENTRY_OVERHEAD + code.length() / 2);
+        }
+        return byteCode;
+    }
+
+    private static final class BlockValue<T> {
+        private final long blockNumber;
+        private final T value;
+
+        private BlockValue(long blockNumber, T value) {
+            this.blockNumber = blockNumber;
+            this.value = value;
+        }
+    }
+
+    private static final class Key {
+        private final String method;
+        private final EthAddress from;
+        private final EthAddress address;
+        private final EthData data;
+        private final long blockNumber;
+
+        private Key(String method, EthAddress from, EthAddress address, EthData data, long blockNumber) {
+            this.method = method;
+            this.from = from;
+            this.address = address;
+            this.data = data;
+            this.blockNumber = blockNumber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return blockNumber == key.blockNumber &&
+                    Objects.equals(method, key.method) &&
+                    Objects.equals(from, key.from) &&
+                    Objects.equals(address, key.address) &&
+                    Objects.equals(data, key.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, from, address, data, blockNumber);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.propeller.values.EventData;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public final class ReceiptDecoder {
+    private ReceiptDecoder() {}
+
+    static DecodedReceipt readReceipt(JsonParser parser) throws IOException {
+        EthHash transactionHash = EthHash.empty();
+        EthHash blockHash = EthHash.empty();
+        EthAddress from = EthAddress.empty();
+        EthAddress to = EthAddress.empty();
+        EthAddress contractAddress = EthAddress.empty();
+        BigInteger gasUsed = BigInteger.ZERO;
+        Boolean status = null;
+        List<EventData> events = Collections.emptyList();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "transactionHash":
+                    transactionHash = ValueInterner.hash(text(parser));
+                    break;
+                case "blockHash":
+                    blockHash = ValueInterner.hash(text(parser));
+                    break;
+                case "from":
+                    from = ValueInterner.address(text(parser));
+                    break;
+                case "to":
+                    to = ValueInterner.address(text(parser));
+                    break;
+                case "contractAddress":
+                    contractAddress = ValueInterner.address(text(parser));
+                    break;
+                case "gasUsed":
+                    gasUsed = quantity(parser);
+                    break;
+                case "status":
+                    status = quantity(parser).signum() != 0;
+                    break;
+                case "logs":
+                    events = readLogs(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new DecodedReceipt(transactionHash, blockHash, from, to, contractAddress, gasUsed, status, events);
+    }
+
+    static List<DecodedReceipt> readReceipts(JsonParser parser) throws IOException {
+        List<DecodedReceipt> receipts = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                receipts.add(readReceipt(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return receipts;
+    }
+
+    static List<EventData> readLogs(JsonParser parser) throws IOException {
+        List<EventData> events = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                events.add(readLog(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return events;
+    }
+
+    static EventData readLog(JsonParser parser) throws IOException {
+        EthHash transactionHash = EthHash.empty();
+        EthData data = EthData.empty();
+        List<EthData> topics = Collections.emptyList();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "transactionHash":
+                    transactionHash = ValueInterner.hash(text(parser));
+                    break;
+                case "data":
+                    data = EthData.of(hexBytes(parser));
+                    break;
+                case "topics":
+                    topics = readTopics(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        //anonymous events have no signature topic
+        EthData signature = topics.isEmpty() ? EthData.empty() : topics.get(0);
+        List<EthData> indexed = topics.isEmpty() ? Collections.emptyList() : topics.subList(1, topics.size());
+        return new EventData(transactionHash, signature, data, indexed);
+    }
+
+    private static List<EthData> readTopics(JsonParser parser) throws IOException {
+        List<EthData> topics = new ArrayList<>(4);
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.VALUE_STRING) {
+                topics.add(ValueInterner.topic(text(parser)));
+            }
+        }
+        return topics;
+    }
+
+    static BigInteger quantity(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return BigInteger.valueOf(parser.getLongValue());
+        }
+        return new BigInteger(1, hexBytes(parser));
+    }
+
+    /**
+     * a view on the parser buffer, only valid until the next token
+     */
+    private static CharSequence text(JsonParser parser) throws IOException {
+        return CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    static byte[] hexBytes(JsonParser parser) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (length >= 2 && chars[offset] == '0' && (chars[offset + 1] == 'x' || chars[offset + 1] == 'X')) {
+            offset += 2;
+            length -= 2;
+        }
+
+        byte[] bytes = new byte[(length + 1) / 2];
+        int i = 0;
+        int j = 0;
+        if (length % 2 == 1) {
+            bytes[j++] = (byte) digit(chars[offset]);
+            i = 1;
+        }
+        for (; i < length; i += 2) {
+            bytes[j++] = (byte) ((digit(chars[offset + i]) << 4) | digit(chars[offset + i + 1]));
+        }
+        return bytes;
+    }
+
+    private static int digit(char c) throws IOException {
+        int digit = Character.digit(c, 16);
+        if (digit < 0) {
+            throw new IOException("invalid hex character '" + c + "'");
+        }
+        return digit;
+    }
+
+    public static final class ReceiptDeserializer extends JsonDeserializer<DecodedReceipt> {
+        @Override
+        public DecodedReceipt deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readReceipt(parser);
+        }
+    }
+
+    public static final class ReceiptListDeserializer extends JsonDeserializer<List<DecodedReceipt>> {
+        @Override
+        public List<DecodedReceipt> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readReceipts(parser);
+        }
+    }
+}
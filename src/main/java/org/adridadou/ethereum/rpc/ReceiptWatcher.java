@@ -0,0 +1,95 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.propeller.values.TransactionInfo;
+import org.adridadou.ethereum.propeller.values.TransactionReceipt;
+import org.adridadou.ethereum.propeller.values.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class ReceiptWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptWatcher.class);
+
+    private final Map<EthHash, CompletableFuture<TransactionInfo>> pending = new ConcurrentHashMap<>();
+    private final Lookup lookup;
+    private final AtomicBoolean lookupInFlight = new AtomicBoolean();
+
+    public ReceiptWatcher(Lookup lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * the future completes once the transaction is in an emitted block. Cancelling it stops watching the hash
+     */
+    public CompletableFuture<TransactionInfo> watch(EthHash hash) {
+        return pending.computeIfAbsent(hash, key -> {
+            CompletableFuture<TransactionInfo> future = new CompletableFuture<>();
+            future.whenComplete((info, error) -> pending.remove(key, future));
+            return future;
+        });
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    void onBlock(BlockInfo blockInfo) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (TransactionReceipt receipt : blockInfo.receipts) {
+            CompletableFuture<TransactionInfo> future = pending.get(receipt.hash);
+            if (future != null) {
+                future.complete(new TransactionInfo(receipt.hash, receipt, TransactionStatus.Executed, receipt.blockHash));
+            }
+        }
+
+        if (!pending.isEmpty() && lookupInFlight.compareAndSet(false, true)) {
+            List<EthHash> outstanding = new ArrayList<>(pending.keySet());
+            CompletableFuture<List<TransactionInfo>> result;
+            try {
+                result = lookup.lookup(outstanding, blockInfo.blockNumber);
+            } catch (RuntimeException e) {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(e);
+            }
+            result.whenComplete((infos, error) -> {
+                lookupInFlight.set(false);
+                if (error != null) {
+                    logger.warn("error while looking up " + outstanding.size() + " pending transaction(s)", Futures.unwrap(error));
+                    return;
+                }
+                infos.forEach(info -> {
+                    CompletableFuture<TransactionInfo> future = pending.get(info.getTransactionHash());
+                    if (future != null) {
+                        future.complete(info);
+                    }
+                });
+            });
+        }
+    }
+
+    void close() {
+        EthereumApiException error = new EthereumApiException("the receipt watcher is closed");
+        new ArrayList<>(pending.values()).forEach(future -> future.completeExceptionally(error));
+    }
+
+    public interface Lookup {
+        /**
+         * returns the transactions among the hashes that are mined in a block up to maxBlockNumber, in a single pass
+         */
+        CompletableFuture<List<TransactionInfo>> lookup(List<EthHash> hashes, long maxBlockNumber);
+    }
+}
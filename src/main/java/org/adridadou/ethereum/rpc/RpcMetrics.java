@@ -0,0 +1,47 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.function.Supplier;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public interface RpcMetrics {
+    RpcMetrics NOOP = new RpcMetrics() {};
+
+    /**
+     * a JSON-RPC call. The error code is null on success, the JSON-RPC error code when the node answered with an error
+     * and "io" when the transport failed
+     */
+    default void rpcCall(String method, long durationNanos, String errorCode) {}
+
+    /**
+     * registers a gauge that is read by the metrics library, e.g. the number of in-flight requests
+     */
+    default void gauge(String name, Supplier<Number> value) {}
+
+    /**
+     * a block handed to the event handlers. The lag is the number of blocks between the head and this block
+     */
+    default void blockProcessed(long blockNumber, int receipts, long lag) {}
+
+    default void blockPollingError(Throwable error) {}
+
+    /**
+     * a block could not be converted and was emitted without its receipts
+     */
+    default void conversionFallback(long blockNumber, Throwable error) {}
+
+    default void handlerDispatch(String handler, long durationNanos) {}
+
+    default void eventDropped(String handler) {}
+
+    /**
+     * a read that shared the in-flight call of an identical read instead of calling the node, see {@link SingleFlight}
+     */
+    default void requestCoalesced(String method) {}
+
+    /**
+     * the endpoint answered with a rate limit error, the method is "batch" for a whole batch
+     */
+    default void rateLimited(String method) {}
+}
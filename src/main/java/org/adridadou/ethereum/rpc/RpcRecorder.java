@@ -0,0 +1,163 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOError;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class RpcRecorder implements Interceptor, AutoCloseable {
+    private static final int MAGIC = 0x52504352;
+    private static final int VERSION = 1;
+
+    private final DataOutputStream out;
+    private final long start = System.nanoTime();
+    private boolean closed;
+
+    private RpcRecorder(DataOutputStream out) {
+        this.out = out;
+    }
+
+    public static RpcRecorder open(Path file) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            return new RpcRecorder(out);
+        } catch (IOException e) {
+            throw new IOError(e);
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        byte[] requestBytes = new byte[0];
+        if (request.body() != null) {
+            Buffer buffer = new Buffer();
+            request.body().writeTo(buffer);
+            requestBytes = buffer.readByteArray();
+        }
+
+        long callStart = System.nanoTime();
+        Response response = chain.proceed(request);
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        byte[] responseBytes = body.bytes();
+        write(callStart - start, System.nanoTime() - callStart, requestBytes, responseBytes);
+        return response.newBuilder().body(ResponseBody.create(body.contentType(), responseBytes)).build();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new IOError(e);
+        }
+    }
+
+    /**
+     * a recording that was not closed, e.g. because the process was killed, is read up to its last complete exchange
+     */
+    public static List<Exchange> read(Path file) {
+        List<Exchange> exchanges = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not an rpc recording");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("unsupported rpc recording version " + version);
+            }
+
+            while (true) {
+                long offsetNanos = in.readLong();
+                long durationNanos = in.readLong();
+                String request = readString(in);
+                String response = readString(in);
+                exchanges.add(new Exchange(offsetNanos, durationNanos, request, response));
+            }
+        } catch (EOFException e) {
+            //the end of the recording, or the cut end of a recording that was not closed
+            return exchanges;
+        } catch (IOException e) {
+            throw new IOError(e);
+        }
+    }
+
+    private synchronized void write(long offsetNanos, long durationNanos, byte[] request, byte[] response) throws IOException {
+        if (closed) {
+            return;
+        }
+        out.writeLong(offsetNanos);
+        out.writeLong(durationNanos);
+        out.writeInt(request.length);
+        out.write(request);
+        out.writeInt(response.length);
+        out.write(response);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static final class Exchange {
+        private final long offsetNanos;
+        private final long durationNanos;
+        private final String request;
+        private final String response;
+
+        Exchange(long offsetNanos, long durationNanos, String request, String response) {
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+            this.request = request;
+            this.response = response;
+        }
+
+        /**
+         * when the request was sent, from the start of the recording
+         */
+        public long getOffsetNanos() {
+            return offsetNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public String getRequest() {
+            return request;
+        }
+
+        public String getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class RpcRequestExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(RpcRequestExecutor.class);
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    private static final ThreadLocal<RpcRequestExecutor> runningOn = new ThreadLocal<>();
+
+    private final Executor executor;
+    private final int maxInFlight;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public RpcRequestExecutor(Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public static RpcRequestExecutor create() {
+        return new RpcRequestExecutor(defaultExecutor(), DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * shared by all the facades, the limit on the calls in flight is per RpcRequestExecutor
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Uses a virtual-thread-per-task executor when the JDK provides one (Java 21+).
+     * Looked up reflectively so the library keeps running on Java 8.
+     */
+    static Optional<Executor> virtualThreadExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * a call submitted from a call running on this executor runs right away on the same thread,
+     * waiting for a free slot while holding one could wait forever
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (runningOn.get() == this) {
+            try {
+                result.complete(call.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+        pending.add(() -> run(call, result));
+        drain();
+        return result;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return pending.size();
+    }
+
+    private <T> void run(Callable<T> call, CompletableFuture<T> result) {
+        RpcRequestExecutor previous = runningOn.get();
+        runningOn.set(this);
+        try {
+            result.complete(call.call());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        } finally {
+            runningOn.set(previous);
+            inFlight.decrementAndGet();
+            drain();
+        }
+    }
+
+    private void drain() {
+        while (!pending.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable task = pending.poll();
+            if (task == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                logger.warn("rpc executor rejected a call, running it on the caller thread", e);
+                task.run();
+            }
+        }
+    }
+
+    private static final class DefaultExecutorHolder {
+        private static final Executor EXECUTOR = virtualThreadExecutor().orElseGet(() -> Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "web3j-rpc");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+}
@@ -0,0 +1,76 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class SingleFlight {
+    public static final Set<String> IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "eth_gasPrice", "eth_blockNumber", "eth_getTransactionCount", "eth_getBlockByNumber", "eth_getBlockByHash",
+            "eth_getBalance", "eth_getCode", "eth_call", "eth_getTransactionReceipt", "eth_getTransactionByHash")));
+    public static final Set<String> DEFAULT_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "eth_gasPrice", "eth_blockNumber", "eth_getTransactionCount", "eth_getBlockByNumber")));
+
+    private final Set<String> methods;
+    private final RpcMetrics metrics;
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlight(Set<String> methods, RpcMetrics metrics) {
+        checkMethods(methods);
+        this.methods = new HashSet<>(methods);
+        this.metrics = metrics;
+    }
+
+    public static SingleFlight disabled() {
+        return new SingleFlight(Collections.emptySet(), RpcMetrics.NOOP);
+    }
+
+    static void checkMethods(Set<String> methods) {
+        for (String method : methods) {
+            if (!IDEMPOTENT_METHODS.contains(method)) {
+                throw new IllegalArgumentException(method + " cannot be coalesced, only " + IDEMPOTENT_METHODS + " can");
+            }
+        }
+    }
+
+    /**
+     * the method and the arguments identify the read, the arguments need a proper equals
+     */
+    @SuppressWarnings("unchecked")
+    <T> T execute(String method, Supplier<T> call, Object... arguments) {
+        if (!methods.contains(method)) {
+            return call.get();
+        }
+
+        List<Object> key = new ArrayList<>(arguments.length + 1);
+        key.add(method);
+        key.addAll(Arrays.asList(arguments));
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            metrics.requestCoalesced(method);
+            return (T) Futures.join(existing);
+        }
+
+        try {
+            T value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+}
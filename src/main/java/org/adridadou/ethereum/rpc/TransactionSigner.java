@@ -0,0 +1,61 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.Optional;
+
+import org.adridadou.ethereum.propeller.values.ChainId;
+import org.adridadou.ethereum.propeller.values.EthAccount;
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.utils.Numeric;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class TransactionSigner {
+    private static final int CREDENTIALS_SIZE = 256;
+
+    private final byte chainId;
+    private final LruCache<EthAddress, Credentials> credentials;
+
+    public TransactionSigner(ChainId chainId, int maxAccounts) {
+        this.chainId = (byte) chainId.id;
+        this.credentials = new LruCache<>(maxAccounts, (long) maxAccounts * CREDENTIALS_SIZE);
+    }
+
+    public SignedTransaction sign(EthAccount account, RawTransaction transaction) {
+        byte[] signed = TransactionEncoder.signMessage(transaction, chainId, credentials(account));
+        return new SignedTransaction(signed);
+    }
+
+    private Credentials credentials(EthAccount account) {
+        EthAddress address = account.getAddress();
+        Optional<Credentials> cached = credentials.get(address);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Credentials created = Credentials.create(ECKeyPair.create(account.getBigIntPrivateKey()));
+        credentials.put(address, created, CREDENTIALS_SIZE);
+        return created;
+    }
+
+    public static final class SignedTransaction {
+        private final byte[] data;
+
+        private SignedTransaction(byte[] data) {
+            this.data = data;
+        }
+
+        public EthHash getHash() {
+            return EthHash.of(Hash.sha3(data));
+        }
+
+        public String toHex() {
+            return Numeric.toHexString(data);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.adridadou.ethereum.rpc;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.adridadou.ethereum.propeller.values.EthHash;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public final class ValueInterner {
+    private static final Pool<EthAddress> ADDRESSES = new Pool<>(20, 4_096, EthAddress::of, EthAddress::of);
+    private static final Pool<EthData> TOPICS = new Pool<>(32, 4_096, EthData::of, EthData::of);
+    private static final Pool<EthHash> HASHES = new Pool<>(32, 1_024, EthHash::of, EthHash::of);
+
+    private ValueInterner() {}
+
+    public static EthAddress address(CharSequence hex) {
+        return ADDRESSES.intern(hex);
+    }
+
+    public static EthAddress address(byte[] bytes) {
+        return ADDRESSES.intern(bytes);
+    }
+
+    public static EthData topic(CharSequence hex) {
+        return TOPICS.intern(hex);
+    }
+
+    public static EthData topic(byte[] bytes) {
+        return TOPICS.intern(bytes);
+    }
+
+    public static EthHash hash(CharSequence hex) {
+        return HASHES.intern(hex);
+    }
+
+    public static EthHash hash(byte[] bytes) {
+        return HASHES.intern(bytes);
+    }
+
+    /**
+     * the share of the lookups that returned an existing instance, over the three pools
+     */
+    public static double getHitRate() {
+        long lookups = ADDRESSES.lookups.sum() + TOPICS.lookups.sum() + HASHES.lookups.sum();
+        long hits = ADDRESSES.hits.sum() + TOPICS.hits.sum() + HASHES.hits.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    static final class Pool<T> {
+        private final int length;
+        private final Entry<T>[] slots;
+        private final int mask;
+        private final Function<byte[], T> fromBytes;
+        private final Function<String, T> fromString;
+        private final ThreadLocal<byte[]> buffer;
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+
+        @SuppressWarnings("unchecked")
+        Pool(int length, int size, Function<byte[], T> fromBytes, Function<String, T> fromString) {
+            this.length = length;
+            this.slots = new Entry[Integer.highestOneBit(size)];
+            this.mask = slots.length - 1;
+            this.fromBytes = fromBytes;
+            this.fromString = fromString;
+            this.buffer = ThreadLocal.withInitial(() -> new byte[length]);
+        }
+
+        T intern(CharSequence hex) {
+            if (hex == null) {
+                return fromString.apply(null);
+            }
+            int offset = hex.length() >= 2 && hex.charAt(0) == '0' && (hex.charAt(1) == 'x' || hex.charAt(1) == 'X') ? 2 : 0;
+            if (hex.length() - offset != length * 2) {
+                return fromString.apply(hex.toString());
+            }
+            byte[] bytes = buffer.get();
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) ((digit(hex.charAt(offset + 2 * i)) << 4) | digit(hex.charAt(offset + 2 * i + 1)));
+            }
+            return lookup(bytes);
+        }
+
+        T intern(byte[] bytes) {
+            if (bytes.length != length) {
+                return fromBytes.apply(bytes);
+            }
+            return lookup(bytes);
+        }
+
+        private T lookup(byte[] bytes) {
+            lookups.increment();
+            int hash = Arrays.hashCode(bytes);
+            int index = (hash ^ (hash >>> 16)) & mask;
+            Entry<T> entry = slots[index];
+            if (entry != null && entry.hash == hash && Arrays.equals(entry.bytes, bytes)) {
+                hits.increment();
+                return entry.value;
+            }
+            //the hex path passes its thread buffer and a caller may reuse its array, the entry keeps its own copy
+            byte[] key = bytes.clone();
+            T value = fromBytes.apply(key);
+            //entries are immutable, a racing write only loses one of the two values
+            slots[index] = new Entry<>(hash, key, value);
+            return value;
+        }
+
+        private static int digit(char c) {
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("invalid hex character '" + c + "'");
+            }
+            return digit;
+        }
+    }
+
+    private static final class Entry<T> {
+        private final int hash;
+        private final byte[] bytes;
+        private final T value;
+
+        private Entry(int hash, byte[] bytes, T value) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.value = value;
+        }
+    }
+}
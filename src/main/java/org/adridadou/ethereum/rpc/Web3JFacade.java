@@ -3,8 +3,19 @@ package org.adridadou.ethereum.rpc;
 import java.io.IOError;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.adridadou.ethereum.propeller.exception.EthereumApiException;
 import org.adridadou.ethereum.propeller.values.EthAccount;
@@ -20,10 +31,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.web3j.crypto.RawTransaction;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
 import org.web3j.protocol.core.*;
+import org.web3j.protocol.core.methods.request.EthFilter;
 import org.web3j.protocol.core.methods.request.Transaction;
 import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthCall;
 import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 
 import org.web3j.utils.Numeric;
@@ -36,60 +53,228 @@ import rx.Observable;
  */
 public class Web3JFacade {
     private static final BigInteger GAS_LIMIT_FOR_CONSTANT_CALLS = BigInteger.valueOf(1_000_000_000);
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final long BIG_INTEGER_SIZE = 48;
     private static final Logger logger = LoggerFactory.getLogger(Web3JFacade.class);
     private final Web3j web3j;
-    private BigInteger lastBlockNumber = BigInteger.ZERO;
-    private final Web3jBlockHandler blockEventHandler = new Web3jBlockHandler();
+    private final Web3jService web3jService;
+    private final Web3jService transport;
+    private final RpcRequestExecutor requestExecutor;
+    private final ReadCache readCache;
+    private BlockPoller blockPoller;
+    private Observable<EthBlock> blockObservable;
+    private Observable<EthBlock> newHeadsObservable;
+    private ExecutorService headExecutor;
+    private ExecutorService logExecutor;
+    private volatile boolean blockReceiptsSupported = true;
+    private volatile boolean fullTransactions = true;
+    private volatile CallAggregator callAggregator;
+    private volatile SingleFlight singleFlight = SingleFlight.disabled();
 
     public Web3JFacade(final Web3j web3j) {
+        this(web3j, null);
+    }
+
+    public Web3JFacade(final Web3j web3j, final Web3jService web3jService) {
+        this(web3j, web3jService, RpcRequestExecutor.create(), ReadCache.disabled());
+    }
+
+    public Web3JFacade(final Web3j web3j, final Web3jService web3jService, final RpcRequestExecutor requestExecutor, final ReadCache readCache) {
         this.web3j = web3j;
+        this.web3jService = web3jService;
+        this.transport = InstrumentedRpcService.unwrap(web3jService);
+        this.requestExecutor = requestExecutor;
+        this.readCache = readCache;
     }
 
     EthData constantCall(final EthAccount account, final EthAddress address, final EthData data) {
-        try {
-            return EthData.of(handleError(web3j.ethCall(new Transaction(
-                    account.getAddress().withLeading0x(),
-                    BigInteger.ZERO,
-                    BigInteger.ZERO,
-                    GAS_LIMIT_FOR_CONSTANT_CALLS,
-                    address.withLeading0x(),
-                    BigInteger.ZERO,
-                    data.toString()
-            ), DefaultBlockParameterName.LATEST).send()));
-        } catch (IOException e) {
-            throw new IOError(e);
-        }
+        return readCache.read("eth_call", account.getAddress(), address, data, block -> singleFlight.execute("eth_call", () -> {
+            try {
+                Request<?, EthCall> request = web3j.ethCall(new Transaction(
+                        account.getAddress().withLeading0x(),
+                        BigInteger.ZERO,
+                        BigInteger.ZERO,
+                        GAS_LIMIT_FOR_CONSTANT_CALLS,
+                        address.withLeading0x(),
+                        BigInteger.ZERO,
+                        data.toString()
+                ), block);
+                CallAggregator aggregator = callAggregator;
+                return EthData.of(handleError(aggregator == null ? request.send() : Futures.join(aggregator.call(request))));
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+        }, account.getAddress(), address, data, block.getValue()), result -> result.data.length);
     }
 
     BigInteger getTransactionCount(EthAddress address) {
-        try {
-            return Numeric.decodeQuantity(handleError(web3j.ethGetTransactionCount(address.withLeading0x(), DefaultBlockParameterName.LATEST).send()));
-        } catch (IOException e) {
-            throw new IOError(e);
+        return readCache.read("eth_getTransactionCount", null, address, null, block -> getTransactionCount(address, block), count -> BIG_INTEGER_SIZE);
+    }
+
+    BigInteger getPendingTransactionCount(EthAddress address) {
+        return getTransactionCount(address, DefaultBlockParameterName.PENDING);
+    }
+
+    private BigInteger getTransactionCount(EthAddress address, DefaultBlockParameter block) {
+        return singleFlight.execute("eth_getTransactionCount", () -> {
+            try {
+                return Numeric.decodeQuantity(handleError(web3j.ethGetTransactionCount(address.withLeading0x(), block).send()));
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+        }, address, block.getValue());
+    }
+
+    /**
+     * with false, blocks are fetched with the transaction hashes only instead of the full transaction objects
+     */
+    void setFullTransactions(boolean fullTransactions) {
+        this.fullTransactions = fullTransactions;
+    }
+
+    /**
+     * concurrent identical reads of these methods share one call to the node, see {@link SingleFlight}
+     */
+    void setSingleFlight(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * concurrent constant calls are sent together as JSON-RPC batches, see {@link CallAggregator}.
+     * Ignored if the transport cannot send batches
+     */
+    synchronized void setCallAggregation(long windowMillis, int maxBatchSize) {
+        if (callAggregator == null && web3jService instanceof JsonRpcBatchService) {
+            callAggregator = new CallAggregator((JsonRpcBatchService) web3jService, windowMillis, maxBatchSize);
+        }
+    }
+
+    synchronized Observable<EthBlock> observeBlocks() {
+        if (!(transport instanceof WebSocketRpcService)) {
+            return web3j.blockObservable(fullTransactions);
+        }
+        if (newHeadsObservable == null) {
+            newHeadsObservable = observeNewHeads((WebSocketRpcService) transport);
         }
+        return newHeadsObservable;
     }
 
-    Observable<EthBlock> observeBlocks() {
-        return web3j.blockObservable(true);
+    private Observable<EthBlock> observeNewHeads(WebSocketRpcService service) {
+        Web3jBlockHandler blockHandler = new Web3jBlockHandler();
+        //notifications arrive on the socket reader thread, fetching the block there would wait on itself
+        headExecutor = notificationExecutor("web3j-new-heads");
+        service.subscribe("newHeads").subscribe(head -> headExecutor.execute(() -> {
+            try {
+                getBlock(EthHash.of(head.path("hash").asText()))
+                        .filter(ethBlock -> ethBlock.getBlock() != null)
+                        .ifPresent(blockHandler::newElement);
+            } catch (Throwable e) {
+                logger.warn("error while fetching the block of a new head", e);
+            }
+        }), error -> logger.error("the newHeads subscription failed", error));
+        return blockHandler.observable;
     }
 
-    Observable<EthBlock> observeBlocksPolling(long pollingFrequence) {
-        Executors.newCachedThreadPool().submit(() -> {
-            while(true) {
+    /**
+     * the logs are emitted off the socket reader thread, and the logs of the blocks missed while reconnecting
+     * are fetched with eth_getLogs once the subscription is renewed, up to the head seen at that moment.
+     * The live logs at or below that head are dropped once the gap is filled, a live log handled before the
+     * fill completes can still be emitted twice
+     */
+    Optional<Observable<Log>> subscribeLogs(LogFilter filter) {
+        if (!(transport instanceof WebSocketRpcService)) {
+            return Optional.empty();
+        }
+        WebSocketRpcService service = (WebSocketRpcService) transport;
+        ExecutorService executor = getLogExecutor();
+        return Optional.of(Observable.create(subscriber -> {
+            //read on the reconnecting thread, written on the executor
+            AtomicReference<BigInteger> lastSeenBlock = new AtomicReference<>(BigInteger.valueOf(getCurrentBlockNumber()));
+            //only read and written on the executor
+            BigInteger[] filledTo = {BigInteger.valueOf(-1)};
+            Consumer<Log> emit = log -> {
+                if (!log.isRemoved() && !subscriber.isUnsubscribed()) {
+                    lastSeenBlock.accumulateAndGet(log.getBlockNumber(), BigInteger::max);
+                    subscriber.onNext(log);
+                }
+            };
+            Runnable fillGap = () -> {
                 try {
-                    BigInteger currentBlockNumber = web3j.ethBlockNumber().send().getBlockNumber();
-                    while(this.lastBlockNumber.equals(BigInteger.ZERO) || currentBlockNumber.compareTo(this.lastBlockNumber) < 0) {
-                        EthBlock currentBlock = web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(this.lastBlockNumber.add(BigInteger.ONE)), true).send();
-                        this.lastBlockNumber = currentBlockNumber;
-                        blockEventHandler.newElement(currentBlock);
-                    }
+                    BigInteger from = lastSeenBlock.get().add(BigInteger.ONE);
+                    BigInteger head = BigInteger.valueOf(getCurrentBlockNumber());
+                    executor.execute(() -> {
+                        try {
+                            if (from.compareTo(head) <= 0) {
+                                getLogs(filter.toEthFilter(DefaultBlockParameter.valueOf(from), DefaultBlockParameter.valueOf(head))).forEach(emit);
+                            }
+                            filledTo[0] = filledTo[0].max(head);
+                        } catch (Throwable e) {
+                            logger.warn("could not fetch the logs missed while reconnecting", e);
+                        }
+                    });
                 } catch (Throwable e) {
-                    logger.warn("error while polling blocks", e);
+                    logger.warn("could not fetch the logs missed while reconnecting", e);
                 }
-                Thread.sleep(pollingFrequence);
-            }
+            };
+            subscriber.add(service.subscribe(Log.class, fillGap, Arrays.asList("logs", filter.toSubscriptionParams()))
+                    .subscribe(log -> executor.execute(() -> {
+                                if (log.getBlockNumber().compareTo(filledTo[0]) > 0) {
+                                    emit.accept(log);
+                                }
+                            }),
+                            error -> executor.execute(() -> subscriber.onError(error))));
+        }));
+    }
+
+    private synchronized ExecutorService getLogExecutor() {
+        if (logExecutor == null) {
+            logExecutor = notificationExecutor("web3j-logs");
+        }
+        return logExecutor;
+    }
+
+    private static ExecutorService notificationExecutor(String name) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
         });
-        return blockEventHandler.observable;
+    }
+
+    synchronized Observable<EthBlock> observeBlocksPolling(long pollingFrequence, long maxPollingFrequence, RpcMetrics metrics) {
+        if (blockPoller == null) {
+            blockPoller = new BlockPoller(this, pollingFrequence, maxPollingFrequence, metrics);
+            blockObservable = blockPoller.start();
+        }
+        return blockObservable;
+    }
+
+    public synchronized Optional<BlockPoller> getBlockPoller() {
+        return Optional.ofNullable(blockPoller);
+    }
+
+    public synchronized void close() {
+        if (blockPoller != null) {
+            blockPoller.close();
+        }
+        if (callAggregator != null) {
+            callAggregator.close();
+        }
+        if (headExecutor != null) {
+            headExecutor.shutdownNow();
+        }
+        if (logExecutor != null) {
+            logExecutor.shutdownNow();
+        }
+        if (transport instanceof WebSocketRpcService) {
+            ((WebSocketRpcService) transport).close();
+        }
+        if (transport instanceof NodePool) {
+            ((NodePool) transport).close();
+        }
+        if (transport instanceof BatchHttpService) {
+            ((BatchHttpService) transport).close();
+        }
     }
 
     BigInteger estimateGas(EthAccount account, EthAddress address, EthValue value, EthData data) {
@@ -102,27 +287,67 @@ public class Web3JFacade {
     }
 
     GasPrice getGasPrice() {
+        return singleFlight.execute("eth_gasPrice", () -> {
+            try {
+                return new GasPrice(EthValue.wei(Numeric.decodeQuantity(handleError(web3j.ethGasPrice().send()))));
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+        });
+    }
+
+    /**
+     * empty if the node does not support eth_feeHistory
+     */
+    Optional<EthFeeHistory.FeeHistory> getFeeHistory(int blockCount, int[] rewardPercentiles) {
+        if (web3jService == null) {
+            return Optional.empty();
+        }
+        List<Integer> percentiles = Arrays.stream(rewardPercentiles).boxed().collect(Collectors.toList());
         try {
-            return new GasPrice(EthValue.wei(Numeric.decodeQuantity(handleError(web3j.ethGasPrice().send()))));
+            EthFeeHistory response = new Request<>("eth_feeHistory", Arrays.asList(Numeric.encodeQuantity(BigInteger.valueOf(blockCount)), DefaultBlockParameterName.LATEST.getValue(), percentiles),
+                    web3jService, EthFeeHistory.class).send();
+            if (response.hasError()) {
+                logger.info("eth_feeHistory is not available: " + response.getError().getMessage());
+                return Optional.empty();
+            }
+            return Optional.ofNullable(response.getResult());
         } catch (IOException e) {
             throw new IOError(e);
         }
     }
 
+    GasPrice getCachedGasPrice() {
+        return readCache.gasPrice(this::getGasPrice);
+    }
+
     EthHash sendTransaction(final EthData rawTransaction) {
+        return sendTransaction(rawTransaction.withLeading0x());
+    }
+
+    EthHash sendTransaction(final String rawTransaction) {
         try {
-            return EthHash.of(handleError(web3j.ethSendRawTransaction(rawTransaction.withLeading0x()).send()));
+            return EthHash.of(handleError(web3j.ethSendRawTransaction(rawTransaction).send()));
         } catch (IOException e) {
             throw new IOError(e);
         }
     }
 
     public EthGetBalance getBalance(EthAddress address) {
-        try {
-            return web3j.ethGetBalance(address.withLeading0x(), DefaultBlockParameterName.LATEST).send();
-        } catch (IOException e) {
-            throw new IOError(e);
-        }
+        return readCache.read("eth_getBalance", null, address, null, block -> singleFlight.execute("eth_getBalance", () -> {
+            try {
+                //an error must not be cached as the balance of the block
+                EthGetBalance response = web3j.ethGetBalance(address.withLeading0x(), block).send();
+                handleError(response);
+                return response;
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+        }, address, block.getValue()), balance -> BIG_INTEGER_SIZE);
+    }
+
+    public void onNewBlock(long blockNumber) {
+        readCache.onNewBlock(blockNumber);
     }
 
     private <S, T extends Response<S>> S handleError(final T response) {
@@ -133,19 +358,23 @@ public class Web3JFacade {
     }
 
     SmartContractByteCode getCode(EthAddress address) {
-        try {
-            return SmartContractByteCode.of(web3j.ethGetCode(address.withLeading0x(), DefaultBlockParameterName.LATEST).send().getCode());
-        } catch (IOException e) {
-            throw new IOError(e);
-        }
+        return readCache.code(address, () -> singleFlight.execute("eth_getCode", () -> {
+            try {
+                return handleError(web3j.ethGetCode(address.withLeading0x(), DefaultBlockParameterName.LATEST).send());
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+        }, address));
     }
 
     long getCurrentBlockNumber() {
-        try {
-            return web3j.ethBlockNumber().send().getBlockNumber().longValue();
-        } catch (IOException e) {
-            throw new IOError(e);
-        }
+        return singleFlight.execute("eth_blockNumber", () -> {
+            try {
+                return web3j.ethBlockNumber().send().getBlockNumber().longValue();
+            } catch (IOException e) {
+                throw new IOError(e);
+            }
+        });
     }
 
     RawTransaction createTransaction(Nonce nonce, GasPrice gasPrice, GasUsage gasLimit, EthAddress address, EthValue value, EthData data) {
@@ -153,34 +382,216 @@ public class Web3JFacade {
     }
 
     TransactionReceipt getReceipt(EthHash hash) {
+        return singleFlight.execute("eth_getTransactionReceipt", () -> {
+            try {
+                return handleError(web3j.ethGetTransactionReceipt(hash.withLeading0x()).send());
+            } catch (IOException e) {
+                throw new EthereumApiException("error while retrieving the transactionReceipt", e);
+            }
+        }, hash);
+    }
+
+    Optional<List<TransactionReceipt>> getBlockReceipts(EthHash blockHash) {
+        return getBlockReceipts(blockHash, EthGetBlockReceipts.class);
+    }
+
+    /**
+     * same as {@link #getBlockReceipts(EthHash)} but decoded by the streaming {@link ReceiptDecoder}
+     */
+    Optional<List<DecodedReceipt>> getDecodedBlockReceipts(EthHash blockHash) {
+        return getBlockReceipts(blockHash, EthDecodedReceipts.class);
+    }
+
+    private <R, T extends Response<List<R>>> Optional<List<R>> getBlockReceipts(EthHash blockHash, Class<T> responseType) {
+        if (web3jService == null || !blockReceiptsSupported) {
+            return Optional.empty();
+        }
         try {
-            return handleError(web3j.ethGetTransactionReceipt(hash.withLeading0x()).send());
+            T response = new Request<>("eth_getBlockReceipts", Collections.singletonList(blockHash.withLeading0x()), web3jService, responseType).send();
+            if (response.hasError()) {
+                if (response.getError().getCode() == METHOD_NOT_FOUND) {
+                    logger.info("eth_getBlockReceipts is not supported by the node, falling back to batched receipt requests");
+                    blockReceiptsSupported = false;
+                }
+                return Optional.empty();
+            }
+            return Optional.ofNullable(response.getResult());
         } catch (IOException e) {
-            throw new EthereumApiException("error while retrieving the transactionReceipt", e);
+            throw new EthereumApiException("error while retrieving the receipts of block " + blockHash.withLeading0x(), e);
         }
     }
 
-    org.web3j.protocol.core.methods.response.Transaction getTransaction(EthHash hash) {
+    List<TransactionReceipt> getReceipts(List<EthHash> hashes, int maxBatchSize) {
+        return getReceipts(hashes, maxBatchSize, hash -> web3j.ethGetTransactionReceipt(hash.withLeading0x()), EthGetTransactionReceipt.class);
+    }
+
+    List<DecodedReceipt> getDecodedReceipts(List<EthHash> hashes, int maxBatchSize) {
+        return getReceipts(hashes, maxBatchSize, hash -> new Request<>("eth_getTransactionReceipt", Collections.singletonList(hash.withLeading0x()), web3jService, EthDecodedReceipt.class), EthDecodedReceipt.class);
+    }
+
+    private <R, T extends Response<R>> List<R> getReceipts(List<EthHash> hashes, int maxBatchSize, Function<EthHash, Request<?, T>> requestFactory, Class<T> responseType) {
+        List<R> receipts = new ArrayList<>(hashes.size());
+        if (!(web3jService instanceof JsonRpcBatchService)) {
+            for (EthHash hash : hashes) {
+                try {
+                    R receipt = handleError(requestFactory.apply(hash).send());
+                    if (receipt != null) {
+                        receipts.add(receipt);
+                    }
+                } catch (IOException e) {
+                    throw new EthereumApiException("error while retrieving the transactionReceipt", e);
+                }
+            }
+            return receipts;
+        }
+
+        JsonRpcBatchService batchService = (JsonRpcBatchService) web3jService;
+        for (int i = 0; i < hashes.size(); i += maxBatchSize) {
+            List<Request<?, T>> batch = hashes.subList(i, Math.min(i + maxBatchSize, hashes.size())).stream()
+                    .map(requestFactory)
+                    .collect(Collectors.toList());
+            try {
+                batchService.sendBatch(batch, responseType).stream()
+                        .map(this::<R, T>handleError)
+                        .filter(Objects::nonNull)
+                        .forEach(receipts::add);
+            } catch (IOException e) {
+                throw new EthereumApiException("error while retrieving a batch of " + batch.size() + " transaction receipts", e);
+            }
+        }
+        return receipts;
+    }
+
+    List<Log> getLogs(EthFilter filter) {
         try {
-            return handleError(web3j.ethGetTransactionByHash(hash.withLeading0x()).send());
+            return toLogs(handleError(web3j.ethGetLogs(filter).send()));
         } catch (IOException e) {
-            throw new EthereumApiException("error while retrieving the transactionReceipt", e);
+            throw new EthereumApiException("error while retrieving logs", e);
         }
     }
 
-    Optional<EthBlock> getBlock(long blockNumber) {
+    BigInteger newFilter(EthFilter filter) {
         try {
-            return Optional.ofNullable(web3j.ethGetBlockByNumber(new DefaultBlockParameterNumber(BigInteger.valueOf(blockNumber)),true).send());
+            return Numeric.decodeQuantity(handleError(web3j.ethNewFilter(filter).send()));
         } catch (IOException e) {
-            throw new EthereumApiException("error while retrieving the block " + blockNumber, e);
+            throw new EthereumApiException("error while creating a log filter", e);
         }
     }
 
-    Optional<EthBlock> getBlock(EthHash blockHash) {
+    List<Log> getFilterChanges(BigInteger filterId) {
         try {
-            return Optional.ofNullable(web3j.ethGetBlockByHash(blockHash.withLeading0x(),true).send());
+            return toLogs(handleError(web3j.ethGetFilterChanges(filterId).send()));
         } catch (IOException e) {
-            throw new EthereumApiException("error while retrieving the block " + blockHash.withLeading0x(), e);
+            throw new EthereumApiException("error while polling the log filter " + filterId, e);
         }
     }
+
+    void uninstallFilter(BigInteger filterId) {
+        try {
+            handleError(web3j.ethUninstallFilter(filterId).send());
+        } catch (IOException e) {
+            throw new EthereumApiException("error while uninstalling the log filter " + filterId, e);
+        }
+    }
+
+    private List<Log> toLogs(List<EthLog.LogResult> results) {
+        if (results == null) {
+            return Collections.emptyList();
+        }
+        return results.stream()
+                .map(result -> (Log) result.get())
+                .collect(Collectors.toList());
+    }
+
+    org.web3j.protocol.core.methods.response.Transaction getTransaction(EthHash hash) {
+        return singleFlight.execute("eth_getTransactionByHash", () -> {
+            try {
+                return handleError(web3j.ethGetTransactionByHash(hash.withLeading0x()).send());
+            } catch (IOException e) {
+                throw new EthereumApiException("error while retrieving the transactionReceipt", e);
+            }
+        }, hash);
+    }
+
+    Optional<EthBlock> getBlock(long blockNumber) {
+        boolean full = fullTransactions;
+        return singleFlight.execute("eth_getBlockByNumber", () -> {
+            try {
+                return Optional.ofNullable(web3j.ethGetBlockByNumber(new DefaultBlockParameterNumber(BigInteger.valueOf(blockNumber)), full).send());
+            } catch (IOException e) {
+                throw new EthereumApiException("error while retrieving the block " + blockNumber, e);
+            }
+        }, blockNumber, full);
+    }
+
+    Optional<EthBlock> getBlock(EthHash blockHash) {
+        boolean full = fullTransactions;
+        return singleFlight.execute("eth_getBlockByHash", () -> {
+            try {
+                return Optional.ofNullable(web3j.ethGetBlockByHash(blockHash.withLeading0x(), full).send());
+            } catch (IOException e) {
+                throw new EthereumApiException("error while retrieving the block " + blockHash.withLeading0x(), e);
+            }
+        }, blockHash, full);
+    }
+
+    CompletableFuture<EthData> constantCallAsync(final EthAccount account, final EthAddress address, final EthData data) {
+        return requestExecutor.submit(() -> constantCall(account, address, data));
+    }
+
+    CompletableFuture<BigInteger> getTransactionCountAsync(EthAddress address) {
+        return requestExecutor.submit(() -> getTransactionCount(address));
+    }
+
+    CompletableFuture<BigInteger> estimateGasAsync(EthAccount account, EthAddress address, EthValue value, EthData data) {
+        return requestExecutor.submit(() -> estimateGas(account, address, value, data));
+    }
+
+    CompletableFuture<GasPrice> getGasPriceAsync() {
+        return requestExecutor.submit(this::getGasPrice);
+    }
+
+    CompletableFuture<EthHash> sendTransactionAsync(final EthData rawTransaction) {
+        return requestExecutor.submit(() -> sendTransaction(rawTransaction));
+    }
+
+    CompletableFuture<EthHash> sendTransactionAsync(final String rawTransaction) {
+        return requestExecutor.submit(() -> sendTransaction(rawTransaction));
+    }
+
+    public CompletableFuture<EthGetBalance> getBalanceAsync(EthAddress address) {
+        return requestExecutor.submit(() -> getBalance(address));
+    }
+
+    CompletableFuture<SmartContractByteCode> getCodeAsync(EthAddress address) {
+        return requestExecutor.submit(() -> getCode(address));
+    }
+
+    CompletableFuture<Long> getCurrentBlockNumberAsync() {
+        return requestExecutor.submit(this::getCurrentBlockNumber);
+    }
+
+    CompletableFuture<TransactionReceipt> getReceiptAsync(EthHash hash) {
+        return requestExecutor.submit(() -> getReceipt(hash));
+    }
+
+    CompletableFuture<org.web3j.protocol.core.methods.response.Transaction> getTransactionAsync(EthHash hash) {
+        return requestExecutor.submit(() -> getTransaction(hash));
+    }
+
+    CompletableFuture<Optional<EthBlock>> getBlockAsync(long blockNumber) {
+        return requestExecutor.submit(() -> getBlock(blockNumber));
+    }
+
+    CompletableFuture<Optional<EthBlock>> getBlockAsync(EthHash blockHash) {
+        return requestExecutor.submit(() -> getBlock(blockHash));
+    }
+
+    CompletableFuture<List<Log>> getLogsAsync(EthFilter filter) {
+        return requestExecutor.submit(() -> getLogs(filter));
+    }
+
+    RpcRequestExecutor getRequestExecutor() {
+        return requestExecutor;
+    }
 }
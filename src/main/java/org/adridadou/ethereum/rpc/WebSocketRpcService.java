@@ -0,0 +1,364 @@
+package org.adridadou.ethereum.rpc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import rx.Observable;
+import rx.Subscriber;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class WebSocketRpcService implements Web3jService, JsonRpcBatchService, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketRpcService.class);
+    private static final long DEFAULT_TIMEOUT = 30_000;
+    private static final long RECONNECT_DELAY = 1_000;
+
+    private final String url;
+    private final OkHttpClient httpClient;
+    private final long timeout;
+    private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    private final Map<Long, CompletableFuture<JsonNode>> pendingCalls = new ConcurrentHashMap<>();
+    private final Map<String, ActiveSubscription> subscriptionsById = new ConcurrentHashMap<>();
+    private final Set<ActiveSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "web3j-websocket-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private WebSocket webSocket;
+    private volatile boolean closed;
+
+    public WebSocketRpcService(String url) {
+        this(url, new OkHttpClient.Builder().pingInterval(30, TimeUnit.SECONDS).build(), DEFAULT_TIMEOUT);
+    }
+
+    public WebSocketRpcService(String url, OkHttpClient httpClient, long timeout) {
+        this.url = url;
+        this.httpClient = httpClient;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        String payload = objectMapper.writeValueAsString(request);
+        JsonNode response = await(call(payload, Collections.singletonList(request.getId())).get(0));
+        return objectMapper.treeToValue(response, responseType);
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        try {
+            String payload = objectMapper.writeValueAsString(request);
+            return call(payload, Collections.singletonList(request.getId())).get(0).thenApply(response -> {
+                try {
+                    return objectMapper.treeToValue(response, responseType);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+            return result;
+        }
+    }
+
+    @Override
+    public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(requests.size());
+        requests.forEach(request -> ids.add(request.getId()));
+
+        List<CompletableFuture<JsonNode>> calls = call(objectMapper.writeValueAsString(requests), ids);
+        List<T> responses = new ArrayList<>(requests.size());
+        for (CompletableFuture<JsonNode> call : calls) {
+            responses.add(objectMapper.treeToValue(await(call), responseType));
+        }
+        return responses;
+    }
+
+    /**
+     * Subscribes with eth_subscribe, e.g. subscribe("newHeads") or subscribe("logs", filterParams).
+     * The observable emits the "result" of every notification.
+     */
+    public Observable<JsonNode> subscribe(Object... params) {
+        return subscribe(() -> {}, Arrays.asList(params));
+    }
+
+    /**
+     * onRenewed runs after the subscription is renewed on a new connection, the notifications sent in between are lost
+     */
+    public Observable<JsonNode> subscribe(Runnable onRenewed, List<Object> params) {
+        return Observable.create(subscriber -> {
+            ActiveSubscription subscription = new ActiveSubscription(params, subscriber, onRenewed);
+            try {
+                activate(subscription);
+                subscriptions.add(subscription);
+                subscriber.add(Subscriptions.create(() -> cancel(subscription)));
+            } catch (IOException e) {
+                subscriber.onError(e);
+            }
+        });
+    }
+
+    public <T> Observable<T> subscribe(Class<T> type, Object... params) {
+        return subscribe(type, () -> {}, Arrays.asList(params));
+    }
+
+    public <T> Observable<T> subscribe(Class<T> type, Runnable onRenewed, List<Object> params) {
+        return subscribe(onRenewed, params).map(result -> {
+            try {
+                return objectMapper.treeToValue(result, type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        reconnectScheduler.shutdownNow();
+        WebSocket current;
+        synchronized (this) {
+            current = webSocket;
+            webSocket = null;
+        }
+        if (current != null) {
+            current.close(1000, "closing");
+        }
+        failPendingCalls(new IOException("websocket service closed"));
+    }
+
+    private List<CompletableFuture<JsonNode>> call(String payload, List<Long> ids) throws IOException {
+        List<CompletableFuture<JsonNode>> calls = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CompletableFuture<JsonNode> call = new CompletableFuture<>();
+            pendingCalls.put(id, call);
+            calls.add(call);
+        }
+
+        if (!connection().send(payload)) {
+            ids.forEach(pendingCalls::remove);
+            throw new IOException("could not send the request to " + url + ", the websocket is closing");
+        }
+        return calls;
+    }
+
+    private JsonNode await(CompletableFuture<JsonNode> call) throws IOException {
+        try {
+            return call.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            pendingCalls.values().remove(call);
+            throw new IOException("no response from " + url + " after " + timeout + "ms", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = Futures.unwrap(e);
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for " + url, e);
+        }
+    }
+
+    private synchronized WebSocket connection() throws IOException {
+        if (closed) {
+            throw new IOException("websocket service closed");
+        }
+        if (webSocket == null) {
+            CompletableFuture<WebSocket> opened = new CompletableFuture<>();
+            httpClient.newWebSocket(new okhttp3.Request.Builder().url(url).build(), new Listener(opened));
+            try {
+                webSocket = opened.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while connecting to " + url, e);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IOException("could not connect to " + url, Futures.unwrap(e));
+            }
+        }
+        return webSocket;
+    }
+
+    private void activate(ActiveSubscription subscription) throws IOException {
+        SubscriptionResponse response = send(new Request<>("eth_subscribe", subscription.params, this, SubscriptionResponse.class), SubscriptionResponse.class);
+        if (response.hasError()) {
+            throw new IOException("eth_subscribe failed: " + response.getError().getMessage());
+        }
+        subscription.id = response.getResult();
+        subscriptionsById.put(subscription.id, subscription);
+    }
+
+    /**
+     * does not wait for the reply: it can be called from a subscriber, on the reader thread that would read the reply.
+     * A subscription does not outlive its connection, so there is nothing to cancel while disconnected
+     */
+    private void cancel(ActiveSubscription subscription) {
+        subscriptions.remove(subscription);
+        String id = subscription.id;
+        if (id == null) {
+            return;
+        }
+        subscriptionsById.remove(id);
+        WebSocket current;
+        synchronized (this) {
+            current = webSocket;
+        }
+        if (current == null) {
+            return;
+        }
+        try {
+            current.send(objectMapper.writeValueAsString(new Request<>("eth_unsubscribe", Collections.singletonList(id), this, UnsubscribeResponse.class)));
+        } catch (IOException e) {
+            logger.debug("error while cancelling subscription " + id, e);
+        }
+    }
+
+    private void onMessage(String text) {
+        try {
+            JsonNode message = objectMapper.readTree(text);
+            if (message.isArray()) {
+                message.forEach(this::dispatch);
+            } else {
+                dispatch(message);
+            }
+        } catch (Throwable e) {
+            logger.warn("error while handling a websocket message", e);
+        }
+    }
+
+    private void dispatch(JsonNode message) {
+        JsonNode id = message.get("id");
+        if (id != null && !id.isNull()) {
+            CompletableFuture<JsonNode> call = pendingCalls.remove(id.asLong());
+            if (call != null) {
+                call.complete(message);
+            }
+        } else if ("eth_subscription".equals(message.path("method").asText())) {
+            JsonNode params = message.path("params");
+            ActiveSubscription subscription = subscriptionsById.get(params.path("subscription").asText());
+            if (subscription != null && !subscription.subscriber.isUnsubscribed()) {
+                subscription.subscriber.onNext(params.path("result"));
+            }
+        }
+    }
+
+    private void onConnectionLost(WebSocket socket, Throwable cause) {
+        synchronized (this) {
+            if (webSocket != socket) {
+                return;
+            }
+            webSocket = null;
+        }
+        logger.warn("connection to " + url + " lost", cause);
+        failPendingCalls(new IOException("connection to " + url + " lost", cause));
+        subscriptionsById.clear();
+        if (!closed && !subscriptions.isEmpty()) {
+            reconnectScheduler.schedule(this::resubscribe, RECONNECT_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void resubscribe() {
+        try {
+            for (ActiveSubscription subscription : subscriptions) {
+                if (subscription.id == null || !subscriptionsById.containsKey(subscription.id)) {
+                    activate(subscription);
+                    subscription.onRenewed.run();
+                }
+            }
+        } catch (Throwable e) {
+            logger.warn("could not renew the subscriptions on " + url + ", retrying", e);
+            if (!closed) {
+                reconnectScheduler.schedule(this::resubscribe, RECONNECT_DELAY, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void failPendingCalls(IOException error) {
+        pendingCalls.values().forEach(call -> call.completeExceptionally(error));
+        pendingCalls.clear();
+    }
+
+    private final class Listener extends WebSocketListener {
+        private final CompletableFuture<WebSocket> opened;
+
+        private Listener(CompletableFuture<WebSocket> opened) {
+            this.opened = opened;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket, okhttp3.Response response) {
+            opened.complete(webSocket);
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            WebSocketRpcService.this.onMessage(text);
+        }
+
+        //okhttp only calls onClosed once this side has answered the close frame of the server
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            webSocket.close(code, null);
+            onConnectionLost(webSocket, new IOException("websocket closing: " + code + " " + reason));
+        }
+
+        @Override
+        public void onClosed(WebSocket webSocket, int code, String reason) {
+            onConnectionLost(webSocket, new IOException("websocket closed: " + code + " " + reason));
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, okhttp3.Response response) {
+            opened.completeExceptionally(t);
+            onConnectionLost(webSocket, t);
+        }
+    }
+
+    private static final class ActiveSubscription {
+        private final List<Object> params;
+        private final Subscriber<? super JsonNode> subscriber;
+        private final Runnable onRenewed;
+        private volatile String id;
+
+        private ActiveSubscription(List<Object> params, Subscriber<? super JsonNode> subscriber, Runnable onRenewed) {
+            this.params = params;
+            this.subscriber = subscriber;
+            this.onRenewed = onRenewed;
+        }
+    }
+
+    public static class SubscriptionResponse extends Response<String> {
+    }
+
+    public static class UnsubscribeResponse extends Response<Boolean> {
+    }
+}
@@ -0,0 +1,38 @@
+package org.adridadou.ethereum;
+
+import org.adridadou.ethereum.rpc.BatchHttpService;
+import org.adridadou.ethereum.rpc.EthereumRpcConfig;
+import org.adridadou.ethereum.rpc.RpcMetrics;
+import org.adridadou.ethereum.rpc.WebSocketRpcService;
+import org.junit.Test;
+import org.web3j.protocol.Web3jService;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class RpcEthereumFacadeProviderTest {
+
+    @Test
+    public void httpUrlsUseTheBatchHttpService() {
+        assertTrue(createService("http://localhost:8545") instanceof BatchHttpService);
+        assertTrue(createService("HTTPS://mainnet.infura.io/v3/key") instanceof BatchHttpService);
+    }
+
+    @Test
+    public void webSocketUrlsUseTheWebSocketService() {
+        Web3jService service = createService("wss://mainnet.infura.io/ws/v3/key");
+        assertTrue(service instanceof WebSocketRpcService);
+        ((WebSocketRpcService) service).close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedSchemesAreRejected() {
+        createService("ftp://localhost:8545");
+    }
+
+    private static Web3jService createService(String url) {
+        return RpcEthereumFacadeProvider.createService(url, EthereumRpcConfig.builder().build().getHttpTransport(), RpcMetrics.NOOP);
+    }
+}
@@ -0,0 +1,98 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.After;
+import org.junit.Test;
+import org.web3j.protocol.core.methods.response.EthBlock;
+
+import java.io.IOError;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class BlockPollerTest {
+    private final Web3JFacade web3JFacade = mock(Web3JFacade.class);
+    private final BlockPoller poller = new BlockPoller(web3JFacade, 100, 1_000, RpcMetrics.NOOP);
+    private final List<Long> emitted = new CopyOnWriteArrayList<>();
+
+    @After
+    public void after() {
+        poller.close();
+    }
+
+    @Test
+    public void missedBlocksAreFetchedBeforePollingAgain() {
+        when(web3JFacade.getCurrentBlockNumber()).thenReturn(10L, 14L);
+        when(web3JFacade.getBlockAsync(anyLong())).thenAnswer(invocation -> CompletableFuture.completedFuture(Optional.of(block(invocation.getArgument(0)))));
+        poller.getBlocks().subscribe(block -> emitted.add(block.getBlock().getNumber().longValue()));
+
+        assertEquals(0, poller.poll());
+        assertEquals(0, poller.poll());
+
+        assertEquals(Arrays.asList(10L, 11L, 12L, 13L, 14L), emitted);
+        assertEquals(14, poller.getLastBlockNumber());
+    }
+
+    @Test
+    public void blocksAreEmittedInOrderWhenTheyArriveOutOfOrder() {
+        Map<Long, CompletableFuture<Optional<EthBlock>>> requested = new ConcurrentHashMap<>();
+        when(web3JFacade.getCurrentBlockNumber()).thenReturn(0L, 5L);
+        when(web3JFacade.getBlockAsync(anyLong())).thenAnswer(invocation -> {
+            long number = invocation.getArgument(0);
+            CompletableFuture<Optional<EthBlock>> future = new CompletableFuture<>();
+            requested.put(number, future);
+            if (number == 5) {
+                //the newest block arrives first
+                new Thread(() -> {
+                    for (long n = 5; n > 0; n--) {
+                        requested.get(n).complete(Optional.of(block(n)));
+                    }
+                }).start();
+            } else if (number == 0) {
+                future.complete(Optional.of(block(number)));
+            }
+            return future;
+        });
+        poller.getBlocks().subscribe(block -> emitted.add(block.getBlock().getNumber().longValue()));
+
+        poller.poll();
+        poller.poll();
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L), emitted);
+    }
+
+    @Test
+    public void delayGrowsWhileNothingHappensAndResetsOnANewBlock() {
+        when(web3JFacade.getCurrentBlockNumber()).thenReturn(10L, 10L, 10L).thenThrow(new IOError(new IOException("connection refused"))).thenReturn(10L, 10L, 11L);
+        when(web3JFacade.getBlockAsync(anyLong())).thenAnswer(invocation -> CompletableFuture.completedFuture(Optional.of(block(invocation.getArgument(0)))));
+
+        assertEquals(0, poller.poll());
+        assertEquals(200, poller.poll());
+        assertEquals(400, poller.poll());
+        assertEquals(800, poller.poll());
+        assertEquals(1_000, poller.poll());
+        assertEquals(1_000, poller.poll());
+        assertEquals(0, poller.poll());
+        assertEquals(200, poller.poll());
+    }
+
+    private static EthBlock block(long number) {
+        EthBlock.Block block = new EthBlock.Block();
+        block.setNumber("0x" + Long.toHexString(number));
+        EthBlock ethBlock = new EthBlock();
+        ethBlock.setResult(block);
+        return ethBlock;
+    }
+}
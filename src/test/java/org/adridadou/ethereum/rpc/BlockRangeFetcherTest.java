@@ -0,0 +1,86 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class BlockRangeFetcherTest {
+    private final Set<Thread> loaderThreads = ConcurrentHashMap.newKeySet();
+    private final BlockRangeFetcher fetcher = new BlockRangeFetcher(number -> {
+        loaderThreads.add(Thread.currentThread());
+        try {
+            Thread.sleep((number * 7) % 5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new BlockInfo(number, Collections.emptyList());
+    }, 4, 8);
+
+    @Test
+    public void blocksAreDeliveredInOrder() {
+        List<Long> numbers = fetcher.fetch(10, 60, BlockCheckpoint.inMemory())
+                .map(block -> block.blockNumber)
+                .collect(Collectors.toList());
+
+        assertEquals(LongStream.rangeClosed(10, 60).boxed().collect(Collectors.toList()), numbers);
+    }
+
+    @Test
+    public void resumesAfterTheCheckpoint() {
+        BlockCheckpoint checkpoint = BlockCheckpoint.inMemory();
+        checkpoint.save(20);
+
+        List<Long> numbers = fetcher.fetch(10, 25, checkpoint)
+                .map(block -> block.blockNumber)
+                .collect(Collectors.toList());
+
+        assertEquals(LongStream.rangeClosed(21, 25).boxed().collect(Collectors.toList()), numbers);
+        assertEquals(OptionalLong.of(25), checkpoint.lastProcessed());
+    }
+
+    @Test
+    public void checkpointOnlyCoversConsumedBlocks() {
+        BlockCheckpoint checkpoint = BlockCheckpoint.inMemory();
+
+        try (Stream<BlockInfo> blocks = fetcher.fetch(0, 1_000, checkpoint)) {
+            blocks.limit(5).forEach(block -> {});
+        }
+
+        assertEquals(OptionalLong.of(4), checkpoint.lastProcessed());
+    }
+
+    @Test
+    public void fetchesShareTheWorkers() {
+        for (int i = 0; i < 3; i++) {
+            try (Stream<BlockInfo> blocks = fetcher.fetch(0, 1_000, BlockCheckpoint.inMemory())) {
+                blocks.limit(10).forEach(block -> {});
+            }
+        }
+
+        List<Long> numbers = fetcher.fetch(0, 20, BlockCheckpoint.inMemory())
+                .map(block -> block.blockNumber)
+                .collect(Collectors.toList());
+
+        assertEquals(LongStream.rangeClosed(0, 20).boxed().collect(Collectors.toList()), numbers);
+        assertTrue(loaderThreads.size() <= 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void windowSmallerThanTheWorkersIsRejected() {
+        new BlockRangeFetcher(number -> new BlockInfo(number, Collections.emptyList()), 8, 4);
+    }
+}
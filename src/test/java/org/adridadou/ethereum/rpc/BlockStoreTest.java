@@ -0,0 +1,172 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.propeller.values.EthValue;
+import org.adridadou.ethereum.propeller.values.EventData;
+import org.adridadou.ethereum.propeller.values.TransactionInfo;
+import org.adridadou.ethereum.propeller.values.TransactionReceipt;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class BlockStoreTest {
+    private static final EthHash BLOCK_HASH = EthHash.of("0x2222222222222222222222222222222222222222222222222222222222222222");
+    private static final EthHash TX_HASH = EthHash.of("0x1111111111111111111111111111111111111111111111111111111111111111");
+    private static final EthHash UNKNOWN_HASH = EthHash.of("0x3333333333333333333333333333333333333333333333333333333333333333");
+
+    private Path directory;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("block-store");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void blocksAreServedAfterReopening() {
+        BlockStore store = BlockStore.open(directory);
+        store.put(BLOCK_HASH, createBlock(5_000_000));
+        store.close();
+
+        BlockStore reopened = BlockStore.open(directory);
+        assertTrue(reopened.contains(5_000_000));
+        assertFalse(reopened.contains(5_000_001));
+        assertEquals(5_000_000, reopened.getHighestBlock());
+
+        BlockInfo blockInfo = reopened.get(5_000_000).get();
+        assertEquals(1, blockInfo.receipts.size());
+        TransactionReceipt receipt = blockInfo.receipts.get(0);
+        assertArrayEquals(TX_HASH.data, receipt.hash.data);
+        assertTrue(receipt.contractAddress.isEmpty());
+        assertEquals(EthValue.wei(42).inWei(), receipt.ethValue.inWei());
+        assertEquals(1, receipt.events.get(0).getIndexedArguments().size());
+
+        assertTrue(reopened.get(BLOCK_HASH).isPresent());
+        assertFalse(reopened.get(UNKNOWN_HASH).isPresent());
+        TransactionInfo transactionInfo = reopened.getTransactionInfo(TX_HASH).get();
+        assertArrayEquals(BLOCK_HASH.data, transactionInfo.getBlockHash().data);
+        reopened.close();
+    }
+
+    @Test
+    public void blocksSpanSeveralSegments() throws IOException {
+        BlockStore store = BlockStore.open(directory, 1_024);
+        for (long number = 100; number < 120; number++) {
+            store.put(BLOCK_HASH, createBlock(number));
+        }
+        store.close();
+
+        try (Stream<Path> segments = Files.list(directory).filter(file -> file.getFileName().toString().startsWith("segment-"))) {
+            assertTrue(segments.count() > 1);
+        }
+        BlockStore reopened = BlockStore.open(directory, 1_024);
+        for (long number = 100; number < 120; number++) {
+            assertEquals(number, reopened.get(number).get().blockNumber);
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void truncatedBlockIsWrittenAgain() throws IOException {
+        BlockStore store = BlockStore.open(directory);
+        store.put(BLOCK_HASH, createBlock(10));
+        store.put(BLOCK_HASH, createBlock(11));
+        store.close();
+        //a crash before the end of the last record was written
+        Path segment = directory.resolve("segment-00000.dat");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        BlockStore reopened = BlockStore.open(directory);
+        assertTrue(reopened.contains(10));
+        assertFalse(reopened.contains(11));
+        reopened.put(BLOCK_HASH, createBlock(11));
+        assertEquals(11, reopened.get(11).get().blockNumber);
+        assertEquals(10, reopened.get(10).get().blockNumber);
+        reopened.close();
+    }
+
+    @Test
+    public void entryPointingToAnotherBlockIsIgnored() throws IOException {
+        BlockStore store = BlockStore.open(directory);
+        store.put(BLOCK_HASH, createBlock(10));
+        store.put(BLOCK_HASH, createBlock(11));
+        store.close();
+        //both records are lost, then block 12 is appended where block 10 was
+        try (FileChannel channel = FileChannel.open(directory.resolve("segment-00000.dat"), StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+        }
+
+        BlockStore reopened = BlockStore.open(directory);
+        reopened.put(BLOCK_HASH, createBlock(12));
+        assertFalse(reopened.get(10).isPresent());
+        assertEquals(12, reopened.get(12).get().blockNumber);
+        reopened.close();
+    }
+
+    @Test
+    public void hashIndexesAreRebuiltFromTheHashLog() throws IOException {
+        BlockStore store = BlockStore.open(directory);
+        store.put(BLOCK_HASH, createBlock(10));
+        store.close();
+        Files.delete(directory.resolve("block-hashes.idx"));
+        Files.delete(directory.resolve("transaction-hashes.idx"));
+
+        BlockStore reopened = BlockStore.open(directory);
+        assertEquals(10, reopened.get(BLOCK_HASH).get().blockNumber);
+        assertTrue(reopened.getTransactionInfo(TX_HASH).isPresent());
+        assertEquals(10, reopened.getHighestBlock());
+        reopened.close();
+    }
+
+    @Test
+    public void longErrorIsStored() {
+        char[] error = new char[70_000];
+        Arrays.fill(error, '\u00e9');
+        TransactionReceipt receipt = new TransactionReceipt(TX_HASH, BLOCK_HASH, EthAddress.of("0x3535353535353535353535353535353535353535"),
+                EthAddress.of("0x0000000000000000000000000000000000000001"), EthAddress.empty(), new String(error), EthData.empty(), false,
+                Collections.emptyList(), EthValue.wei(0));
+        BlockStore store = BlockStore.open(directory);
+        store.put(BLOCK_HASH, new BlockInfo(10, Collections.singletonList(receipt)));
+
+        assertEquals(new String(error), store.get(10).get().receipts.get(0).error);
+        store.close();
+    }
+
+    private BlockInfo createBlock(long number) {
+        EventData event = new EventData(TX_HASH, EthData.of("0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef"), EthData.of("0x0f"),
+                Collections.singletonList(EthData.of("0x0000000000000000000000003535353535353535353535353535353535353535")));
+        TransactionReceipt receipt = new TransactionReceipt(TX_HASH, BLOCK_HASH, EthAddress.of("0x3535353535353535353535353535353535353535"),
+                EthAddress.of("0x0000000000000000000000000000000000000001"), EthAddress.empty(), "", EthData.empty(), true,
+                Collections.singletonList(event), EthValue.wei(42));
+        return new BlockInfo(number, Collections.singletonList(receipt));
+    }
+}
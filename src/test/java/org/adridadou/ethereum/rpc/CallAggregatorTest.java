@@ -0,0 +1,162 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.Test;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthCall;
+
+import java.io.IOError;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class CallAggregatorTest {
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final JsonRpcBatchService batchService = new JsonRpcBatchService() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) {
+            batchSizes.add(requests.size());
+            return requests.stream().map(request -> {
+                EthCall response = new EthCall();
+                response.setResult((String) request.getParams().get(0));
+                return (T) response;
+            }).collect(Collectors.toList());
+        }
+    };
+
+    @Test
+    public void aFullBatchIsSentAtOnceAndSplitBackToTheCallers() {
+        CallAggregator aggregator = new CallAggregator(batchService, TimeUnit.HOURS.toMillis(1), 3);
+
+        CompletableFuture<EthCall> first = aggregator.call(request("0x01"));
+        CompletableFuture<EthCall> second = aggregator.call(request("0x02"));
+        assertFalse(first.isDone());
+        CompletableFuture<EthCall> third = aggregator.call(request("0x03"));
+
+        assertEquals("0x01", first.join().getResult());
+        assertEquals("0x02", second.join().getResult());
+        assertEquals("0x03", third.join().getResult());
+        assertEquals(Collections.singletonList(3), batchSizes);
+        aggregator.close();
+    }
+
+    @Test
+    public void aFullBatchIsNotSentOnTheCallerThread() {
+        List<Runnable> sends = new ArrayList<>();
+        CallAggregator aggregator = new CallAggregator(batchService, TimeUnit.HOURS.toMillis(1), 2, sends::add);
+
+        CompletableFuture<EthCall> first = aggregator.call(request("0x01"));
+        aggregator.call(request("0x02"));
+
+        assertEquals(1, sends.size());
+        assertFalse(first.isDone());
+        sends.get(0).run();
+        assertEquals("0x01", first.join().getResult());
+        aggregator.close();
+    }
+
+    @Test
+    public void theWindowOfAFullBatchDoesNotFlushTheNextOne() throws Exception {
+        CallAggregator aggregator = new CallAggregator(batchService, 500, 2, Runnable::run);
+
+        aggregator.call(request("0x01"));
+        Thread.sleep(300);
+        aggregator.call(request("0x02"));
+        CompletableFuture<EthCall> next = aggregator.call(request("0x03"));
+        Thread.sleep(350);
+
+        assertFalse(next.isDone());
+        aggregator.call(request("0x04"));
+        assertEquals("0x03", next.get(5, TimeUnit.SECONDS).getResult());
+        assertEquals(Arrays.asList(2, 2), batchSizes);
+        aggregator.close();
+    }
+
+    @Test
+    public void aPartialBatchIsSentWhenTheWindowIsOver() throws Exception {
+        CallAggregator aggregator = new CallAggregator(batchService, 20, 10);
+
+        CompletableFuture<EthCall> first = aggregator.call(request("0x01"));
+        CompletableFuture<EthCall> second = aggregator.call(request("0x02"));
+
+        assertEquals("0x01", first.get(5, TimeUnit.SECONDS).getResult());
+        assertEquals("0x02", second.get(5, TimeUnit.SECONDS).getResult());
+        assertEquals(Collections.singletonList(2), batchSizes);
+        aggregator.close();
+    }
+
+    @Test
+    public void aSlowBatchDoesNotHoldBackTheNextWindow() throws Exception {
+        CountDownLatch sent = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CallAggregator aggregator = new CallAggregator(new JsonRpcBatchService() {
+            @Override
+            public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+                if (requests.get(0).getParams().get(0).equals("0x01")) {
+                    sent.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return batchService.sendBatch(requests, responseType);
+            }
+        }, 10, 10);
+
+        CompletableFuture<EthCall> slow = aggregator.call(request("0x01"));
+        aggregator.call(request("0x02"));
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        CompletableFuture<EthCall> next = aggregator.call(request("0x03"));
+        aggregator.call(request("0x04"));
+
+        assertEquals("0x03", next.get(5, TimeUnit.SECONDS).getResult());
+        assertFalse(slow.isDone());
+        release.countDown();
+        assertEquals("0x01", slow.get(5, TimeUnit.SECONDS).getResult());
+        aggregator.close();
+    }
+
+    @Test
+    public void aFailedBatchFailsEveryCaller() {
+        CallAggregator aggregator = new CallAggregator(new JsonRpcBatchService() {
+            @Override
+            public <T extends Response> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+                throw new IOException("connection reset");
+            }
+        }, TimeUnit.HOURS.toMillis(1), 3);
+
+        List<CompletableFuture<EthCall>> calls = Arrays.asList(aggregator.call(request("0x01")), aggregator.call(request("0x02")), aggregator.call(request("0x03")));
+
+        for (CompletableFuture<EthCall> call : calls) {
+            try {
+                call.join();
+                fail("the batch error should reach every caller");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof IOError);
+                assertEquals("connection reset", e.getCause().getCause().getMessage());
+            }
+        }
+        aggregator.close();
+    }
+
+    private static Request<?, EthCall> request(String result) {
+        return new Request<>("eth_call", Collections.singletonList(result), null, EthCall.class);
+    }
+}
@@ -0,0 +1,140 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.junit.Test;
+import org.web3j.protocol.core.methods.response.EthBlock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class CanonicalChainTrackerTest {
+    private final Map<String, EthBlock> node = new HashMap<>();
+    private final List<String> events = new ArrayList<>();
+    private long rejectedBlock = -1;
+
+    @Test
+    public void emitsBlocksThatExtendTheChain() {
+        CanonicalChainTracker tracker = tracker(0);
+        tracker.onNewBlock(block(1, "a1", "a0"));
+        tracker.onNewBlock(block(2, "a2", "a1"));
+
+        assertEquals(Arrays.asList("block 1", "block 2"), events);
+    }
+
+    @Test
+    public void rollsBackOrphanedBlocksAndEmitsTheNewChain() {
+        CanonicalChainTracker tracker = tracker(0);
+        tracker.onNewBlock(block(1, "a1", "a0"));
+        tracker.onNewBlock(block(2, "a2", "a1"));
+        tracker.onNewBlock(block(3, "a3", "a2"));
+        block(3, "b3", "a2");
+        tracker.onNewBlock(block(4, "b4", "b3"));
+
+        assertEquals(Arrays.asList("block 1", "block 2", "block 3", "rollback 3", "block 3", "block 4"), events);
+    }
+
+    @Test
+    public void fillsGapsFromTheParentHashes() {
+        CanonicalChainTracker tracker = tracker(0);
+        tracker.onNewBlock(block(1, "a1", "a0"));
+        block(2, "a2", "a1");
+        tracker.onNewBlock(block(3, "a3", "a2"));
+
+        assertEquals(Arrays.asList("block 1", "block 2", "block 3"), events);
+    }
+
+    @Test
+    public void onlyEmitsConfirmedBlocks() {
+        CanonicalChainTracker tracker = tracker(2);
+        tracker.onNewBlock(block(1, "a1", "a0"));
+        tracker.onNewBlock(block(2, "a2", "a1"));
+        tracker.onNewBlock(block(3, "a3", "a2"));
+        tracker.onNewBlock(block(3, "b3", "a2"));
+        tracker.onNewBlock(block(4, "b4", "b3"));
+
+        assertEquals(Arrays.asList("block 1", "block 2"), events);
+    }
+
+    @Test
+    public void rollsBackTheReplacedBlocksWhenNoCommonAncestorIsFound() {
+        CanonicalChainTracker tracker = tracker(0);
+        tracker.onNewBlock(block(1, "a1", "a0"));
+        tracker.onNewBlock(block(2, "a2", "a1"));
+        tracker.onNewBlock(block(3, "a3", "a2"));
+        //the parent of b2 is unknown to the node
+        tracker.onNewBlock(block(2, "b2", "x1"));
+        tracker.onNewBlock(block(3, "b3", "b2"));
+
+        assertEquals(Arrays.asList("block 1", "block 2", "block 3", "rollback 3", "rollback 2", "block 2", "block 3"), events);
+    }
+
+    @Test
+    public void rejectedBlockIsEmittedAgainWithTheNextOne() {
+        CanonicalChainTracker tracker = tracker(0);
+        tracker.onNewBlock(block(1, "a1", "a0"));
+        rejectedBlock = 2;
+        try {
+            tracker.onNewBlock(block(2, "a2", "a1"));
+            fail("the listener rejected block 2");
+        } catch (EthereumApiException e) {
+            tracker.onNewBlock(block(3, "a3", "a2"));
+        }
+
+        assertEquals(Arrays.asList("block 1", "block 2", "block 3"), events);
+    }
+
+    private CanonicalChainTracker tracker(int confirmations) {
+        return new CanonicalChainTracker(hash -> Optional.ofNullable(node.get(hash.withLeading0x())),
+                ethBlock -> new BlockInfo(ethBlock.getBlock().getNumber().longValue(), Collections.emptyList()),
+                confirmations, 16, new CanonicalChainTracker.Listener() {
+            @Override
+            public void onBlock(BlockInfo blockInfo) {
+                if (blockInfo.blockNumber == rejectedBlock) {
+                    rejectedBlock = -1;
+                    throw new EthereumApiException("queue full");
+                }
+                events.add("block " + blockInfo.blockNumber);
+            }
+
+            @Override
+            public void onRollback(BlockInfo blockInfo) {
+                events.add("rollback " + blockInfo.blockNumber);
+            }
+        });
+    }
+
+    private EthBlock block(long number, String hash, String parentHash) {
+        EthBlock.Block block = new EthBlock.Block();
+        block.setNumber("0x" + Long.toHexString(number));
+        block.setHash(toHash(hash));
+        block.setParentHash(toHash(parentHash));
+        EthBlock ethBlock = new EthBlock();
+        ethBlock.setResult(block);
+        node.put(block.getHash(), ethBlock);
+        return ethBlock;
+    }
+
+    private String toHash(String name) {
+        StringBuilder hash = new StringBuilder("0x");
+        for (char c : name.toCharArray()) {
+            hash.append(String.format("%02x", (int) c));
+        }
+        while (hash.length() < 66) {
+            hash.append('0');
+        }
+        return hash.toString();
+    }
+}
@@ -0,0 +1,299 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.event.EthereumEventHandler;
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.adridadou.ethereum.propeller.values.ChainId;
+import org.adridadou.ethereum.propeller.values.EthAccount;
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.propeller.values.Nonce;
+import org.adridadou.ethereum.propeller.values.EventData;
+import org.adridadou.ethereum.propeller.values.TransactionRequest;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import rx.Observable;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class EthereumRpcTest {
+    private static final String BLOCK_HASH = "0x8a07b8b2b2c6e05c4e1e1f7e5ea5b7d0de4bd3cf4d2b3ad3b6b5d6f8e5c3a1b2";
+    private static final String TX_HASH_1 = "0x1111111111111111111111111111111111111111111111111111111111111111";
+    private static final String TX_HASH_2 = "0x2222222222222222222222222222222222222222222222222222222222222222";
+
+    private static final EthAccount ACCOUNT = new EthAccount(BigInteger.ONE);
+
+    private final Web3JFacade web3JFacade = mock(Web3JFacade.class);
+
+    @Test
+    public void toBlockInfoUsesBlockReceiptsWhenAvailable() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().build());
+        when(web3JFacade.getBlockReceipts(any(EthHash.class))).thenReturn(Optional.of(Arrays.asList(receipt(TX_HASH_1), receipt(TX_HASH_2))));
+
+        BlockInfo blockInfo = ethereumRpc.toBlockInfo(block(TX_HASH_1, TX_HASH_2));
+
+        assertEquals(2, blockInfo.receipts.size());
+        verify(web3JFacade, never()).getReceipts(anyList(), anyInt());
+    }
+
+    @Test
+    public void toBlockInfoFallsBackToBatchedReceipts() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().receiptBatchSize(50).build());
+        when(web3JFacade.getBlockReceipts(any(EthHash.class))).thenReturn(Optional.empty());
+        when(web3JFacade.getReceipts(anyList(), eq(50))).thenReturn(Arrays.asList(receipt(TX_HASH_1), receipt(TX_HASH_2)));
+
+        BlockInfo blockInfo = ethereumRpc.toBlockInfo(block(TX_HASH_1, TX_HASH_2));
+
+        assertEquals(2, blockInfo.receipts.size());
+        verify(web3JFacade).getReceipts(anyList(), eq(50));
+    }
+
+    @Test
+    public void toBlockInfoSkipsReceiptCallsForEmptyBlocks() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().build());
+
+        BlockInfo blockInfo = ethereumRpc.toBlockInfo(block());
+
+        assertEquals(0, blockInfo.receipts.size());
+        verify(web3JFacade, never()).getBlockReceipts(any(EthHash.class));
+        verify(web3JFacade, never()).getReceipts(anyList(), anyInt());
+    }
+
+    @Test
+    public void incompleteBlockIsNotStored() throws IOException {
+        Path directory = Files.createTempDirectory("block-store");
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().blockStore(directory).build());
+        when(web3JFacade.getBlockReceipts(any(EthHash.class)))
+                .thenThrow(new EthereumApiException("receipts not available"))
+                .thenReturn(Optional.of(Arrays.asList(receipt(TX_HASH_1))));
+        BlockStore blockStore = ethereumRpc.getBlockStore().get();
+
+        ethereumRpc.onFinalized(EthHash.of(BLOCK_HASH), ethereumRpc.toBlockInfo(block(TX_HASH_1)));
+        assertFalse(blockStore.contains(16));
+
+        ethereumRpc.onFinalized(EthHash.of(BLOCK_HASH), ethereumRpc.toBlockInfo(block(TX_HASH_1)));
+        assertEquals(1, blockStore.get(16).get().receipts.size());
+        blockStore.close();
+    }
+
+    @Test
+    public void rangeFetchFailsOnMissingReceipts() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().build());
+        when(web3JFacade.getBlock(16L)).thenReturn(Optional.of(block(TX_HASH_1)));
+        when(web3JFacade.getBlockReceipts(any(EthHash.class))).thenThrow(new EthereumApiException("receipts not available"));
+
+        try {
+            ethereumRpc.getBlocks(16, 16).collect(Collectors.toList());
+            fail("the block should not be delivered without its receipts");
+        } catch (EthereumApiException e) {
+            assertEquals("receipts not available", e.getMessage());
+        }
+    }
+
+    @Test
+    public void closeStopsTheEventHandlerThreads() throws InterruptedException {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().build());
+        Set<Thread> before = Thread.getAllStackTraces().keySet();
+        ethereumRpc.register(new EthereumEventHandler());
+        List<Thread> handlerThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> !before.contains(thread) && thread.getName().startsWith("ethereum-event-handler-"))
+                .collect(Collectors.toList());
+
+        ethereumRpc.close();
+
+        assertFalse(handlerThreads.isEmpty());
+        for (Thread thread : handlerThreads) {
+            thread.join(5_000);
+            assertFalse(thread.isAlive());
+        }
+    }
+
+    @Test
+    public void nonceConflictResyncsAndRetriesOnce() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().manageNonces(true).build());
+        when(web3JFacade.getPendingTransactionCount(any(EthAddress.class))).thenReturn(BigInteger.valueOf(5), BigInteger.valueOf(7));
+        when(web3JFacade.sendTransaction(anyString()))
+                .thenThrow(new EthereumApiException("nonce too low"))
+                .thenReturn(null);
+
+        ethereumRpc.submit(transactionRequest(), null);
+
+        assertEquals(Arrays.asList(BigInteger.valueOf(5), BigInteger.valueOf(7)), sentNonces(2));
+    }
+
+    @Test
+    public void failedRetryReleasesItsNonce() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().manageNonces(true).build());
+        when(web3JFacade.getPendingTransactionCount(any(EthAddress.class))).thenReturn(BigInteger.valueOf(5), BigInteger.valueOf(7));
+        when(web3JFacade.sendTransaction(anyString()))
+                .thenThrow(new EthereumApiException("nonce too low"))
+                .thenThrow(new EthereumApiException("insufficient funds for gas * price + value"));
+
+        try {
+            ethereumRpc.submit(transactionRequest(), null);
+            fail("the second failure should be thrown");
+        } catch (EthereumApiException e) {
+            assertEquals(7, ethereumRpc.getNonce(ACCOUNT.getAddress()).getValue().longValue());
+        }
+    }
+
+    @Test
+    public void alreadyKnownTransactionIsNotSentAgain() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().manageNonces(true).build());
+        when(web3JFacade.getPendingTransactionCount(any(EthAddress.class))).thenReturn(BigInteger.valueOf(5));
+        when(web3JFacade.sendTransaction(anyString())).thenThrow(new EthereumApiException("already known"));
+
+        assertNotNull(ethereumRpc.submit(transactionRequest(), null));
+
+        verify(web3JFacade, times(1)).sendTransaction(anyString());
+        assertEquals(6, ethereumRpc.getNonce(ACCOUNT.getAddress()).getValue().longValue());
+    }
+
+    @Test
+    public void explicitNonceIsUsedWithManagedNonces() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().manageNonces(true).build());
+        when(web3JFacade.getPendingTransactionCount(any(EthAddress.class))).thenReturn(BigInteger.valueOf(5));
+
+        ethereumRpc.submit(transactionRequest(), new Nonce(BigInteger.valueOf(3)));
+
+        assertEquals(Collections.singletonList(BigInteger.valueOf(3)), sentNonces(1));
+        assertEquals(5, ethereumRpc.getNonce(ACCOUNT.getAddress()).getValue().longValue());
+    }
+
+    @Test
+    public void logRangeIsFetchedInChunks() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().logRangeChunkSize(10).build());
+        when(web3JFacade.getLogsAsync(any(EthFilter.class))).thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
+
+        ethereumRpc.getLogs(LogFilter.anyAddress(), 0, 24);
+
+        ArgumentCaptor<EthFilter> filters = ArgumentCaptor.forClass(EthFilter.class);
+        verify(web3JFacade, times(3)).getLogsAsync(filters.capture());
+        List<String> ranges = filters.getAllValues().stream()
+                .map(filter -> blockNumber(filter.getFromBlock()) + "-" + blockNumber(filter.getToBlock()))
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("0-9", "10-19", "20-24"), ranges);
+    }
+
+    @Test
+    public void anonymousLogsHaveAnEmptySignature() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().build());
+        Log log = new Log();
+        log.setTransactionHash(TX_HASH_1);
+        log.setTopics(Collections.emptyList());
+        log.setData("0x01");
+
+        EventData event = ethereumRpc.toEventInfo(log);
+
+        assertEquals(EthData.empty(), event.getEventSignature());
+        assertEquals(0, event.getIndexedArguments().size());
+    }
+
+    @Test
+    public void submitBatchReportsEachTransaction() {
+        EthereumRpc ethereumRpc = createRpc(EthereumRpcConfig.builder().manageNonces(true).build());
+        when(web3JFacade.getPendingTransactionCount(any(EthAddress.class))).thenReturn(BigInteger.valueOf(5));
+        CompletableFuture<EthHash> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new EthereumApiException("insufficient funds for gas * price + value"));
+        when(web3JFacade.sendTransactionAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(rejected);
+
+        List<CompletableFuture<EthHash>> results = ethereumRpc.submitBatch(Arrays.asList(transactionRequest(), transactionRequest()));
+
+        assertNotNull(results.get(0).join());
+        assertTrue(results.get(1).isCompletedExceptionally());
+        assertEquals(6, ethereumRpc.getNonce(ACCOUNT.getAddress()).getValue().longValue());
+    }
+
+    private static long blockNumber(DefaultBlockParameter parameter) {
+        return ((DefaultBlockParameterNumber) parameter).getBlockNumber().longValue();
+    }
+
+    private TransactionRequest transactionRequest() {
+        doAnswer(invocation -> RawTransaction.createTransaction(invocation.<Nonce>getArgument(0).getValue(), BigInteger.ONE, BigInteger.valueOf(21_000),
+                "0x0000000000000000000000000000000000000002", BigInteger.ZERO, ""))
+                .when(web3JFacade).createTransaction(any(), any(), any(), any(), any(), any());
+        TransactionRequest request = mock(TransactionRequest.class);
+        when(request.getAccount()).thenReturn(ACCOUNT);
+        return request;
+    }
+
+    private List<BigInteger> sentNonces(int count) {
+        ArgumentCaptor<Nonce> nonces = ArgumentCaptor.forClass(Nonce.class);
+        verify(web3JFacade, times(count)).createTransaction(nonces.capture(), any(), any(), any(), any(), any());
+        return nonces.getAllValues().stream().map(Nonce::getValue).collect(Collectors.toList());
+    }
+
+    private EthereumRpc createRpc(EthereumRpcConfig config) {
+        when(web3JFacade.observeBlocks()).thenReturn(Observable.empty());
+        return new EthereumRpc(web3JFacade, ChainId.id(0), config);
+    }
+
+    private EthBlock block(String... txHashes) {
+        EthBlock.Block block = new EthBlock.Block();
+        block.setNumber("0x10");
+        block.setHash(BLOCK_HASH);
+        List<EthBlock.TransactionResult> transactions = Arrays.stream(txHashes).map(hash -> {
+            EthBlock.TransactionObject tx = new EthBlock.TransactionObject();
+            tx.setHash(hash);
+            tx.setGas("0x5208");
+            tx.setValue("0x0");
+            return (EthBlock.TransactionResult) tx;
+        }).collect(Collectors.toList());
+        block.setTransactions(transactions);
+
+        EthBlock ethBlock = new EthBlock();
+        ethBlock.setResult(block);
+        return ethBlock;
+    }
+
+    private TransactionReceipt receipt(String txHash) {
+        TransactionReceipt receipt = new TransactionReceipt();
+        receipt.setTransactionHash(txHash);
+        receipt.setBlockHash(BLOCK_HASH);
+        receipt.setGasUsed("0x5000");
+        receipt.setFrom("0x0000000000000000000000000000000000000001");
+        receipt.setTo("0x0000000000000000000000000000000000000002");
+        receipt.setLogs(Collections.emptyList());
+        return receipt;
+    }
+}
@@ -0,0 +1,185 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.event.EthereumEventHandler;
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class EventDispatcherTest {
+    private EventDispatcher dispatcher;
+
+    @After
+    public void after() {
+        dispatcher.close();
+    }
+
+    @Test
+    public void oldestBlockIsDroppedWhenTheQueueIsFull() throws InterruptedException {
+        dispatcher = new EventDispatcher(1, OverflowPolicy.DROP_OLDEST);
+        RecordingHandler handler = new RecordingHandler(true);
+        dispatcher.addHandler(handler);
+
+        dispatcher.dispatch(block(1));
+        handler.awaitBlocked();
+        dispatcher.dispatch(block(2));
+        dispatcher.dispatch(block(3));
+        handler.release();
+
+        handler.awaitBlocks(2);
+        assertEquals(Arrays.asList(1L, 3L), handler.blocks);
+        assertEquals(1, dispatcher.getDroppedEvents());
+    }
+
+    @Test
+    public void rejectedBlockReachesNoHandler() throws InterruptedException {
+        dispatcher = new EventDispatcher(1, OverflowPolicy.FAIL);
+        RecordingHandler slow = new RecordingHandler(true);
+        RecordingHandler fast = new RecordingHandler(false);
+        dispatcher.addHandler(slow);
+        dispatcher.addHandler(fast);
+
+        dispatcher.dispatch(block(1));
+        slow.awaitBlocked();
+        //the fast queue has room again only once block 1 was handled
+        fast.awaitBlocks(1);
+        dispatcher.dispatch(block(2));
+        fast.awaitBlocks(2);
+        try {
+            dispatcher.dispatch(block(3));
+            fail("the slow handler's queue is full");
+        } catch (EthereumApiException e) {
+            slow.release();
+        }
+
+        slow.awaitBlocks(2);
+        assertEquals(Arrays.asList(1L, 2L), fast.blocks);
+        assertEquals(Arrays.asList(1L, 2L), slow.blocks);
+        assertEquals(1, dispatcher.getDroppedEvents());
+    }
+
+    @Test
+    public void dispatchWaitsForRoomWithTheBlockPolicy() throws Exception {
+        dispatcher = new EventDispatcher(1, OverflowPolicy.BLOCK);
+        RecordingHandler handler = new RecordingHandler(true);
+        dispatcher.addHandler(handler);
+
+        dispatcher.dispatch(block(1));
+        handler.awaitBlocked();
+        dispatcher.dispatch(block(2));
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> dispatcher.dispatch(block(3)));
+        try {
+            third.get(100, TimeUnit.MILLISECONDS);
+            fail("the queue is full, dispatch should wait");
+        } catch (TimeoutException e) {
+            handler.release();
+        }
+
+        third.get(5, TimeUnit.SECONDS);
+        handler.awaitBlocks(3);
+        assertEquals(Arrays.asList(1L, 2L, 3L), handler.blocks);
+        assertEquals(0, dispatcher.getDroppedEvents());
+    }
+
+    @Test
+    public void failingHandlerDoesNotStopTheOthers() throws InterruptedException {
+        dispatcher = new EventDispatcher(16, OverflowPolicy.BLOCK);
+        RecordingHandler failing = new RecordingHandler(false) {
+            @Override
+            public void onBlock(BlockInfo blockInfo) {
+                super.onBlock(blockInfo);
+                throw new IllegalStateException("handler bug");
+            }
+        };
+        RecordingHandler other = new RecordingHandler(false);
+        dispatcher.addHandler(failing);
+        dispatcher.addHandler(other);
+
+        dispatcher.dispatch(block(1));
+        dispatcher.dispatch(block(2));
+
+        failing.awaitBlocks(2);
+        other.awaitBlocks(2);
+        assertEquals(Arrays.asList(1L, 2L), other.blocks);
+    }
+
+    @Test
+    public void onReadyIsCalledOnceOnTheHandlerThreadBeforeTheFirstBlock() throws InterruptedException {
+        dispatcher = new EventDispatcher(16, OverflowPolicy.BLOCK);
+        RecordingHandler handler = new RecordingHandler(false);
+        dispatcher.addHandler(handler);
+        assertTrue(handler.readyThreads.isEmpty());
+
+        dispatcher.dispatch(block(1));
+        dispatcher.dispatch(block(2));
+
+        handler.awaitBlocks(2);
+        assertEquals(1, handler.readyThreads.size());
+        assertTrue(handler.readyThreads.get(0).startsWith("ethereum-event-handler-"));
+        assertFalse(handler.readyThreads.get(0).equals(Thread.currentThread().getName()));
+    }
+
+    private static BlockInfo block(long number) {
+        return new BlockInfo(number, Collections.emptyList());
+    }
+
+    private static class RecordingHandler extends EthereumEventHandler {
+        private final List<Long> blocks = new CopyOnWriteArrayList<>();
+        private final List<String> readyThreads = new CopyOnWriteArrayList<>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch released;
+
+        private RecordingHandler(boolean blockOnFirst) {
+            this.released = new CountDownLatch(blockOnFirst ? 1 : 0);
+        }
+
+        @Override
+        public void onReady() {
+            readyThreads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void onBlock(BlockInfo blockInfo) {
+            blocked.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            blocks.add(blockInfo.blockNumber);
+        }
+
+        private void awaitBlocked() throws InterruptedException {
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        }
+
+        private void release() {
+            released.countDown();
+        }
+
+        private void awaitBlocks(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (blocks.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, blocks.size());
+        }
+    }
+}
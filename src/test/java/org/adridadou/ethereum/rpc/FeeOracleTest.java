@@ -0,0 +1,53 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class FeeOracleTest {
+
+    @Test
+    public void percentilesComeFromTheSeededBlocks() {
+        FeeOracle oracle = new FeeOracle(10);
+        assertFalse(oracle.getGasPrice(FeeOracle.Speed.STANDARD).isPresent());
+
+        oracle.seed(history());
+
+        assertEquals(103, price(oracle, FeeOracle.Speed.SLOW));
+        assertEquals(106, price(oracle, FeeOracle.Speed.STANDARD));
+        assertEquals(110, price(oracle, FeeOracle.Speed.FAST));
+    }
+
+    @Test
+    public void onlyTheLastBlocksOfTheWindowCount() {
+        FeeOracle oracle = new FeeOracle(1);
+
+        oracle.seed(history());
+
+        assertEquals(107, price(oracle, FeeOracle.Speed.SLOW));
+        assertEquals(108, price(oracle, FeeOracle.Speed.STANDARD));
+        assertEquals(110, price(oracle, FeeOracle.Speed.FAST));
+    }
+
+    private static long price(FeeOracle oracle, FeeOracle.Speed speed) {
+        return oracle.getGasPrice(speed).get().getPrice().inWei().longValue();
+    }
+
+    private static EthFeeHistory.FeeHistory history() {
+        EthFeeHistory.FeeHistory history = new EthFeeHistory.FeeHistory();
+        history.setOldestBlock("0x10");
+        history.setBaseFeePerGas(Arrays.asList("0x64", "0x64", "0x64"));
+        List<List<String>> rewards = Arrays.asList(
+                Arrays.asList("0x1", "0x2", "0x3", "0x4", "0x5"),
+                Arrays.asList("0x6", "0x7", "0x8", "0x9", "0xa"));
+        history.setReward(rewards);
+        return history;
+    }
+}
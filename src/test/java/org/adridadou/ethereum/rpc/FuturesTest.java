@@ -0,0 +1,63 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class FuturesTest {
+
+    @Test
+    public void anyMatchCompletesOnTheFirstTrue() {
+        CompletableFuture<Boolean> slow = new CompletableFuture<>();
+        CompletableFuture<Boolean> match = new CompletableFuture<>();
+
+        CompletableFuture<Boolean> result = Futures.anyMatch(Arrays.asList(slow, match));
+        assertFalse(result.isDone());
+        match.complete(true);
+
+        assertTrue(result.isDone());
+        assertTrue(result.join());
+    }
+
+    @Test
+    public void anyMatchIsFalseOnceAllAreFalse() {
+        CompletableFuture<Boolean> first = new CompletableFuture<>();
+        CompletableFuture<Boolean> second = new CompletableFuture<>();
+
+        CompletableFuture<Boolean> result = Futures.anyMatch(Arrays.asList(first, second));
+        first.complete(false);
+        assertFalse(result.isDone());
+        second.complete(false);
+
+        assertFalse(result.join());
+    }
+
+    @Test
+    public void anyMatchIgnoresFailuresOnceOneIsTrue() {
+        CompletableFuture<Boolean> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("node down"));
+
+        assertTrue(Futures.anyMatch(Arrays.asList(failed, CompletableFuture.completedFuture(true))).join());
+    }
+
+    @Test
+    public void anyMatchFailsWhenNoneIsTrueAndOneFailed() {
+        CompletableFuture<Boolean> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("node down"));
+
+        try {
+            Futures.join(Futures.anyMatch(Arrays.asList(failed, CompletableFuture.completedFuture(false))));
+            fail("the failure should be propagated");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("node down"));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class HashIndexTest {
+    private Path directory;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("hash-index");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void entriesSurviveGrowingAndReopening() throws IOException {
+        Path file = directory.resolve("hashes.idx");
+        HashIndex index = HashIndex.open(file);
+        for (long number = 0; number < 100_000; number++) {
+            index.put(hash(number), number);
+        }
+        index.put(hash(7), 70);
+        index.close(4_100);
+
+        HashIndex reopened = HashIndex.open(file);
+        assertEquals(4_100, reopened.getIndexedLogSize());
+        assertEquals(70, reopened.get(hash(7)));
+        for (long number = 8; number < 100_000; number++) {
+            assertEquals(number, reopened.get(hash(number)));
+        }
+        assertEquals(-1, reopened.get(hash(100_000)));
+        reopened.close(4_100);
+    }
+
+    @Test
+    public void indexNotClosedIsReplayedFromTheStart() throws IOException {
+        Path file = directory.resolve("hashes.idx");
+        HashIndex index = HashIndex.open(file);
+        index.put(hash(1), 1);
+        index.close(41);
+        HashIndex crashed = HashIndex.open(file);
+        crashed.put(hash(2), 2);
+
+        HashIndex reopened = HashIndex.open(file);
+        assertEquals(0, reopened.getIndexedLogSize());
+        assertEquals(1, reopened.get(hash(1)));
+        reopened.close(82);
+    }
+
+    /**
+     * two hashes share each prefix so that they start probing from the same slot
+     */
+    private static byte[] hash(long number) {
+        return ByteBuffer.allocate(HashIndex.HASH_SIZE).putLong(0, (number / 2) * 0x9E3779B97F4A7C15L).putLong(24, number).array();
+    }
+}
@@ -0,0 +1,135 @@
+package org.adridadou.ethereum.rpc;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class HttpTransportTest {
+    private static final String PAYLOAD = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x5a\"}";
+
+    private final HttpTransport.MethodTimeoutInterceptor interceptor = new HttpTransport.MethodTimeoutInterceptor(HttpTransportConfig.defaults().getMethodTimeouts());
+    private final Interceptor.Chain chain = mock(Interceptor.Chain.class);
+    private final Interceptor.Chain longChain = mock(Interceptor.Chain.class);
+
+    @Test
+    public void slowMethodsGetTheirOwnReadTimeout() throws IOException {
+        Request request = request("[{\"jsonrpc\":\"2.0\",\"method\":\"eth_blockNumber\",\"params\":[],\"id\":1},"
+                + "{\"jsonrpc\":\"2.0\",\"method\":\"eth_getLogs\",\"params\":[],\"id\":2}]");
+        when(chain.request()).thenReturn(request);
+        when(chain.withReadTimeout(120_000, TimeUnit.MILLISECONDS)).thenReturn(longChain);
+
+        interceptor.intercept(chain);
+
+        verify(longChain).proceed(request);
+    }
+
+    @Test
+    public void otherMethodsKeepTheDefaultTimeout() throws IOException {
+        Request request = request("{\"jsonrpc\":\"2.0\",\"method\":\"eth_blockNumber\",\"params\":[],\"id\":1}");
+        when(chain.request()).thenReturn(request);
+
+        interceptor.intercept(chain);
+
+        verify(chain).proceed(request);
+        verify(chain, never()).withReadTimeout(anyInt(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void gzipResponsesAreDecoded() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(PAYLOAD, decode("gzip", bytes.toByteArray()));
+    }
+
+    @Test
+    public void zlibResponsesAreDecoded() throws IOException {
+        assertEquals(PAYLOAD, decode("deflate", deflate(false)));
+    }
+
+    @Test
+    public void rawDeflateResponsesAreDecoded() throws IOException {
+        assertEquals(PAYLOAD, decode("deflate", deflate(true)));
+    }
+
+    @Test
+    public void rawDeflateStartingLikeAZlibHeaderIsDecoded() throws IOException {
+        //an empty stored block whose padding bits make the first byte look like a zlib header (0x08)
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{0x08, 0x00, 0x00, (byte) 0xFF, (byte) 0xFF});
+        bytes.write(deflate(true));
+
+        assertEquals(PAYLOAD, decode("deflate", bytes.toByteArray()));
+    }
+
+    @Test
+    public void closeStopsTheDispatcher() {
+        HttpTransport transport = new HttpTransport(HttpTransportConfig.defaults());
+
+        transport.close();
+
+        assertTrue(transport.getClient().dispatcher().executorService().isShutdown());
+    }
+
+    private static String decode(String encoding, byte[] body) throws IOException {
+        Request request = new Request.Builder().url("http://localhost:8545").build();
+        Interceptor.Chain chain = mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(any(Request.class))).thenReturn(new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .header("Content-Encoding", encoding)
+                .body(ResponseBody.create(MediaType.parse("application/json"), body))
+                .build());
+
+        Response response = new HttpTransport.CompressionInterceptor().intercept(chain);
+
+        assertNull(response.header("Content-Encoding"));
+        return response.body().string();
+    }
+
+    private static byte[] deflate(boolean raw) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(bytes, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            deflater.write(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Request request(String payload) {
+        return new Request.Builder()
+                .url("http://localhost:8545")
+                .post(RequestBody.create(MediaType.parse("application/json"), payload))
+                .build();
+    }
+}
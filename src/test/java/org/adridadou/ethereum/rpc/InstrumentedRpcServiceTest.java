@@ -0,0 +1,124 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.Test;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class InstrumentedRpcServiceTest {
+    private final RecordingMetrics metrics = new RecordingMetrics();
+
+    @Test
+    public void rpcCallReportsTheMethodDurationAndErrorCode() throws IOException {
+        Web3jService delegate = mock(Web3jService.class);
+        Request<?, EthGetBalance> request = balanceRequest();
+        EthGetBalance response = new EthGetBalance();
+        response.setError(new Response.Error(-32000, "header not found"));
+        when(delegate.send(eq(request), eq(EthGetBalance.class))).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return response;
+        });
+
+        assertSame(response, new InstrumentedRpcService(delegate, metrics).send(request, EthGetBalance.class));
+
+        assertEquals(1, metrics.calls.size());
+        RpcCall call = metrics.calls.get(0);
+        assertEquals("eth_getBalance", call.method);
+        assertTrue(call.durationNanos >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals("-32000", call.errorCode);
+    }
+
+    @Test
+    public void successfulCallHasNoErrorCode() throws Exception {
+        Web3jService delegate = mock(Web3jService.class);
+        Request<?, EthGetBalance> request = balanceRequest();
+        when(delegate.sendAsync(eq(request), eq(EthGetBalance.class))).thenReturn(CompletableFuture.completedFuture(new EthGetBalance()));
+
+        new InstrumentedRpcService(delegate, metrics).sendAsync(request, EthGetBalance.class).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, metrics.calls.size());
+        assertEquals("eth_getBalance", metrics.calls.get(0).method);
+        assertNull(metrics.calls.get(0).errorCode);
+    }
+
+    @Test
+    public void transportFailureIsReportedAsIo() throws IOException {
+        Web3jService delegate = mock(Web3jService.class);
+        Request<?, EthGetBalance> request = balanceRequest();
+        when(delegate.send(eq(request), eq(EthGetBalance.class))).thenThrow(new IOException("connection refused"));
+
+        try {
+            new InstrumentedRpcService(delegate, metrics).send(request, EthGetBalance.class);
+            fail("the transport error should be rethrown");
+        } catch (IOException e) {
+            assertEquals(1, metrics.calls.size());
+            assertEquals(InstrumentedRpcService.IO_ERROR, metrics.calls.get(0).errorCode);
+        }
+    }
+
+    @Test
+    public void batchesPassThroughTheWrapper() throws IOException {
+        BatchHttpService delegate = mock(BatchHttpService.class);
+        List<Request<?, EthGetBalance>> requests = Arrays.asList(balanceRequest(), balanceRequest());
+        EthGetBalance failed = new EthGetBalance();
+        failed.setError(new Response.Error(-32000, "header not found"));
+        List<EthGetBalance> responses = Arrays.asList(new EthGetBalance(), failed);
+        when(delegate.sendBatch(eq(requests), eq(EthGetBalance.class))).thenReturn(responses);
+
+        assertSame(responses, new InstrumentedRpcService(delegate, metrics).sendBatch(requests, EthGetBalance.class));
+
+        verify(delegate, never()).send(any(Request.class), eq(EthGetBalance.class));
+        assertEquals(2, metrics.calls.size());
+        assertNull(metrics.calls.get(0).errorCode);
+        assertEquals("-32000", metrics.calls.get(1).errorCode);
+    }
+
+    private static Request<?, EthGetBalance> balanceRequest() {
+        return new Request<>("eth_getBalance", Collections.emptyList(), null, EthGetBalance.class);
+    }
+
+    private static final class RpcCall {
+        private final String method;
+        private final long durationNanos;
+        private final String errorCode;
+
+        private RpcCall(String method, long durationNanos, String errorCode) {
+            this.method = method;
+            this.durationNanos = durationNanos;
+            this.errorCode = errorCode;
+        }
+    }
+
+    private static final class RecordingMetrics implements RpcMetrics {
+        private final List<RpcCall> calls = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void rpcCall(String method, long durationNanos, String errorCode) {
+            calls.add(new RpcCall(method, durationNanos, errorCode));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class LogFilterTest {
+    private static final EthAddress TOKEN = EthAddress.of("0x3535353535353535353535353535353535353535");
+    private static final EthData TRANSFER = EthData.of("0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef");
+    private static final EthData APPROVAL = EthData.of("0x8c5be1e5ebec7d5bd14f71427d1e84f3dd0314c0f7b2291e5b200ac8c7c3b925");
+    private static final EthData OWNER = EthData.of("0x0000000000000000000000003535353535353535353535353535353535353535");
+
+    @Test
+    public void singleValuesAreSentAsStringsAndSkippedPositionsAsNull() {
+        Map<String, Object> params = LogFilter.forAddresses(TOKEN)
+                .withEventSignature(TRANSFER)
+                .withTopic(2, OWNER)
+                .toSubscriptionParams();
+
+        assertEquals(Collections.singletonList(TOKEN.withLeading0x()), params.get("address"));
+        assertEquals(Arrays.asList(TRANSFER.withLeading0x(), null, OWNER.withLeading0x()), params.get("topics"));
+    }
+
+    @Test
+    public void severalValuesAtAPositionAreAlternatives() {
+        Map<String, Object> params = LogFilter.anyAddress()
+                .withEventSignature(TRANSFER, APPROVAL)
+                .toSubscriptionParams();
+
+        assertFalse(params.containsKey("address"));
+        assertEquals(Collections.singletonList(Arrays.asList(TRANSFER.withLeading0x(), APPROVAL.withLeading0x())), params.get("topics"));
+    }
+
+    @Test
+    public void ethFilterHasOneTopicPerPosition() {
+        LogFilter filter = LogFilter.anyAddress().withTopic(1, OWNER);
+
+        assertEquals(2, filter.toEthFilter(null, null).getTopics().size());
+        assertEquals(2, filter.getTopics().size());
+    }
+}
@@ -0,0 +1,121 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.Log;
+import rx.Subscription;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class LogPollerTest {
+    private static final BigInteger FIRST_FILTER = BigInteger.ONE;
+    private static final BigInteger SECOND_FILTER = BigInteger.valueOf(2);
+
+    private final Web3JFacade web3JFacade = mock(Web3JFacade.class);
+    private final LogPoller logPoller = new LogPoller(web3JFacade, 10);
+    private final List<Log> received = new CopyOnWriteArrayList<>();
+    private Subscription subscription;
+
+    @After
+    public void cleanUp() {
+        if (subscription != null) {
+            subscription.unsubscribe();
+        }
+        logPoller.close();
+    }
+
+    @Test
+    public void lostFilterIsRecreatedAndTheGapFilled() throws InterruptedException {
+        when(web3JFacade.getCurrentBlockNumber()).thenReturn(100L);
+        when(web3JFacade.newFilter(any(EthFilter.class))).thenReturn(FIRST_FILTER, SECOND_FILTER);
+        when(web3JFacade.getFilterChanges(FIRST_FILTER)).thenThrow(new EthereumApiException("filter not found"));
+        when(web3JFacade.getFilterChanges(SECOND_FILTER)).thenReturn(Collections.emptyList());
+        when(web3JFacade.getLogs(any(EthFilter.class))).thenReturn(Collections.singletonList(log("0x65")));
+
+        subscribe();
+        awaitLogs(1);
+
+        ArgumentCaptor<EthFilter> gap = ArgumentCaptor.forClass(EthFilter.class);
+        verify(web3JFacade).getLogs(gap.capture());
+        assertEquals(BigInteger.valueOf(100), ((DefaultBlockParameterNumber) gap.getValue().getFromBlock()).getBlockNumber());
+    }
+
+    @Test
+    public void transientErrorKeepsTheFilter() throws InterruptedException {
+        when(web3JFacade.newFilter(any(EthFilter.class))).thenReturn(FIRST_FILTER);
+        when(web3JFacade.getFilterChanges(FIRST_FILTER))
+                .thenThrow(new EthereumApiException("error while polling the log filter 1", new IOException("timeout")))
+                .thenReturn(Collections.singletonList(log("0x65")));
+
+        subscribe();
+        awaitLogs(1);
+
+        verify(web3JFacade, times(1)).newFilter(any(EthFilter.class));
+        verify(web3JFacade, never()).getLogs(any(EthFilter.class));
+    }
+
+    @Test
+    public void failedRecreationIsRetriedOnTheNextPoll() throws InterruptedException {
+        when(web3JFacade.newFilter(any(EthFilter.class)))
+                .thenReturn(FIRST_FILTER)
+                .thenThrow(new EthereumApiException("error while creating a log filter", new IOException("connection reset")))
+                .thenReturn(SECOND_FILTER);
+        when(web3JFacade.getFilterChanges(FIRST_FILTER)).thenThrow(new EthereumApiException("filter not found"));
+        when(web3JFacade.getFilterChanges(SECOND_FILTER)).thenReturn(Collections.emptyList());
+        when(web3JFacade.getLogs(any(EthFilter.class))).thenReturn(Collections.singletonList(log("0x65")));
+
+        subscribe();
+        awaitLogs(1);
+
+        verify(web3JFacade, times(3)).newFilter(any(EthFilter.class));
+    }
+
+    @Test
+    public void onlyTheNodeFilterErrorMeansTheFilterIsGone() {
+        assertTrue(LogPoller.isFilterNotFound(new EthereumApiException("filter not found")));
+        assertTrue(LogPoller.isFilterNotFound(new EthereumApiException("Filter does not exist")));
+        assertFalse(LogPoller.isFilterNotFound(new EthereumApiException("error while polling the log filter 1", new IOException("filter not found"))));
+        assertFalse(LogPoller.isFilterNotFound(new EthereumApiException("header not found")));
+    }
+
+    private void subscribe() {
+        subscription = logPoller.observe(LogFilter.anyAddress()).subscribe(received::add);
+    }
+
+    private void awaitLogs(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (received.size() < count) {
+            assertTrue("no log received", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static Log log(String blockNumber) {
+        Log log = new Log();
+        log.setBlockNumber(blockNumber);
+        log.setTopics(Collections.emptyList());
+        log.setData("0x");
+        return log;
+    }
+}
@@ -0,0 +1,68 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class LruCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsedEntryWhenFull() {
+        LruCache<String, String> cache = new LruCache<>(2, 1_000);
+        cache.put("a", "1", 10);
+        cache.put("b", "2", 10);
+        cache.get("a");
+        cache.put("c", "3", 10);
+
+        assertEquals(Optional.of("1"), cache.get("a"));
+        assertFalse(cache.get("b").isPresent());
+        assertEquals(Optional.of("3"), cache.get("c"));
+    }
+
+    @Test
+    public void evictsUntilBelowMaxBytes() {
+        LruCache<String, String> cache = new LruCache<>(100, 25);
+        cache.put("a", "1", 10);
+        cache.put("b", "2", 10);
+        cache.put("c", "3", 10);
+
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.sizeInBytes());
+        assertFalse(cache.get("a").isPresent());
+    }
+
+    @Test
+    public void ignoresEntriesBiggerThanTheCache() {
+        LruCache<String, String> cache = new LruCache<>(100, 25);
+        cache.put("a", "1", 26);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void replacingAnEntryWithOneBiggerThanTheCacheRemovesIt() {
+        LruCache<String, String> cache = new LruCache<>(100, 25);
+        cache.put("a", "1", 10);
+        cache.put("a", "2", 26);
+
+        assertFalse(cache.get("a").isPresent());
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    public void replacingAnEntryUpdatesItsSize() {
+        LruCache<String, String> cache = new LruCache<>(100, 1_000);
+        cache.put("a", "1", 10);
+        cache.put("a", "2", 30);
+
+        assertEquals(30, cache.sizeInBytes());
+        assertTrue(cache.get("a").isPresent());
+    }
+}
@@ -0,0 +1,144 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.Test;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class NodePoolTest {
+    private final Web3jService first = mock(Web3jService.class);
+    private final Web3jService second = mock(Web3jService.class);
+
+    @Test
+    public void readsAreRetriedOnTheNextNode() throws IOException {
+        Request<?, EthGetBalance> request = new Request<>("eth_getBalance", Collections.emptyList(), null, EthGetBalance.class);
+        EthGetBalance response = new EthGetBalance();
+        when(first.send(eq(request), eq(EthGetBalance.class))).thenThrow(new IOException("connection refused"));
+        when(second.send(eq(request), eq(EthGetBalance.class))).thenReturn(response);
+
+        try (NodePool pool = createPool()) {
+            assertSame(response, pool.send(request, EthGetBalance.class));
+        }
+    }
+
+    @Test
+    public void transactionsStayOnThePrimary() throws IOException {
+        Request<?, EthSendTransaction> request = new Request<>("eth_sendRawTransaction", Collections.emptyList(), null, EthSendTransaction.class);
+        when(first.send(eq(request), eq(EthSendTransaction.class))).thenThrow(new IOException("connection refused"));
+
+        try (NodePool pool = createPool()) {
+            pool.send(request, EthSendTransaction.class);
+            fail("the transaction should not be sent to another node");
+        } catch (IOException e) {
+            verify(second, never()).send(eq(request), eq(EthSendTransaction.class));
+        }
+    }
+
+    @Test
+    public void filterCallsStayOnThePrimary() throws IOException {
+        Request<?, EthLog> request = new Request<>("eth_getFilterChanges", Collections.singletonList("0x1"), null, EthLog.class);
+        when(first.send(eq(request), eq(EthLog.class))).thenThrow(new IOException("connection refused"));
+
+        try (NodePool pool = createPool(10)) {
+            pool.send(request, EthLog.class);
+            fail("the filter should not be polled on another node");
+        } catch (IOException e) {
+            verify(second, never()).send(eq(request), eq(EthLog.class));
+        }
+    }
+
+    @Test
+    public void pendingNonceStaysOnThePrimary() throws IOException {
+        Request<?, EthGetTransactionCount> request = new Request<>("eth_getTransactionCount",
+                Arrays.asList("0x0000000000000000000000000000000000000002", "pending"), null, EthGetTransactionCount.class);
+        when(first.send(eq(request), eq(EthGetTransactionCount.class))).thenThrow(new IOException("connection refused"));
+
+        try (NodePool pool = createPool(10)) {
+            pool.send(request, EthGetTransactionCount.class);
+            fail("the pending nonce should not be read from another node");
+        } catch (IOException e) {
+            verify(second, never()).send(eq(request), eq(EthGetTransactionCount.class));
+        }
+    }
+
+    @Test
+    public void failingNodeIsSkippedUntilItsCooldownIsOver() throws IOException {
+        Request<?, EthGetBalance> request = new Request<>("eth_getBalance", Collections.emptyList(), null, EthGetBalance.class);
+        when(first.send(eq(request), eq(EthGetBalance.class))).thenThrow(new IOException("connection refused"));
+        //the second node is slower, only the open circuit keeps the first one from being tried first
+        when(second.send(eq(request), eq(EthGetBalance.class))).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return new EthGetBalance();
+        });
+
+        try (NodePool pool = createPool(2)) {
+            for (int i = 0; i < 5; i++) {
+                pool.send(request, EthGetBalance.class);
+            }
+            verify(first, times(2)).send(eq(request), eq(EthGetBalance.class));
+            assertTrue(pool.getStatus().get(0).circuitOpen);
+        }
+    }
+
+    @Test
+    public void laggingNodeIsTriedLast() throws IOException {
+        when(first.send(any(Request.class), eq(EthBlockNumber.class))).thenReturn(blockNumber("0x5a"));
+        when(second.send(any(Request.class), eq(EthBlockNumber.class))).thenReturn(blockNumber("0x64"));
+        Request<?, EthGetBalance> request = new Request<>("eth_getBalance", Collections.emptyList(), null, EthGetBalance.class);
+        EthGetBalance response = new EthGetBalance();
+        when(second.send(eq(request), eq(EthGetBalance.class))).thenReturn(response);
+
+        try (NodePool pool = createPool(10)) {
+            pool.checkHealth();
+
+            assertTrue(pool.getStatus().get(0).lagging);
+            assertFalse(pool.getStatus().get(1).lagging);
+            assertSame(response, pool.send(request, EthGetBalance.class));
+            verify(first, never()).send(eq(request), eq(EthGetBalance.class));
+        }
+    }
+
+    private static EthBlockNumber blockNumber(String number) {
+        EthBlockNumber blockNumber = new EthBlockNumber();
+        blockNumber.setResult(number);
+        return blockNumber;
+    }
+
+    private NodePool createPool() {
+        return createPool(10);
+    }
+
+    private NodePool createPool(int failureThreshold) {
+        return NodePool.builder()
+                .node("first", first)
+                .node("second", second)
+                .healthCheckInterval(0, TimeUnit.MILLISECONDS)
+                .maxBlockLag(3)
+                .circuitBreaker(failureThreshold, 1, TimeUnit.HOURS)
+                .build();
+    }
+}
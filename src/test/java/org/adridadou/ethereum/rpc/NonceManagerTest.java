@@ -0,0 +1,90 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.Nonce;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class NonceManagerTest {
+    private static final EthAddress ADDRESS = EthAddress.of("0x39a5a6b3d4bbc1be1a2d7b0e6f0a53e0d05a5f55");
+
+    private final AtomicLong pending = new AtomicLong(5);
+    private final NonceManager nonceManager = new NonceManager(address -> BigInteger.valueOf(pending.get()));
+
+    @Test
+    public void allocatesFromThePendingCount() {
+        assertEquals(5, nonceManager.allocate(ADDRESS).getValue().longValue());
+        assertEquals(6, nonceManager.allocate(ADDRESS).getValue().longValue());
+        assertEquals(7, nonceManager.next(ADDRESS).getValue().longValue());
+    }
+
+    @Test
+    public void releasedNoncesAreReusedFirst() {
+        Nonce first = nonceManager.allocate(ADDRESS);
+        nonceManager.allocate(ADDRESS);
+        nonceManager.release(ADDRESS, first);
+
+        assertEquals(5, nonceManager.allocate(ADDRESS).getValue().longValue());
+        assertEquals(7, nonceManager.allocate(ADDRESS).getValue().longValue());
+    }
+
+    @Test
+    public void resyncStartsAgainFromTheNode() {
+        nonceManager.allocate(ADDRESS);
+        pending.set(10);
+        nonceManager.resync(ADDRESS);
+
+        assertEquals(10, nonceManager.allocate(ADDRESS).getValue().longValue());
+    }
+
+    @Test
+    public void resyncKeepsTheNoncesStillInFlight() {
+        nonceManager.allocate(ADDRESS);
+        Nonce failed = nonceManager.allocate(ADDRESS);
+        nonceManager.allocate(ADDRESS);
+        nonceManager.release(ADDRESS, failed);
+        //the node has only seen the first transaction so far
+        pending.set(6);
+        nonceManager.resync(ADDRESS);
+
+        assertEquals(6, nonceManager.allocate(ADDRESS).getValue().longValue());
+        assertEquals(8, nonceManager.allocate(ADDRESS).getValue().longValue());
+    }
+
+    @Test
+    public void detectsNonceConflicts() {
+        assertTrue(NonceManager.isNonceConflict("nonce too low"));
+        assertTrue(NonceManager.isNonceConflict("replacement transaction underpriced"));
+        assertFalse(NonceManager.isNonceConflict("insufficient funds for gas * price + value"));
+        assertFalse(NonceManager.isNonceConflict("already known"));
+        assertFalse(NonceManager.isNonceConflict(null));
+    }
+
+    @Test
+    public void detectsTransactionsAlreadyInThePool() {
+        assertTrue(NonceManager.isAlreadyKnown("already known"));
+        assertTrue(NonceManager.isAlreadyKnown("known transaction: 5f2c"));
+        assertFalse(NonceManager.isAlreadyKnown("nonce too low"));
+    }
+
+    @Test
+    public void claimsOnlyTheNextOrAReleasedNonce() {
+        Nonce first = nonceManager.allocate(ADDRESS);
+        nonceManager.release(ADDRESS, first);
+
+        assertTrue(nonceManager.claim(ADDRESS, first));
+        assertTrue(nonceManager.claim(ADDRESS, new Nonce(BigInteger.valueOf(6))));
+        assertFalse(nonceManager.claim(ADDRESS, new Nonce(BigInteger.valueOf(5))));
+        assertFalse(nonceManager.claim(ADDRESS, new Nonce(BigInteger.valueOf(9))));
+        assertEquals(7, nonceManager.allocate(ADDRESS).getValue().longValue());
+    }
+}
@@ -0,0 +1,107 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.Test;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class RateLimitedRpcServiceTest {
+    private final Web3jService delegate = mock(Web3jService.class);
+    private final RateLimiter limiter = RateLimiter.builder(1_000).build();
+
+    @Test
+    public void rateLimitedCallsAreRetriedAfterBackingOff() throws IOException {
+        Request<?, EthGetBalance> request = new Request<>("eth_getBalance", Collections.emptyList(), null, EthGetBalance.class);
+        EthGetBalance response = new EthGetBalance();
+        when(delegate.send(eq(request), eq(EthGetBalance.class)))
+                .thenThrow(new IOException("Invalid response received: 429; Too Many Requests"))
+                .thenReturn(response);
+
+        RateLimitedRpcService service = new RateLimitedRpcService(delegate, limiter, RpcMetrics.NOOP);
+
+        assertSame(response, service.send(request, EthGetBalance.class));
+        assertEquals(1, limiter.getRateLimitedCount());
+        assertTrue(limiter.getRate() < 1_000);
+    }
+
+    @Test
+    public void rateLimitedAsyncCallsAreRetried() throws Exception {
+        Request<?, EthGetBalance> request = new Request<>("eth_getBalance", Collections.emptyList(), null, EthGetBalance.class);
+        EthGetBalance response = new EthGetBalance();
+        CompletableFuture<EthGetBalance> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new IOException("Invalid response received: 429; Too Many Requests"));
+        when(delegate.sendAsync(eq(request), eq(EthGetBalance.class)))
+                .thenReturn(rejected)
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        RateLimitedRpcService service = new RateLimitedRpcService(delegate, limiter, RpcMetrics.NOOP);
+
+        assertSame(response, service.sendAsync(request, EthGetBalance.class).get(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getRateLimitedCount());
+    }
+
+    @Test
+    public void onlyRateLimitErrorsAreRetried() {
+        assertTrue(RateLimitedRpcService.isRateLimited(error(429, "Your app has exceeded its compute units per second capacity")));
+        assertTrue(RateLimitedRpcService.isRateLimited(error(-32005, "daily request count exceeded, request rate limited")));
+        assertFalse(RateLimitedRpcService.isRateLimited(error(-32005, "query returned more than 10000 results")));
+        assertFalse(RateLimitedRpcService.isRateLimited(error(-32000, "gas limit exceeded")));
+        assertFalse(RateLimitedRpcService.isRateLimited(new IOException("no response from ws://localhost:8546 after 4290ms")));
+    }
+
+    @Test
+    public void theRateGrowsBackWithSuccessfulCalls() {
+        limiter.onRateLimited();
+        assertEquals(500, limiter.getRate(), 0.001);
+
+        limiter.onSuccess();
+        assertEquals(510, limiter.getRate(), 0.001);
+    }
+
+    @Test
+    public void aCopyHasItsOwnCredits() throws InterruptedException {
+        RateLimiter original = RateLimiter.builder(1).burst(1).build();
+        RateLimiter copy = original.copy();
+        original.acquire(1, RateLimiter.Priority.NORMAL);
+        original.onRateLimited();
+
+        long start = System.nanoTime();
+        copy.acquire(1, RateLimiter.Priority.NORMAL);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(1, copy.getRate(), 0.001);
+        assertEquals(10, copy.weight("eth_getLogs"));
+    }
+
+    @Test
+    public void methodsAreWeightedAndPrioritized() {
+        assertEquals(10, limiter.weight("eth_getLogs"));
+        assertEquals(1, limiter.weight("eth_blockNumber"));
+        assertEquals(RateLimiter.Priority.HIGH, limiter.priority("eth_sendRawTransaction"));
+        assertEquals(RateLimiter.Priority.LOW, RateLimiter.withPriority(RateLimiter.Priority.LOW, () -> limiter.priority("eth_getBlockByNumber")));
+        assertEquals(RateLimiter.Priority.NORMAL, limiter.priority("eth_getBlockByNumber"));
+    }
+
+    private static EthGetBalance error(int code, String message) {
+        EthGetBalance response = new EthGetBalance();
+        response.setError(new Response.Error(code, message));
+        return response;
+    }
+}
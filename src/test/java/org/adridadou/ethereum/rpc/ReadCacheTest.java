@@ -0,0 +1,60 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.junit.Test;
+import org.web3j.protocol.core.DefaultBlockParameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class ReadCacheTest {
+    private static final EthAddress ADDRESS = EthAddress.of("0x0000000000000000000000000000000000000002");
+
+    private final ReadCache cache = new ReadCache(100, 1_000_000, 10, 1_000_000);
+    private final List<String> loadedBlocks = new ArrayList<>();
+    private final Function<DefaultBlockParameter, String> loader = block -> {
+        loadedBlocks.add(block.getValue());
+        return "value at " + block.getValue();
+    };
+
+    @Test
+    public void readsGoToLatestUntilABlockIsKnown() {
+        assertEquals("value at latest", read());
+        assertEquals("value at latest", read());
+
+        assertEquals(Arrays.asList("latest", "latest"), loadedBlocks);
+    }
+
+    @Test
+    public void readsArePinnedToTheCurrentBlock() {
+        cache.onNewBlock(100);
+
+        assertEquals("value at 0x64", read());
+        assertEquals("value at 0x64", read());
+
+        assertEquals(Arrays.asList("0x64"), loadedBlocks);
+    }
+
+    @Test
+    public void entriesAreDroppedOnANewBlock() {
+        cache.onNewBlock(100);
+        read();
+        cache.onNewBlock(100);
+        read();
+        cache.onNewBlock(101);
+
+        assertEquals("value at 0x65", read());
+        assertEquals(Arrays.asList("0x64", "0x65"), loadedBlocks);
+    }
+
+    private String read() {
+        return cache.read("eth_getBalance", null, ADDRESS, null, loader, value -> value.length());
+    }
+}
@@ -0,0 +1,63 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.values.EventData;
+import org.junit.Test;
+import org.web3j.protocol.ObjectMapperFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class ReceiptDecoderTest {
+    private static final String TX_HASH = "0x1111111111111111111111111111111111111111111111111111111111111111";
+    private static final String BLOCK_HASH = "0x2222222222222222222222222222222222222222222222222222222222222222";
+    private static final String TRANSFER_TOPIC = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+    private static final String FROM_TOPIC = "0x0000000000000000000000003535353535353535353535353535353535353535";
+
+    @Test
+    public void decodesReceiptsAndLogs() throws IOException {
+        String json = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":[{"
+                + "\"transactionHash\":\"" + TX_HASH + "\",\"transactionIndex\":\"0x0\",\"blockHash\":\"" + BLOCK_HASH + "\","
+                + "\"blockNumber\":\"0x4c4b40\",\"cumulativeGasUsed\":\"0xcb20\",\"gasUsed\":\"0xcb20\",\"contractAddress\":null,"
+                + "\"logsBloom\":\"0x00\",\"status\":\"0x1\",\"from\":\"0x3535353535353535353535353535353535353535\","
+                + "\"to\":\"0x0000000000000000000000000000000000000001\",\"logs\":[{\"removed\":false,\"logIndex\":\"0x0\","
+                + "\"transactionHash\":\"" + TX_HASH + "\",\"address\":\"0x0000000000000000000000000000000000000001\","
+                + "\"data\":\"0x0f\",\"topics\":[\"" + TRANSFER_TOPIC + "\",\"" + FROM_TOPIC + "\"]}]"
+                + "},{\"transactionHash\":\"" + TX_HASH + "\",\"gasUsed\":\"0x5208\",\"status\":\"0x0\",\"logs\":[]}]}";
+
+        List<DecodedReceipt> receipts = ObjectMapperFactory.getObjectMapper().readValue(json, EthDecodedReceipts.class).getResult();
+
+        assertEquals(2, receipts.size());
+        DecodedReceipt receipt = receipts.get(0);
+        assertEquals(TX_HASH, receipt.getTransactionHash().withLeading0x());
+        assertEquals(BLOCK_HASH, receipt.getBlockHash().withLeading0x());
+        assertEquals("0x3535353535353535353535353535353535353535", receipt.getFrom().withLeading0x());
+        assertTrue(receipt.getContractAddress().isEmpty());
+        assertEquals(BigInteger.valueOf(0xcb20), receipt.getGasUsed());
+        assertTrue(receipt.getStatus());
+
+        EventData event = receipt.getEvents().get(0);
+        assertEquals(TX_HASH, event.getTransactionHash().withLeading0x());
+        assertEquals(TRANSFER_TOPIC, event.getEventSignature().withLeading0x());
+        assertEquals(1, event.getIndexedArguments().size());
+        assertEquals("0x0f", event.getEventArguments().withLeading0x());
+
+        assertFalse(receipts.get(1).getStatus());
+        assertTrue(receipts.get(1).getEvents().isEmpty());
+    }
+
+    @Test
+    public void missingStatusIsNull() throws IOException {
+        String json = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"transactionHash\":\"" + TX_HASH + "\",\"gasUsed\":\"0x5208\",\"logs\":[]}}";
+
+        assertNull(ObjectMapperFactory.getObjectMapper().readValue(json, EthDecodedReceipt.class).getResult().getStatus());
+    }
+}
@@ -0,0 +1,74 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.event.BlockInfo;
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.adridadou.ethereum.propeller.values.EthHash;
+import org.adridadou.ethereum.propeller.values.EthValue;
+import org.adridadou.ethereum.propeller.values.TransactionInfo;
+import org.adridadou.ethereum.propeller.values.TransactionReceipt;
+import org.adridadou.ethereum.propeller.values.TransactionStatus;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class ReceiptWatcherTest {
+    private static final EthHash BLOCK_HASH = EthHash.of("0x2222222222222222222222222222222222222222222222222222222222222222");
+    private static final EthHash IN_BLOCK = EthHash.of("0x1111111111111111111111111111111111111111111111111111111111111111");
+    private static final EthHash MINED_EARLIER = EthHash.of("0x3333333333333333333333333333333333333333333333333333333333333333");
+    private static final EthHash STILL_PENDING = EthHash.of("0x4444444444444444444444444444444444444444444444444444444444444444");
+
+    private final List<List<EthHash>> lookups = new ArrayList<>();
+    private final ReceiptWatcher watcher = new ReceiptWatcher((hashes, maxBlockNumber) -> {
+        lookups.add(hashes);
+        return CompletableFuture.completedFuture(hashes.contains(MINED_EARLIER)
+                ? Collections.singletonList(info(MINED_EARLIER))
+                : Collections.emptyList());
+    });
+
+    @Test
+    public void blockReceiptsAreMatchedAndTheRestIsLookedUpInOnePass() {
+        CompletableFuture<TransactionInfo> inBlock = watcher.watch(IN_BLOCK);
+        CompletableFuture<TransactionInfo> minedEarlier = watcher.watch(MINED_EARLIER);
+        CompletableFuture<TransactionInfo> stillPending = watcher.watch(STILL_PENDING);
+
+        watcher.onBlock(new BlockInfo(10, Collections.singletonList(receipt(IN_BLOCK))));
+
+        assertTrue(inBlock.isDone());
+        assertTrue(minedEarlier.isDone());
+        assertFalse(stillPending.isDone());
+        assertEquals(1, lookups.size());
+        assertEquals(2, lookups.get(0).size());
+        assertEquals(1, watcher.getPendingCount());
+    }
+
+    @Test
+    public void cancelledHashesAreNoLongerWatched() {
+        watcher.watch(STILL_PENDING).cancel(false);
+
+        watcher.onBlock(new BlockInfo(10, Collections.emptyList()));
+
+        assertEquals(0, watcher.getPendingCount());
+        assertTrue(lookups.isEmpty());
+    }
+
+    private static TransactionInfo info(EthHash hash) {
+        return new TransactionInfo(hash, receipt(hash), TransactionStatus.Executed, BLOCK_HASH);
+    }
+
+    private static TransactionReceipt receipt(EthHash hash) {
+        return new TransactionReceipt(hash, BLOCK_HASH, EthAddress.of("0x3535353535353535353535353535353535353535"),
+                EthAddress.of("0x0000000000000000000000000000000000000001"), EthAddress.empty(), "", EthData.empty(), true,
+                Collections.emptyList(), EthValue.wei(0));
+    }
+}
@@ -0,0 +1,112 @@
+package org.adridadou.ethereum.rpc;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class RpcRecorderTest {
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private final Interceptor.Chain chain = mock(Interceptor.Chain.class);
+    private Path file;
+
+    @After
+    public void cleanUp() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void recordedExchangesAreReadBack() throws IOException {
+        file = Files.createTempFile("rpc", ".rec");
+        String payload = "{\"jsonrpc\":\"2.0\",\"method\":\"eth_blockNumber\",\"params\":[],\"id\":1}";
+        String result = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x4c4b40\"}";
+        Request request = new Request.Builder()
+                .url("http://localhost:8545")
+                .post(RequestBody.create(JSON, payload))
+                .build();
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(request)).thenAnswer(invocation -> new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(JSON, result))
+                .build());
+
+        try (RpcRecorder recorder = RpcRecorder.open(file)) {
+            assertEquals(result, recorder.intercept(chain).body().string());
+            recorder.intercept(chain).body().string();
+        }
+
+        List<RpcRecorder.Exchange> exchanges = RpcRecorder.read(file);
+        assertEquals(2, exchanges.size());
+        assertEquals(payload, exchanges.get(0).getRequest());
+        assertEquals(result, exchanges.get(0).getResponse());
+        assertTrue(exchanges.get(1).getOffsetNanos() >= exchanges.get(0).getOffsetNanos());
+    }
+
+    @Test
+    public void cutRecordingIsReadUpToItsLastCompleteExchange() throws IOException {
+        file = Files.createTempFile("rpc", ".rec");
+        Random random = new Random(42);
+        try (RpcRecorder recorder = RpcRecorder.open(file)) {
+            for (int i = 0; i < 20; i++) {
+                String payload = "{\"jsonrpc\":\"2.0\",\"method\":\"eth_call\",\"params\":[\"" + new BigInteger(256, random).toString(16) + "\"],\"id\":" + i + "}";
+                String result = "{\"jsonrpc\":\"2.0\",\"id\":" + i + ",\"result\":\"0x" + new BigInteger(256, random).toString(16) + "\"}";
+                recorded(payload, result);
+                recorder.intercept(chain).body().string();
+            }
+        }
+        //the process was killed while writing
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 40);
+        }
+
+        List<RpcRecorder.Exchange> exchanges = RpcRecorder.read(file);
+
+        assertFalse(exchanges.isEmpty());
+        assertTrue(exchanges.size() < 20);
+        assertTrue(exchanges.get(0).getRequest().endsWith("\"id\":0}"));
+    }
+
+    private void recorded(String payload, String result) throws IOException {
+        Request request = new Request.Builder()
+                .url("http://localhost:8545")
+                .post(RequestBody.create(JSON, payload))
+                .build();
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(request)).thenAnswer(invocation -> new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(JSON, result))
+                .build());
+    }
+}
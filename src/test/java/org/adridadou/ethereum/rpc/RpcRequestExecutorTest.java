@@ -0,0 +1,64 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class RpcRequestExecutorTest {
+
+    @Test
+    public void callsAboveTheLimitAreQueued() throws Exception {
+        RpcRequestExecutor executor = new RpcRequestExecutor(RpcRequestExecutor.defaultExecutor(), 2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            calls.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                release.await();
+                running.decrementAndGet();
+                return 1;
+            }));
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (running.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, executor.getInFlight());
+        assertEquals(3, executor.getQueued());
+        release.countDown();
+
+        for (CompletableFuture<Integer> call : calls) {
+            assertEquals(1, call.get(5, TimeUnit.SECONDS).intValue());
+        }
+        assertEquals(2, maxRunning.get());
+        //the slot is released right after the result is completed
+        deadline = System.currentTimeMillis() + 5_000;
+        while (executor.getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.getInFlight());
+    }
+
+    @Test
+    public void nestedCallsDoNotWaitForASlot() throws Exception {
+        RpcRequestExecutor executor = new RpcRequestExecutor(RpcRequestExecutor.defaultExecutor(), 1);
+
+        CompletableFuture<Integer> outer = executor.submit(() -> executor.submit(() -> 1).join() + 1);
+
+        assertEquals(2, outer.get(5, TimeUnit.SECONDS).intValue());
+        assertEquals(0, executor.getQueued());
+    }
+}
@@ -0,0 +1,71 @@
+package org.adridadou.ethereum.rpc;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class SingleFlightTest {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private final SingleFlight singleFlight = new SingleFlight(Collections.singleton("eth_blockNumber"), new RpcMetrics() {
+        @Override
+        public void requestCoalesced(String method) {
+            coalesced.incrementAndGet();
+        }
+    });
+
+    @Test
+    public void concurrentIdenticalReadsShareOneCall() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> singleFlight.execute("eth_blockNumber", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return 42L;
+        }));
+        started.await();
+
+        CompletableFuture<Long> second = CompletableFuture.supplyAsync(() -> singleFlight.execute("eth_blockNumber", () -> {
+            calls.incrementAndGet();
+            return 43L;
+        }));
+        while (coalesced.get() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals(42L, first.get().longValue());
+        assertEquals(42L, second.get().longValue());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void otherMethodsAreNotCoalesced() {
+        singleFlight.execute("eth_gasPrice", calls::incrementAndGet);
+        singleFlight.execute("eth_gasPrice", calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void writesCannotBeCoalesced() {
+        new SingleFlight(Collections.singleton("eth_sendRawTransaction"), RpcMetrics.NOOP);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
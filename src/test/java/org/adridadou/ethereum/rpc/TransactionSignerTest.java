@@ -0,0 +1,37 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.values.ChainId;
+import org.adridadou.ethereum.propeller.values.EthAccount;
+import org.junit.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class TransactionSignerTest {
+    private static final BigInteger PRIVATE_KEY = new BigInteger("4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318", 16);
+
+    @Test
+    public void signsLikeTheWeb3jEncoder() {
+        TransactionSigner signer = new TransactionSigner(ChainId.id(3), 10);
+        RawTransaction transaction = RawTransaction.createTransaction(BigInteger.valueOf(9), BigInteger.valueOf(20_000_000_000L),
+                BigInteger.valueOf(21_000), "0x3535353535353535353535353535353535353535", BigInteger.TEN.pow(18), "");
+        String expected = Numeric.toHexString(TransactionEncoder.signMessage(transaction, (byte) 3, Credentials.create(ECKeyPair.create(PRIVATE_KEY))));
+
+        //the second signature uses the cached credentials
+        for (int i = 0; i < 2; i++) {
+            TransactionSigner.SignedTransaction signed = signer.sign(new EthAccount(PRIVATE_KEY), transaction);
+            assertEquals(expected, signed.toHex());
+            assertEquals(Hash.sha3(expected), signed.getHash().withLeading0x());
+        }
+    }
+}
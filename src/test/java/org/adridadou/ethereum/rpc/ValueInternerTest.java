@@ -0,0 +1,44 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.adridadou.ethereum.propeller.values.EthData;
+import org.junit.Test;
+
+import java.nio.CharBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class ValueInternerTest {
+    private static final String TRANSFER = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+
+    @Test
+    public void repeatedValuesShareOneInstance() {
+        EthData topic = ValueInterner.topic(TRANSFER);
+
+        assertSame(topic, ValueInterner.topic(TRANSFER.substring(2).toUpperCase()));
+        assertSame(topic, ValueInterner.topic(CharBuffer.wrap(("[\"" + TRANSFER + "\"]").toCharArray(), 2, TRANSFER.length())));
+        assertSame(topic, ValueInterner.topic(EthData.of(TRANSFER).data));
+        assertEquals(EthData.of(TRANSFER), topic);
+    }
+
+    @Test
+    public void reusingTheInternedArrayDoesNotChangeTheEntry() {
+        byte[] bytes = EthAddress.of("0x3636363636363636363636363636363636363636").address;
+        EthAddress address = ValueInterner.address(bytes);
+        bytes[0] = 0x37;
+
+        assertEquals(EthAddress.of("0x3636363636363636363636363636363636363636"), address);
+        assertEquals(EthAddress.of("0x3636363636363636363636363636363636363636"), ValueInterner.address("0x3636363636363636363636363636363636363636"));
+    }
+
+    @Test
+    public void addressesAreDecodedAsAddresses() {
+        EthAddress address = ValueInterner.address("0x3535353535353535353535353535353535353535");
+
+        assertEquals(EthAddress.of("0x3535353535353535353535353535353535353535"), address);
+    }
+}
@@ -0,0 +1,115 @@
+package org.adridadou.ethereum.rpc;
+
+import org.adridadou.ethereum.propeller.exception.EthereumApiException;
+import org.adridadou.ethereum.propeller.values.EthAddress;
+import org.junit.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+import org.mockito.ArgumentCaptor;
+import rx.Observable;
+import rx.subjects.PublishSubject;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class Web3JFacadeTest {
+    private static final EthAddress ADDRESS = EthAddress.of("0x0000000000000000000000000000000000000002");
+
+    private final Web3j web3j = mock(Web3j.class);
+    private final Web3JFacade web3JFacade = new Web3JFacade(web3j, null, RpcRequestExecutor.create(), new ReadCache(100, 1_000_000, 10, 1_000_000));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void balanceErrorsAreThrownAndNotCached() throws IOException {
+        EthGetBalance error = new EthGetBalance();
+        error.setError(new Response.Error(-32000, "header not found"));
+        EthGetBalance balance = new EthGetBalance();
+        balance.setResult("0x2a");
+        Request<?, EthGetBalance> request = mock(Request.class);
+        when(request.send()).thenReturn(error, balance);
+        when(web3j.ethGetBalance(anyString(), any(DefaultBlockParameter.class))).thenAnswer(invocation -> request);
+        web3JFacade.onNewBlock(100);
+
+        try {
+            web3JFacade.getBalance(ADDRESS);
+            fail("the error should be thrown");
+        } catch (EthereumApiException e) {
+            assertEquals(BigInteger.valueOf(42), web3JFacade.getBalance(ADDRESS).getBalance());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void logsMissedWhileReconnectingAreFilledUpToTheHead() throws Exception {
+        WebSocketRpcService service = mock(WebSocketRpcService.class);
+        PublishSubject<Log> liveLogs = PublishSubject.create();
+        ArgumentCaptor<Runnable> onRenewed = ArgumentCaptor.forClass(Runnable.class);
+        when(service.subscribe(eq(Log.class), onRenewed.capture(), anyList())).thenReturn(liveLogs);
+        Request<?, EthBlockNumber> blockNumber = mock(Request.class);
+        when(blockNumber.send()).thenReturn(blockNumber(100), blockNumber(110));
+        when(web3j.ethBlockNumber()).thenAnswer(invocation -> blockNumber);
+        EthLog missed = new EthLog();
+        missed.setResult(Collections.<EthLog.LogResult>singletonList(log(105)));
+        Request<?, EthLog> getLogs = mock(Request.class);
+        when(getLogs.send()).thenReturn(missed);
+        ArgumentCaptor<EthFilter> filter = ArgumentCaptor.forClass(EthFilter.class);
+        when(web3j.ethGetLogs(filter.capture())).thenAnswer(invocation -> getLogs);
+        Web3JFacade facade = new Web3JFacade(web3j, service);
+        List<Log> logs = new CopyOnWriteArrayList<>();
+
+        Observable<Log> observable = facade.subscribeLogs(LogFilter.anyAddress()).get();
+        observable.subscribe(logs::add);
+        onRenewed.getValue().run();
+        liveLogs.onNext(log(110));
+        liveLogs.onNext(log(111));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (logs.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("0x65", filter.getValue().getFromBlock().getValue());
+        assertEquals("0x6e", filter.getValue().getToBlock().getValue());
+        assertEquals(Arrays.asList(BigInteger.valueOf(105), BigInteger.valueOf(111)),
+                logs.stream().map(Log::getBlockNumber).collect(Collectors.toList()));
+        facade.close();
+    }
+
+    private static EthBlockNumber blockNumber(long number) {
+        EthBlockNumber response = new EthBlockNumber();
+        response.setResult("0x" + Long.toHexString(number));
+        return response;
+    }
+
+    private static EthLog.LogObject log(long blockNumber) {
+        EthLog.LogObject log = new EthLog.LogObject();
+        log.setBlockNumber("0x" + Long.toHexString(blockNumber));
+        log.setTopics(Collections.emptyList());
+        log.setData("0x");
+        return log;
+    }
+}
@@ -0,0 +1,149 @@
+package org.adridadou.ethereum.rpc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import rx.Subscription;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * This code is released under Apache 2 license
+ */
+public class WebSocketRpcServiceTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OkHttpClient client = mock(OkHttpClient.class);
+    private final WebSocket socket = mock(WebSocket.class);
+    private final List<String> sentMethods = new CopyOnWriteArrayList<>();
+    private volatile WebSocketListener listener;
+    private WebSocketRpcService service;
+
+    @Before
+    public void before() {
+        when(client.newWebSocket(any(), any())).thenAnswer(invocation -> {
+            listener = invocation.getArgument(1);
+            listener.onOpen(socket, null);
+            return socket;
+        });
+        when(socket.send(anyString())).thenAnswer(invocation -> {
+            reply(objectMapper.readTree(invocation.<String>getArgument(0)));
+            return true;
+        });
+        service = new WebSocketRpcService("ws://localhost:8546", client, 5_000);
+    }
+
+    @After
+    public void after() {
+        service.close();
+    }
+
+    @Test
+    public void responsesAreMatchedById() throws IOException {
+        Request<?, EthBlockNumber> first = new Request<>("eth_blockNumber", Collections.emptyList(), service, EthBlockNumber.class);
+        Request<?, EthBlockNumber> second = new Request<>("eth_blockNumber", Collections.emptyList(), service, EthBlockNumber.class);
+
+        List<EthBlockNumber> responses = service.sendBatch(Arrays.asList(first, second), EthBlockNumber.class);
+
+        assertEquals(BigInteger.valueOf(first.getId()), responses.get(0).getBlockNumber());
+        assertEquals(BigInteger.valueOf(second.getId()), responses.get(1).getBlockNumber());
+    }
+
+    @Test
+    public void unsubscribingFromANotificationDoesNotWaitForTheReply() {
+        AtomicReference<Subscription> subscription = new AtomicReference<>();
+        subscription.set(service.subscribe("newHeads").subscribe(head -> subscription.get().unsubscribe()));
+
+        long start = System.currentTimeMillis();
+        notification("0xsub");
+
+        assertTrue(subscription.get().isUnsubscribed());
+        assertTrue(System.currentTimeMillis() - start < 1_000);
+        assertTrue(sentMethods.contains("eth_unsubscribe"));
+    }
+
+    @Test
+    public void subscriptionsAreRenewedWhenTheConnectionIsLost() throws InterruptedException {
+        CountDownLatch renewed = new CountDownLatch(1);
+        List<JsonNode> heads = new CopyOnWriteArrayList<>();
+        service.subscribe(renewed::countDown, Collections.singletonList("newHeads")).subscribe(heads::add);
+
+        listener.onFailure(socket, new IOException("connection reset"), null);
+
+        assertTrue(renewed.await(5, TimeUnit.SECONDS));
+        assertEquals(2, sentMethods.stream().filter("eth_subscribe"::equals).count());
+        notification("0xsub");
+        assertEquals(1, heads.size());
+    }
+
+    @Test
+    public void serverCloseIsAnsweredAndRenewsTheSubscriptions() throws InterruptedException {
+        CountDownLatch renewed = new CountDownLatch(1);
+        service.subscribe(renewed::countDown, Collections.singletonList("newHeads")).subscribe(head -> {});
+
+        listener.onClosing(socket, 1001, "going away");
+
+        verify(socket).close(1001, null);
+        assertTrue(renewed.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * answers like a node would, a batch in reverse order, and never answers eth_unsubscribe
+     */
+    private void reply(JsonNode payload) throws IOException {
+        if (payload.isArray()) {
+            ArrayNode responses = objectMapper.createArrayNode();
+            for (int i = payload.size() - 1; i >= 0; i--) {
+                responses.add(response(payload.get(i)));
+            }
+            listener.onMessage(socket, objectMapper.writeValueAsString(responses));
+            return;
+        }
+        JsonNode response = response(payload);
+        if (response != null) {
+            listener.onMessage(socket, objectMapper.writeValueAsString(response));
+        }
+    }
+
+    private JsonNode response(JsonNode request) {
+        String method = request.get("method").asText();
+        sentMethods.add(method);
+        long id = request.get("id").asLong();
+        switch (method) {
+            case "eth_subscribe":
+                return objectMapper.createObjectNode().put("jsonrpc", "2.0").put("id", id).put("result", "0xsub");
+            case "eth_blockNumber":
+                return objectMapper.createObjectNode().put("jsonrpc", "2.0").put("id", id).put("result", "0x" + Long.toHexString(id));
+            default:
+                return null;
+        }
+    }
+
+    private void notification(String subscription) {
+        listener.onMessage(socket, "{\"jsonrpc\":\"2.0\",\"method\":\"eth_subscription\",\"params\":{\"subscription\":\""
+                + subscription + "\",\"result\":{\"number\":\"0x1\"}}}");
+    }
+}